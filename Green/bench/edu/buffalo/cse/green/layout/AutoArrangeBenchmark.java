@@ -0,0 +1,101 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import edu.buffalo.cse.green.ccvisu.CCVisuLayoutEngine;
+import edu.buffalo.cse.green.editor.model.commands.AutoArrangeCommand;
+
+/**
+ * Times the <code>CCVisuLayoutEngine</code>, which Auto Arrange uses by
+ * default, on synthetic diagrams. It runs as a plain Java application,
+ * outside the workbench, with CCVisu and the Eclipse runtime on the
+ * classpath:
+ *
+ * <pre>
+ * java edu.buffalo.cse.green.layout.AutoArrangeBenchmark [types...]
+ * </pre>
+ *
+ * The diagrams default to 500 and 5,000 types and are built like those of
+ * <code>LayeredLayoutBenchmark</code>, with 1.45 relationships per type. Each
+ * layout gets the time budget of Auto Arrange and no listener, so only the
+ * minimization is timed.
+ */
+public class AutoArrangeBenchmark {
+	/**
+	 * The number of layouts computed before the timed ones.
+	 */
+	public static final int WARM_UP_RUNS = 2;
+
+	/**
+	 * The number of timed layouts.
+	 */
+	public static final int TIMED_RUNS = 5;
+
+	/**
+	 * The number of relationships per type.
+	 */
+	public static final double RELATIONSHIPS_PER_TYPE = 1.45;
+
+	public static void main(String[] args) {
+		int[] sizes = { 500, 5000 };
+
+		if (args.length > 0) {
+			sizes = new int[args.length];
+
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		for (int types : sizes) {
+			run(types);
+		}
+	}
+
+	/**
+	 * Times the layout of one synthetic diagram and prints the results.
+	 *
+	 * @param types - The number of types in the diagram.
+	 */
+	private static void run(int types) {
+		LayoutGraph graph = LayeredLayoutBenchmark.createGraph(types,
+				(int) (types * RELATIONSHIPS_PER_TYPE));
+		ILayoutEngine engine = new CCVisuLayoutEngine();
+
+		for (int run = 0; run < WARM_UP_RUNS; run++) {
+			engine.layout(graph, AutoArrangeCommand.LAYOUT_BUDGET,
+					new NullProgressMonitor(), null);
+		}
+
+		long[] times = new long[TIMED_RUNS];
+
+		for (int run = 0; run < TIMED_RUNS; run++) {
+			long start = System.nanoTime();
+			engine.layout(graph, AutoArrangeCommand.LAYOUT_BUDGET,
+					new NullProgressMonitor(), null);
+			times[run] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(times);
+
+		System.out.println(types + " types, " + graph.getEdgeCount()
+				+ " relationships");
+		System.out.println("median "
+				+ LayeredLayoutBenchmark.toMillis(times[TIMED_RUNS / 2])
+				+ " ms, slowest "
+				+ LayeredLayoutBenchmark.toMillis(times[TIMED_RUNS - 1])
+				+ " ms, budget " + AutoArrangeCommand.LAYOUT_BUDGET + " ms");
+	}
+}
@@ -0,0 +1,181 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.buffalo.cse.green.editor.model.RelationshipKind;
+
+/**
+ * Times the <code>LayeredLayout</code> on a synthetic diagram and checks the
+ * layout it produces. It runs as a plain Java application, outside the
+ * workbench:
+ *
+ * <pre>
+ * java edu.buffalo.cse.green.layout.LayeredLayoutBenchmark [types] [relationships]
+ * </pre>
+ *
+ * The diagram defaults to 1,000 types and 1,450 relationships. Every type
+ * except the roots of the hierarchy has one supertype declared before it; the
+ * remaining relationships are associations between random types. The types
+ * start out in a square grid. The diagram is the same from one run to the
+ * next.
+ */
+public class LayeredLayoutBenchmark {
+	/**
+	 * The number of layouts computed before the timed ones.
+	 */
+	public static final int WARM_UP_RUNS = 5;
+
+	/**
+	 * The number of timed layouts.
+	 */
+	public static final int TIMED_RUNS = 20;
+
+	/**
+	 * The share of types that are roots of the hierarchy.
+	 */
+	public static final double ROOT_SHARE = 0.05;
+
+	/**
+	 * The seed of the random diagram.
+	 */
+	public static final long SEED = 1;
+
+	/**
+	 * The distance between the types, which start out in a square grid.
+	 */
+	public static final int GRID_SPACING = 250;
+
+	public static void main(String[] args) {
+		int types = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int relationships = (args.length > 1) ? Integer.parseInt(args[1])
+				: 1450;
+		LayoutGraph graph = createGraph(types, relationships);
+
+		for (int run = 0; run < WARM_UP_RUNS; run++) {
+			new LayeredLayout(graph).layout();
+		}
+
+		long[] times = new long[TIMED_RUNS];
+		int[][] positions = null;
+
+		for (int run = 0; run < TIMED_RUNS; run++) {
+			long start = System.nanoTime();
+			positions = new LayeredLayout(graph).layout();
+			times[run] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(times);
+
+		System.out.println(types + " types, " + graph.getEdgeCount()
+				+ " relationships");
+		System.out.println("median " + toMillis(times[TIMED_RUNS / 2])
+				+ " ms, slowest " + toMillis(times[TIMED_RUNS - 1]) + " ms");
+		System.out.println(countDownwardHierarchyEdges(graph, positions)
+				+ " hierarchy edges pointing downwards");
+		System.out.println(countOverlaps(graph, positions)
+				+ " pairs of overlapping types");
+	}
+
+	/**
+	 * @param types - The number of types.
+	 * @param relationships - The number of relationships.
+	 * @return The synthetic diagram.
+	 */
+	static LayoutGraph createGraph(int types, int relationships) {
+		Random random = new Random(SEED);
+		int[] x = new int[types];
+		int[] y = new int[types];
+		int[] width = new int[types];
+		int[] height = new int[types];
+		int columns = (int) Math.ceil(Math.sqrt(types));
+
+		for (int v = 0; v < types; v++) {
+			x[v] = (v % columns) * GRID_SPACING;
+			y[v] = (v / columns) * GRID_SPACING;
+			width[v] = 80 + random.nextInt(120);
+			height[v] = 40 + random.nextInt(160);
+		}
+
+		int roots = Math.max(1, (int) (types * ROOT_SHARE));
+		int edges = Math.max(relationships, types - roots);
+		int[] sources = new int[edges];
+		int[] targets = new int[edges];
+		RelationshipKind[] kinds = new RelationshipKind[edges];
+		int e = 0;
+
+		for (int v = roots; v < types; v++, e++) {
+			sources[e] = v;
+			targets[e] = random.nextInt(v);
+			kinds[e] = RelationshipKind.Single;
+		}
+
+		for (; e < edges; e++) {
+			int source = random.nextInt(types);
+			int target = random.nextInt(types - 1);
+
+			sources[e] = source;
+			targets[e] = (target >= source) ? target + 1 : target;
+			kinds[e] = RelationshipKind.Cardinal;
+		}
+
+		return new LayoutGraph(x, y, width, height, sources, targets, kinds);
+	}
+
+	/**
+	 * @return The number of generalization and realization edges whose
+	 * supertype is not entirely above its subtype.
+	 */
+	private static int countDownwardHierarchyEdges(LayoutGraph graph,
+			int[][] positions) {
+		int count = 0;
+
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			if (graph.getKind(e) != RelationshipKind.Single) continue;
+
+			int sub = graph.getSource(e);
+			int sup = graph.getTarget(e);
+
+			if (positions[sup][1] + graph.getHeight(sup) > positions[sub][1]) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return The number of pairs of types whose boxes overlap.
+	 */
+	private static int countOverlaps(LayoutGraph graph, int[][] positions) {
+		int count = 0;
+
+		for (int u = 0; u < graph.getVertexCount(); u++) {
+			for (int v = u + 1; v < graph.getVertexCount(); v++) {
+				if (positions[u][0] < positions[v][0] + graph.getWidth(v)
+						&& positions[v][0] < positions[u][0] + graph.getWidth(u)
+						&& positions[u][1] < positions[v][1] + graph.getHeight(v)
+						&& positions[v][1] < positions[u][1]
+								+ graph.getHeight(u)) {
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	static String toMillis(long nanos) {
+		return String.valueOf(Math.round(nanos / 100000.0) / 10.0);
+	}
+}
@@ -12,8 +12,6 @@ package edu.buffalo.cse.green;
 
 import org.eclipse.jface.dialogs.MessageDialog;
 
-import edu.buffalo.cse.green.types.ITypeProperties;
-
 /**
  * Displays errors that occur in Green; this prevents us from having to use
  * System.err directly in our code and facilitates abstraction by moving the
@@ -245,7 +243,7 @@ public class GreenException extends RuntimeException {
 	 * @param eClass - The expected class.
 	 */
 	public static void illegalExtensionClass(Class<? extends Object> aClass,
-			Class<ITypeProperties> eClass) {
+			Class<?> eClass) {
 		illegalOperation("Illegal plugin class: expected " + eClass + ", but "
 				+ "was " + aClass);
 	}
@@ -10,6 +10,7 @@
 
 package edu.buffalo.cse.green;
 
+import static org.eclipse.jdt.core.IJavaElement.CLASS_FILE;
 import static org.eclipse.jdt.core.IJavaElement.COMPILATION_UNIT;
 import static org.eclipse.jdt.core.IJavaElement.JAVA_PROJECT;
 import static org.eclipse.jdt.core.IJavaElement.PACKAGE_FRAGMENT;
@@ -126,11 +127,29 @@ implements IElementChangedListener {
 				
 				List<DiagramEditor> editors =
 					new ArrayList<DiagramEditor>(DiagramEditor.getEditors());
+				List<IJavaElement> elements = new ArrayList<IJavaElement>();
+				elements.addAll(moved.keySet());
+				elements.addAll(moved.values());
+				
+				for (IJavaElementDelta delta : added) {
+					elements.add(delta.getElement());
+				}
+				
+				for (IJavaElementDelta delta : removed) {
+					elements.add(delta.getElement());
+				}
+				
+				for (IJavaElementDelta delta : changed) {
+					elements.add(delta.getElement());
+				}
 				
 				// handle changes
 				for (DiagramEditor editor : editors) {
 					RootModel root = editor.getRootModel();
 					
+					// leave editors that show none of the changed code alone
+					if (!isAffected(root, elements)) continue;
+					
 					// handle moves
 					for (IJavaElement sourceElement : moved.keySet()) {
 						IJavaElement targetElement = moved.get(sourceElement);
@@ -152,7 +171,7 @@ implements IElementChangedListener {
 
 					// handle changes (to modifiers, etc.)
 					for (IJavaElementDelta changedElement : changed) {
-						handleElementChange(changedElement);
+						handleElementChange(editor, changedElement);
 					}
 					
 					editor.forceRefreshRelationships();
@@ -327,34 +346,59 @@ implements IElementChangedListener {
 		return changes;
 	}
 
+	/**
+	 * @param root - The root model of an editor.
+	 * @param elements - The elements that changed.
+	 * @return true if any of the elements is in, or contains, a compilation
+	 * unit or class file that the editor shows; false otherwise.
+	 */
+	private boolean isAffected(RootModel root, List<IJavaElement> elements) {
+		for (IJavaElement element : elements) {
+			IJavaElement container = element.getAncestor(COMPILATION_UNIT);
+			
+			if (container == null) {
+				container = element.getAncestor(CLASS_FILE);
+			}
+			
+			// projects and packages contain the units they affect
+			if (container == null) {
+				container = element;
+			}
+			
+			if (root.ancestorInEditor(container)) return true;
+		}
+		
+		return false;
+	}
+
 	/**
 	 * Updates the display when some change occurs to a Java element that
 	 * doesn't involve removal, addition, or movement.
 	 * 
+	 * @param editor - The editor to update.
 	 * @param elementDelta - The delta of the element that changed.
 	 */
-	private void handleElementChange(IJavaElementDelta elementDelta) {
+	private void handleElementChange(DiagramEditor editor,
+			IJavaElementDelta elementDelta) {
 		IJavaElement element = elementDelta.getElement();
 
 		// update the modifiers of the element (if they changed)
 		if ((elementDelta.getFlags() & IJavaElementDelta.F_MODIFIERS) != 0) {
-			for (DiagramEditor editor : DiagramEditor.getEditors()) {
-				RootPart rootEditPart = editor.getRootPart();
-				RootModel root = (RootModel) rootEditPart.getModel();
-				AbstractModel abstractModel = root.getModelFromElement(element);
-
-				if (abstractModel != null) {
-					if (abstractModel instanceof FieldModel) {
-						FieldModel fModel = (FieldModel) abstractModel;
-						FieldPart fEditPart = (FieldPart) rootEditPart
-								.getPartFromModel(fModel);
-						fEditPart.updateIcon();
-					} else if (abstractModel instanceof MethodModel) {
-						MethodModel mModel = (MethodModel) abstractModel;
-						MethodPart mEditPart = (MethodPart) rootEditPart
-								.getPartFromModel(mModel);
-						mEditPart.updateIcon();
-					}
+			RootPart rootEditPart = editor.getRootPart();
+			RootModel root = (RootModel) rootEditPart.getModel();
+			AbstractModel abstractModel = root.getModelFromElement(element);
+
+			if (abstractModel != null) {
+				if (abstractModel instanceof FieldModel) {
+					FieldModel fModel = (FieldModel) abstractModel;
+					FieldPart fEditPart = (FieldPart) rootEditPart
+							.getPartFromModel(fModel);
+					if (fEditPart != null) fEditPart.updateIcon();
+				} else if (abstractModel instanceof MethodModel) {
+					MethodModel mModel = (MethodModel) abstractModel;
+					MethodPart mEditPart = (MethodPart) rootEditPart
+							.getPartFromModel(mModel);
+					if (mEditPart != null) mEditPart.updateIcon();
 				}
 			}
 		}
@@ -23,7 +23,6 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Set;
-import java.util.StringTokenizer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,27 +38,36 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.help.IWorkbenchHelpSystem;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 
+import edu.buffalo.cse.green.ccvisu.CCVisuLayoutEngine;
 import edu.buffalo.cse.green.constants.PluginConstants;
 import edu.buffalo.cse.green.designpattern.DesignPatternGroup;
 import edu.buffalo.cse.green.editor.DiagramEditor;
 import edu.buffalo.cse.green.editor.action.AlterRelationshipVisibilityAction;
 import edu.buffalo.cse.green.editor.action.ContextAction;
 import edu.buffalo.cse.green.editor.action.IncrementalExploreSingleAction;
+import edu.buffalo.cse.green.editor.action.LayoutEngineAction;
 import edu.buffalo.cse.green.editor.controller.FieldPart;
 import edu.buffalo.cse.green.editor.controller.MethodPart;
 import edu.buffalo.cse.green.editor.controller.NotePart;
 import edu.buffalo.cse.green.editor.controller.TypePart;
 import edu.buffalo.cse.green.editor.model.MemberModel;
 import edu.buffalo.cse.green.editor.model.filters.MemberFilter;
+import edu.buffalo.cse.green.editor.model.filters.MemberFilterSet;
 import edu.buffalo.cse.green.editor.save.ISaveFormat;
+import edu.buffalo.cse.green.layout.ILayoutEngine;
+import edu.buffalo.cse.green.preferences.PreferenceResources;
+import edu.buffalo.cse.green.preferences.PreferenceSnapshot;
 import edu.buffalo.cse.green.relationships.RelationshipGenerator;
 import edu.buffalo.cse.green.relationships.RelationshipGroup;
 import edu.buffalo.cse.green.relationships.RelationshipRecognizer;
@@ -101,6 +109,7 @@ public final class PlugIn extends AbstractUIPlugin {
 	private static final String VIEW_ID = "edu.buffalo.cse.green.editorViews";
 	private static final String SAVE_FORMAT_ID = "edu.buffalo.cse.green.saveFormat";
 	private static final String JAVA_TYPE_ID = "edu.buffalo.cse.green.javaType";
+	private static final String LAYOUT_ENGINE_ID = "edu.buffalo.cse.green.layoutEngine";
 	
 	private static boolean _recognizersEnabled = true;
 
@@ -115,6 +124,17 @@ public final class PlugIn extends AbstractUIPlugin {
 		new HashMap<String, ITypeProperties>();
 	private static List<RelationshipGroup> _relationshipGroups;
 	
+	private static List<ILayoutEngine> _layoutEngines =
+		new ArrayList<ILayoutEngine>();
+
+	private static ILayoutEngine _defaultLayoutEngine;
+	
+	private static PreferenceResources _resources;
+	
+	private static MemberFilterSet _memberFilters;
+	
+	private static PreferenceSnapshot _snapshot;
+	
 	public PlugIn() {
 		_relationships = new HashMap<String, List<RelationshipSubtype>>();
 		_relationshipGroups = new ArrayList<RelationshipGroup>();
@@ -313,6 +333,29 @@ public final class PlugIn extends AbstractUIPlugin {
 				addRelationshipGroup(rGroup);
 			}
 			
+			// load plugins: layout engines
+			for (IConfigurationElement element
+					: getConfigElements(LAYOUT_ENGINE_ID)) {
+				Object engine = element.createExecutableExtension("class");
+				
+				if (!(engine instanceof ILayoutEngine)) {
+					GreenException.illegalExtensionClass(engine.getClass(),
+							ILayoutEngine.class);
+				}
+				
+				_layoutEngines.add((ILayoutEngine) engine);
+				
+				if ("true".equals(element.getAttribute("default"))) {
+					_defaultLayoutEngine = (ILayoutEngine) engine;
+				}
+			}
+			
+			for (ILayoutEngine engine : _layoutEngines) {
+				if (engine != getDefaultLayoutEngine()) {
+					_actions.add(new LayoutEngineAction(engine));
+				}
+			}
+			
 			// load dynamic context actions
 			List<Class> c = PlugIn.getRelationships( );
 			List<Class> sorted = new ArrayList<Class>( );
@@ -380,10 +423,34 @@ public final class PlugIn extends AbstractUIPlugin {
 		return _mTypeProperties.values();
 	}
 
+	/**
+	 * @return All contributed layout engines.
+	 */
+	public static List<ILayoutEngine> getLayoutEngines() {
+		return _layoutEngines;
+	}
+	
+	/**
+	 * @return The layout engine used by auto-arrange: the contributed engine
+	 * marked as the default, or the CCVisu engine if there is none.
+	 */
+	public static ILayoutEngine getDefaultLayoutEngine() {
+		if (_defaultLayoutEngine == null) {
+			_defaultLayoutEngine = new CCVisuLayoutEngine();
+		}
+		
+		return _defaultLayoutEngine;
+	}
+
 	/**
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		if (_resources != null) {
+			_resources.dispose();
+			_resources = null;
+		}
+		
 		super.stop(context);
 	}
 
@@ -578,9 +645,64 @@ public final class PlugIn extends AbstractUIPlugin {
 	 * @param value The value to assign
 	 */
 	public static void setBooleanPreference(String key, boolean value) {
+		// the open editors are updated by the preference listener
 		getPreferences().setValue( key, value );
-		for( DiagramEditor e : DiagramEditor.getEditors( ) )
-			e.refresh( );
+	}
+	
+	/**
+	 * @return The values of the preferences read while editing, as of the
+	 * last change to the preferences.
+	 */
+	public static synchronized PreferenceSnapshot getPreferenceSnapshot() {
+		if (_snapshot == null) {
+			getPreferences().addPropertyChangeListener(new PreferenceListener());
+			_snapshot = new PreferenceSnapshot(getPreferences());
+		}
+		
+		return _snapshot;
+	}
+	
+	/**
+	 * Rebuilds the preference snapshot when a preference changes, and redraws
+	 * the open editors when the change affects how they are drawn.
+	 */
+	private static class PreferenceListener implements IPropertyChangeListener {
+		/**
+		 * Whether a redraw of the open editors has been scheduled.
+		 */
+		private boolean _redrawPending;
+		
+		/**
+		 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+		 */
+		public void propertyChange(PropertyChangeEvent event) {
+			synchronized (PlugIn.class) {
+				_snapshot = new PreferenceSnapshot(getPreferences());
+			}
+			
+			if (!PreferenceSnapshot.isVisual(event.getProperty())) return;
+			
+			synchronized (this) {
+				// several preferences are usually applied at once
+				if (_redrawPending) return;
+				_redrawPending = true;
+			}
+			
+			Display.getDefault().asyncExec(new Runnable() {
+				/**
+				 * @see java.lang.Runnable#run()
+				 */
+				public void run() {
+					synchronized (PreferenceListener.this) {
+						_redrawPending = false;
+					}
+					
+					for (DiagramEditor editor : DiagramEditor.getEditors()) {
+						editor.redraw();
+					}
+				}
+			});
+		}
 	}
 
 	/**
@@ -592,47 +714,35 @@ public final class PlugIn extends AbstractUIPlugin {
 	}
 
 	/**
-	 * Gets the Font object based on the preferences settings
+	 * Gets the Font object based on the preferences settings. The font is
+	 * shared and must not be disposed.
 	 * @param key - The String key
 	 * @return The preference from the preference system for the given key.
 	 * 
 	 * @author zgwang
 	 */
 	public static Font getFontPreference(String key, boolean forceItalics) {
-		int fontSize = 10;
-		int style = 0;
-		int italics = forceItalics ? 2 : 0;
-		String fontData = getPreference(key);
-		String fontName = "";
-		
-		StringTokenizer tokens = new StringTokenizer("0" + fontData, "|");
-		tokens.nextToken();
-		fontName = tokens.nextToken();
-
-		//font = <unknown>|<name>|<size>|<style>|<OS>|<don't cares>
-		fontSize = (int)(Double.parseDouble(tokens.nextToken()));
-		//Get italics setting from parameter, retain bold setting
-		style = italics;
-		if(tokens.hasMoreTokens()) {
-			style += Integer.parseInt(tokens.nextToken()) % 2;
-		}
-		return new Font(null, fontName, fontSize, style);
+		return getPreferenceResources().getFont(key, forceItalics);
 	}
 	
 	/**
 	 * @param key - The String key
 	 * @return The preference from the preference system for the given key.
+	 * The color is shared and must not be disposed.
 	 */
 	public static Color getColorPreference(String key) {
-		String col = getPreference(key);
-		int comma1 = col.indexOf(',');
-		int comma2 = col.lastIndexOf(',');
-		
-		int r = Integer.parseInt(col.substring(0, comma1));
-		int g = Integer.parseInt(col.substring(comma1 + 1, comma2));
-		int b = Integer.parseInt(col.substring(comma2 + 1));
+		return getPreferenceResources().getColor(key);
+	}
+
+	/**
+	 * @return The registry holding the colors and fonts of the preferences.
+	 */
+	public static synchronized PreferenceResources getPreferenceResources() {
+		if (_resources == null) {
+			_resources = new PreferenceResources(getPreferences());
+		}
 		
-		return new Color(null, r, g, b);
+		return _resources;
 	}
 
 	/**
@@ -697,11 +807,21 @@ public final class PlugIn extends AbstractUIPlugin {
 	public static boolean filterMember(MemberModel model) {
 		if (model == null) return false;
 		
-		for (MemberFilter filter : getMemberFilters()) {
-			if (filter.isFiltered(model.getMember())) return true;
+		return getMemberFilterSet().isFiltered(model.getMember());
+	}
+	
+	/**
+	 * @return The filters in the member filter preference. The set is kept
+	 * until the preference changes.
+	 */
+	public static synchronized MemberFilterSet getMemberFilterSet() {
+		String value = getPreference(P_FILTERS_MEMBER);
+		
+		if (_memberFilters == null || !_memberFilters.getValue().equals(value)) {
+			_memberFilters = new MemberFilterSet(value);
 		}
 		
-		return false;
+		return _memberFilters;
 	}
 
 //	public static Set<MemberModel> filterMembers(
@@ -719,22 +839,12 @@ public final class PlugIn extends AbstractUIPlugin {
 //		return filtered;
 //	}
 
+	/**
+	 * @return New instances of the filters in the member filter preference,
+	 * which may be changed by the caller.
+	 */
 	public static List<MemberFilter> getMemberFilters() {
-		List<MemberFilter> filters = new ArrayList<MemberFilter>();
-		
-		try {
-			StringTokenizer tokens = new StringTokenizer(
-					PlugIn.getPreference(P_FILTERS_MEMBER), "|");
-			
-			while (tokens.hasMoreTokens()) {
-				String token = tokens.nextToken();
-				filters.add(new MemberFilter(token));
-			}
-		} catch (Exception e) {
-			GreenException.warn("problem loading filters");
-		}
-
-		return filters;
+		return MemberFilterSet.parse(getPreference(P_FILTERS_MEMBER));
 	}
 	
 	/**
@@ -0,0 +1,223 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2010 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.ccvisu;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import ccvisu.GraphData;
+import ccvisu.GraphEdge;
+import ccvisu.GraphEvent;
+import ccvisu.GraphEventListener;
+import ccvisu.GraphVertex;
+import ccvisu.Minimizer;
+import ccvisu.MinimizerBarnesHut;
+import ccvisu.Options;
+import edu.buffalo.cse.green.layout.ILayoutEngine;
+import edu.buffalo.cse.green.layout.ILayoutListener;
+import edu.buffalo.cse.green.layout.LayoutGraph;
+
+/**
+ * Lays out a diagram by minimizing the energy of its graph with CCVisu's
+ * Barnes-Hut minimizer. The minimization stops early once the free vertices
+ * have settled, the time budget runs out or the monitor is cancelled.
+ *
+ * If any vertex is pinned, the positions are returned unchanged so that
+ * pinned types stay exactly where they are; otherwise the layout is moved to
+ * the origin.
+ */
+public class CCVisuLayoutEngine implements ILayoutEngine {
+	/**
+	 * The maximum number of iterations of the minimizer.
+	 */
+	public static final int ITERATIONS = 100;
+
+	/**
+	 * The average distance, in layout units, a free vertex may move during
+	 * one iteration for the layout to be considered converged.
+	 */
+	public static final float CONVERGENCE = 0.001f;
+
+	/**
+	 * The number of iterations that always run before convergence is checked.
+	 */
+	public static final int MIN_ITERATIONS = 10;
+
+	/**
+	 * The number of pixels a layout unit spans.
+	 */
+	public static final float SCALE = 200.0f;
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#getLabel()
+	 */
+	public String getLabel() {
+		return "Force-Directed";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#layout(edu.buffalo.cse.green.layout.LayoutGraph, long, org.eclipse.core.runtime.IProgressMonitor, edu.buffalo.cse.green.layout.ILayoutListener)
+	 */
+	public int[][] layout(LayoutGraph graph, long budget,
+			IProgressMonitor monitor, ILayoutListener listener) {
+		GraphData gd = new GraphData();
+		int size = graph.getVertexCount();
+		int[] degree = new int[size];
+
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			GraphEdge ed = new GraphEdge();
+			ed.x = graph.getSource(e);
+			ed.y = graph.getTarget(e);
+			ed.w = 1.0f;
+			gd.edges.add(ed);
+			degree[ed.x]++;
+			degree[ed.y]++;
+		}
+
+		for (int v = 0; v < size; v++) {
+			GraphVertex vertex = new GraphVertex();
+			vertex.id = v;
+			vertex.name = "" + v;
+			vertex.degree = degree[v] + graph.getWidth(v)
+					* graph.getHeight(v) / 20000.0f;
+			vertex.isSource = vertex.degree > 0;
+			vertex.fixedPos = graph.isPinned(v);
+			vertex.pos.x = graph.getX(v) / SCALE;
+			vertex.pos.y = graph.getY(v) / SCALE;
+			gd.vertices.add(vertex);
+		}
+
+		boolean pinned = graph.hasPinnedVertices();
+		Options options = CCVisuUtil.newOptions(gd, ITERATIONS, 3, 1, false,
+				false, 2.001f, null, pinned);
+		Run run = new Run(gd, options, !pinned, budget, monitor, listener);
+		Minimizer minimizer = new MinimizerBarnesHut(options);
+
+		monitor.beginTask(getLabel(), ITERATIONS);
+		minimizer.addGraphEventListener(run);
+		minimizer.minimizeEnergy();
+		monitor.done();
+
+		return run.getPositions();
+	}
+
+	/**
+	 * Tracks a single minimization.
+	 */
+	private static class Run implements GraphEventListener {
+		private GraphData _graph;
+
+		private Options _options;
+
+		private boolean _normalize;
+
+		private long _deadline;
+
+		private IProgressMonitor _monitor;
+
+		private ILayoutListener _listener;
+
+		private float[][] _last;
+
+		private int _iteration;
+
+		private long _lastUpdate;
+
+		public Run(GraphData graph, Options options, boolean normalize,
+				long budget, IProgressMonitor monitor,
+				ILayoutListener listener) {
+			_graph = graph;
+			_options = options;
+			_normalize = normalize;
+			_deadline = System.currentTimeMillis() + budget;
+			_monitor = monitor;
+			_listener = listener;
+			_last = new float[graph.vertices.size()][2];
+			store();
+		}
+
+		/**
+		 * @see ccvisu.GraphEventListener#onGraphEvent(ccvisu.GraphEvent)
+		 */
+		public void onGraphEvent(GraphEvent evt) {
+			_monitor.worked(1);
+			_iteration++;
+
+			float movement = store();
+			long now = System.currentTimeMillis();
+
+			// the minimizer reads the iteration count on every step
+			if (_monitor.isCanceled() || now > _deadline
+					|| (_iteration > MIN_ITERATIONS
+							&& movement < CONVERGENCE)) {
+				_options.nrIterations = 0;
+			} else if (_listener != null
+					&& now - _lastUpdate >= ILayoutListener.UPDATE_INTERVAL) {
+				_lastUpdate = now;
+				_listener.layoutChanged(getPositions());
+			}
+		}
+
+		/**
+		 * Records the current position of every vertex.
+		 *
+		 * @return The average distance the free vertices moved since the
+		 * last call.
+		 */
+		private float store() {
+			float movement = 0;
+			int free = 0;
+
+			for (int i = 0; i < _last.length; i++) {
+				GraphVertex v = _graph.vertices.get(i);
+
+				if (!v.fixedPos) {
+					movement += Math.abs(v.pos.x - _last[i][0])
+							+ Math.abs(v.pos.y - _last[i][1]);
+					free++;
+				}
+
+				_last[i][0] = v.pos.x;
+				_last[i][1] = v.pos.y;
+			}
+
+			return free == 0 ? 0 : movement / free;
+		}
+
+		/**
+		 * Converts the last recorded positions to diagram coordinates.
+		 *
+		 * @return The positions, indexed by vertex.
+		 */
+		public int[][] getPositions() {
+			float lx = 0, ly = 0;
+
+			if (_normalize) {
+				lx = ly = Float.MAX_VALUE;
+
+				for (float[] pos : _last) {
+					lx = Math.min(lx, pos[0]);
+					ly = Math.min(ly, pos[1]);
+				}
+			}
+
+			int[][] positions = new int[_last.length][2];
+
+			for (int i = 0; i < _last.length; i++) {
+				positions[i][0] = Math.max(0,
+						Math.round((_last[i][0] - lx) * SCALE));
+				positions[i][1] = Math.max(0,
+						Math.round((_last[i][1] - ly) * SCALE));
+			}
+
+			return positions;
+		}
+	}
+}
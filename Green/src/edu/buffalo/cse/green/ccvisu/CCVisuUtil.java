@@ -78,8 +78,8 @@ public class CCVisuUtil {
 		args[n++] = "-grav";
 		args[n++] = Float.toString(gravitation);
 		if (vertRepu) args[n++]= "-vertRepu";
-		if (vertRepu) args[n++]= "-noWeight";
-		if (vertRepu) args[n++]= "-fixedInitPos";
+		if (noWeight) args[n++]= "-noWeight";
+		if (fixedInitPos) args[n++]= "-fixedInitPos";
 		Options opt = new Options();
 		opt.parseCmdLine(args);
 		opt.graph = graph;
@@ -33,5 +33,11 @@ public class GraphVertex extends ccvisu.GraphVertex {
 	  return (o instanceof GraphVertex) && ((GraphVertex)o).me == me;
   }
 
+  @Override
+  public int hashCode()
+  {
+	  return System.identityHashCode(me);
+  }
+
 };
 
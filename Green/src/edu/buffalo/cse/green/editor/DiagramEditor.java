@@ -51,7 +51,6 @@ import static edu.buffalo.cse.green.constants.XMLConstants.XML_UML;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOSAVE;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_INCREMENTAL_EXPLORER_DIA;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_FORCE_DIA_IN_PROJECT;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_MANHATTAN_ROUTING;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -89,6 +88,7 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.draw2d.BendpointConnectionRouter;
 import org.eclipse.draw2d.ConnectionRouter;
+import org.eclipse.draw2d.FigureCanvas;
 import org.eclipse.draw2d.ManhattanConnectionRouter;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
@@ -97,6 +97,7 @@ import org.eclipse.gef.EditPart;
 import org.eclipse.gef.EditPartFactory;
 import org.eclipse.gef.KeyHandler;
 import org.eclipse.gef.KeyStroke;
+import org.eclipse.gef.LayerConstants;
 import org.eclipse.gef.MouseWheelHandler;
 import org.eclipse.gef.MouseWheelZoomHandler;
 import org.eclipse.gef.commands.Command;
@@ -192,7 +193,9 @@ import edu.buffalo.cse.green.editor.model.RelationshipModel;
 import edu.buffalo.cse.green.editor.model.RootModel;
 import edu.buffalo.cse.green.editor.model.TypeModel;
 import edu.buffalo.cse.green.editor.model.commands.CreateBendpointCommand;
+import edu.buffalo.cse.green.editor.save.GreenFormat;
 import edu.buffalo.cse.green.editor.save.ISaveFormat;
+import edu.buffalo.cse.green.editor.view.DiagramThumbnail;
 import edu.buffalo.cse.green.editor.view.RelationshipFigure;
 import edu.buffalo.cse.green.editor.view.RootFigure;
 import edu.buffalo.cse.green.relationships.RelationshipCache;
@@ -289,6 +292,11 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 	 * GEF's "root part" different from green's RootPart
 	 */
 	private ScalableFreeformRootEditPart _gefRootPart;
+	
+	/**
+	 * The downsampled picture of the diagram shown in the outline
+	 */
+	private DiagramThumbnail _thumbnail;
 
 
 	/**
@@ -320,7 +328,7 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 	 * Updates the connection router based on the user's preference.
 	 */
 	private void updateConnectionRouter() {
-		if (PlugIn.getBooleanPreference(P_MANHATTAN_ROUTING)) {
+		if (PlugIn.getPreferenceSnapshot().isManhattanRouting()) {
 			CONNECTION_ROUTER = new ManhattanConnectionRouter();
 		} else {
 			CONNECTION_ROUTER = new BendpointConnectionRouter();
@@ -559,6 +567,7 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 		
 		_editors.remove(this);
 		getRootModel().dispose();
+		if (_thumbnail != null) _thumbnail.dispose();
 		if (ACTIVE_EDITOR == this) ACTIVE_EDITOR = null;
 		
 		super.dispose();
@@ -728,6 +737,13 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 		
 	}
 
+	/**
+	 * @return The downsampled picture of the diagram.
+	 */
+	public DiagramThumbnail getThumbnail() {
+		return _thumbnail;
+	}
+
 	/**
 	 * @return The <code>RootPart</code>
 	 */
@@ -822,6 +838,8 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 //		getSite().getKeyBindingService().registerAction(zoomOut);
 		
 		viewer.setRootEditPart(_gefRootPart);
+		_thumbnail = new DiagramThumbnail((FigureCanvas) viewer.getControl(),
+				_gefRootPart.getLayer(LayerConstants.PRINTABLE_LAYERS));
 		viewer.setEditPartFactory(new DiagramPartFactory());
 		viewer.setKeyHandler(new GraphicalViewerKeyHandler(viewer)
 				.setParent(getCommonKeyHandler()));
@@ -973,6 +991,21 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 		return _context;
 	}
 
+	/**
+	 * @return The models of all parts in the current selection.
+	 */
+	public List<AbstractModel> getSelectedModels() {
+		List<AbstractModel> models = new ArrayList<AbstractModel>();
+		
+		for (Object element : _selection.toList()) {
+			if (element instanceof AbstractPart) {
+				models.add((AbstractModel) ((AbstractPart) element).getModel());
+			}
+		}
+		
+		return models;
+	}
+
 	/**
 	 * @see org.eclipse.jface.viewers.ISelectionProvider#removeSelectionChangedListener(org.eclipse.jface.viewers.ISelectionChangedListener)
 	 */
@@ -1275,11 +1308,9 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 				refreshRelationships(forceUpdateRelationships);
 				// refresh model
 				getRootModel().refresh();
-				// refresh figures
-				List<DiagramEditor> allEditors = getEditors();
-				for(DiagramEditor editor : allEditors) {
-					((RootFigure)(editor.getRootPart().getFigure())).updateEditor();
-				}
+				// refresh figures; other editors are updated by the changes
+				// to the code they show
+				((RootFigure) getRootPart().getFigure()).updateEditor();
 			}
 		});
 		
@@ -1288,6 +1319,17 @@ public class DiagramEditor extends GraphicalEditorWithFlyoutPalette implements
 		}
 	}
 	
+	/**
+	 * Redraws the editor after a change to a preference that only affects how
+	 * the diagram is drawn. Unlike <code>refresh()</code>, this neither builds
+	 * the workspace nor updates the model from the code.
+	 */
+	public void redraw() {
+		updateConnectionRouter();
+		getRootModel().redraw();
+		((RootFigure) getRootPart().getFigure()).updateEditor();
+	}
+	
 	/**
 	 * @return true if an undo can be performed, false otherwise
 	 */
@@ -2050,6 +2092,11 @@ class DiagramEditorFilePolicies {
 			return;
 		}
 		
+		// images show the members of types that were never scrolled to
+		if (!(format instanceof GreenFormat)) {
+			editor.getRootPart().realizeAll();
+		}
+		
 		format.saveInformation(editor, filePath.toOSString(),
 				editor.getRootPart().getFigure());
 	}
@@ -2078,8 +2125,15 @@ class DiagramEditorFilePolicies {
 		}
 		
 		_fileModified = false;
-		loadTypes(root, base, fileVersion);
-		loadNotes(root, base, fileVersion);
+		root.beginTransaction();
+		
+		try {
+			loadTypes(root, base, fileVersion);
+			loadNotes(root, base, fileVersion);
+		} finally {
+			root.commitTransaction();
+		}
+		
 		loadRelat(editor, root, base, fileVersion);
 
 		if(_fileModified) {warnFileModified();}
@@ -10,10 +10,15 @@
 
 package edu.buffalo.cse.green.editor;
 
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Children;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Refresh;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.gef.Request;
 import org.eclipse.gef.RequestConstants;
@@ -26,20 +31,32 @@ import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.events.PaintListener;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.views.contentoutline.ContentOutlinePage;
 
 import edu.buffalo.cse.green.editor.controller.AbstractPart;
-import edu.buffalo.cse.green.editor.controller.MemberPart;
-import edu.buffalo.cse.green.editor.controller.TypePart;
+import edu.buffalo.cse.green.editor.controller.PropertyListener;
+import edu.buffalo.cse.green.editor.controller.RootPart;
 import edu.buffalo.cse.green.editor.model.AbstractModel;
+import edu.buffalo.cse.green.editor.model.CompartmentModel;
 import edu.buffalo.cse.green.editor.model.MemberModel;
 import edu.buffalo.cse.green.editor.model.TypeModel;
+import edu.buffalo.cse.green.editor.view.DiagramThumbnail;
+import edu.buffalo.cse.green.editor.view.DiagramThumbnail.ThumbnailListener;
 
 
 /**
@@ -48,10 +65,14 @@ import edu.buffalo.cse.green.editor.model.TypeModel;
  * 
  * @author bcmartin
  */
-public class OutlinePage extends ContentOutlinePage {
+public class OutlinePage extends ContentOutlinePage
+implements ThumbnailListener {
 	private OutlineContentProvider _contentProvider;
 	private TreeViewer _viewer;
 	private IStructuredSelection _sel;
+	private SashForm _sash;
+	private Canvas _overview;
+	private DiagramThumbnail _thumbnail;
 	private static final OutlinePage SINGLETON = new OutlinePage();
 	
 	/**
@@ -78,8 +99,44 @@ public class OutlinePage extends ContentOutlinePage {
     		// don't update
     		return;
     	}
-    	_viewer.setInput(editor);
+    	
+    	// the content provider follows the changes to the editor's models
+    	if (_viewer.getInput() != editor) {
+    		_viewer.setInput(editor);
+    	}
+    	
+    	setThumbnail(editor.getThumbnail());
 	}
+    
+    /**
+     * Shows the given thumbnail in the overview.
+     * 
+     * @param thumbnail - The thumbnail of the editor shown in the outline.
+     */
+    private void setThumbnail(DiagramThumbnail thumbnail) {
+    	if (_thumbnail == thumbnail) return;
+    	
+    	if (_thumbnail != null) {
+    		_thumbnail.removeListener(this);
+    	}
+    	
+    	_thumbnail = thumbnail;
+    	
+    	if (_thumbnail != null) {
+    		_thumbnail.addListener(this);
+    	}
+    	
+    	thumbnailChanged(thumbnail);
+    }
+    
+    /**
+     * @see edu.buffalo.cse.green.editor.view.DiagramThumbnail.ThumbnailListener#thumbnailChanged(edu.buffalo.cse.green.editor.view.DiagramThumbnail)
+     */
+    public void thumbnailChanged(DiagramThumbnail thumbnail) {
+    	if (_overview != null && !_overview.isDisposed()) {
+    		_overview.redraw();
+    	}
+    }
 
 	/**
      * Creates the control i.e. creates all the stuff that matters and
@@ -90,7 +147,10 @@ public class OutlinePage extends ContentOutlinePage {
      * @param parent
      */
     public void createControl(Composite parent) {
-        super.createControl(parent);
+        _sash = new SashForm(parent, SWT.VERTICAL);
+        super.createControl(_sash);
+        createOverview(_sash);
+        _sash.setWeights(new int[] { 3, 1 });
         _contentProvider = new OutlineContentProvider();
         
         // create the context actions
@@ -125,11 +185,55 @@ public class OutlinePage extends ContentOutlinePage {
         createContextMenu();
     }
     
+    /**
+     * Creates the overview, which shows the cached picture of the diagram.
+     * 
+     * @param parent
+     */
+    private void createOverview(Composite parent) {
+    	_overview = new Canvas(parent, SWT.DOUBLE_BUFFERED);
+    	_overview.setBackground(parent.getDisplay().getSystemColor(
+    			SWT.COLOR_WHITE));
+    	_overview.addPaintListener(new PaintListener() {
+    		/**
+    		 * @see org.eclipse.swt.events.PaintListener#paintControl(org.eclipse.swt.events.PaintEvent)
+    		 */
+			public void paintControl(PaintEvent e) {
+				if (_thumbnail == null) return;
+				
+				// fit the picture in the overview without enlarging it
+				Image image = _thumbnail.getImage();
+				if (image == null) return;
+				
+				Rectangle source = image.getBounds();
+				Rectangle area = _overview.getClientArea();
+				double scale = Math.min(1.0, Math.min(
+						(double) area.width / source.width,
+						(double) area.height / source.height));
+				int width = (int) (source.width * scale);
+				int height = (int) (source.height * scale);
+				
+				if (width <= 0 || height <= 0) return;
+				
+				e.gc.drawImage(image, 0, 0, source.width, source.height,
+						(area.width - width) / 2, (area.height - height) / 2,
+						width, height);
+			}
+    	});
+    }
+    
+    /**
+     * @see org.eclipse.ui.views.contentoutline.ContentOutlinePage#getControl()
+     */
+    public Control getControl() {
+    	return _sash;
+    }
+    
     /**
      * @see org.eclipse.ui.views.contentoutline.ContentOutlinePage#setSelection(org.eclipse.jface.viewers.ISelection)
      */
     public void setSelection(ISelection selection) {
-        super.setSelection(selection);
+        super.setSelection(toModels(selection));
 
         // if the selection hasn't changed, abort
         if (selection.equals(_sel)) return;
@@ -140,10 +244,78 @@ public class OutlinePage extends ContentOutlinePage {
         		DiagramEditor.getActiveEditor(), new StructuredSelection(part));
     }
     
+    /**
+     * @see org.eclipse.ui.views.contentoutline.ContentOutlinePage#getSelection()
+     */
+    public ISelection getSelection() {
+    	return toParts(super.getSelection());
+    }
+    
+    /**
+     * @see org.eclipse.ui.views.contentoutline.ContentOutlinePage#selectionChanged(org.eclipse.jface.viewers.SelectionChangedEvent)
+     */
+    public void selectionChanged(SelectionChangedEvent event) {
+    	fireSelectionChanged(toParts(event.getSelection()));
+    }
+    
+    /**
+     * The tree holds models, while the editor selects parts.
+     * 
+     * @param selection - A selection of parts.
+     * @return The selection of the parts' models.
+     */
+    private ISelection toModels(ISelection selection) {
+    	if (!(selection instanceof IStructuredSelection)) return selection;
+    	
+    	List<Object> models = new ArrayList<Object>();
+    	
+    	for (Object element : ((IStructuredSelection) selection).toList()) {
+    		if (element instanceof AbstractPart) {
+    			models.add(((AbstractPart) element).getModel());
+    		}
+    	}
+    	
+    	return new StructuredSelection(models);
+    }
+    
+    /**
+     * Members of types that are not shown in the editor have no parts; their
+     * types are selected instead.
+     * 
+     * @param selection - A selection of models in the tree.
+     * @return The selection of the models' parts.
+     */
+    private ISelection toParts(ISelection selection) {
+    	if (!(selection instanceof IStructuredSelection)
+    			|| !(_viewer.getInput() instanceof DiagramEditor)) {
+    		return selection;
+    	}
+    	
+    	RootPart root = ((DiagramEditor) _viewer.getInput()).getRootPart();
+    	List<Object> parts = new ArrayList<Object>();
+    	
+    	for (Object element : ((IStructuredSelection) selection).toList()) {
+    		AbstractModel model = (AbstractModel) element;
+    		AbstractPart part = root.getPartFromModel(model);
+    		
+    		if (part == null && model instanceof MemberModel) {
+    			part = root.getPartFromModel(
+    					((MemberModel) model).getTypeModel());
+    		}
+    		
+    		if (part != null && !parts.contains(part)) {
+    			parts.add(part);
+    		}
+    	}
+    	
+    	return new StructuredSelection(parts);
+    }
+    
     /**
      * @see org.eclipse.ui.part.Page#dispose()
      */
     public void dispose() {
+        setThumbnail(null);
         super.dispose();
     }
     
@@ -204,6 +376,51 @@ public class OutlinePage extends ContentOutlinePage {
 }
 
 class OutlineContentProvider implements ITreeContentProvider {
+	private TreeViewer _viewer;
+	private DiagramEditor _editor;
+	
+	/**
+	 * The listeners hooked to each type model in the tree.
+	 */
+	private Map<TypeModel, TypeListener> _typeListeners =
+		new HashMap<TypeModel, TypeListener>();
+	
+	/**
+	 * Adds the types added to the diagram to the tree and removes the types
+	 * removed from it.
+	 */
+	private PropertyListener _rootListener = new PropertyListener() {
+		/**
+		 * @see edu.buffalo.cse.green.editor.controller.PropertyListener#notify(java.lang.Object, java.lang.Object)
+		 */
+		public void notify(final Object oValue, final Object nValue) {
+			if (oValue == null && nValue instanceof TypeModel) {
+				hookType((TypeModel) nValue);
+				updateViewer(new Runnable() {
+					public void run() {
+						_viewer.add(_editor, nValue);
+					}
+				});
+			} else if (oValue instanceof TypeModel && nValue == null) {
+				unhookType((TypeModel) oValue);
+				updateViewer(new Runnable() {
+					public void run() {
+						_viewer.remove(oValue);
+					}
+				});
+			} else if (!(oValue instanceof AbstractModel
+					|| nValue instanceof AbstractModel)) {
+				// a transaction doesn't say which children changed
+				hookTypes();
+				updateViewer(new Runnable() {
+					public void run() {
+						_viewer.refresh(_editor, false);
+					}
+				});
+			}
+		}
+	};
+	
 	/** 
 	 * Gets the children of the given parent node of the tree.
 	 * 
@@ -213,18 +430,10 @@ class OutlineContentProvider implements ITreeContentProvider {
 	public Object[] getChildren(Object element) {
 		List<Object> children = new ArrayList<Object>();
 		
-		if (element instanceof TypePart) {
-			TypePart part = (TypePart) element;
-			TypeModel model = (TypeModel) part.getModel();
-			
-			if (model.getFieldCompartmentModel() != null) {
-				children.addAll(part.getRootPart().getPartFromModel(
-						model.getFieldCompartmentModel()).getChildren());
-			}
-			
-			if (model.getMethodCompartmentModel() != null) {
-				children.addAll(part.getRootPart().getPartFromModel(
-						model.getMethodCompartmentModel()).getChildren());
+		if (element instanceof TypeModel) {
+			for (CompartmentModel compartment
+					: getMemberCompartments((TypeModel) element)) {
+				children.addAll(compartment.getChildren());
 			}
 		}
 
@@ -238,13 +447,12 @@ class OutlineContentProvider implements ITreeContentProvider {
 	 * @return parent node of the element 
 	 */
 	public Object getParent(Object element) {
-		if (element instanceof MemberPart) {
-			if (!(element instanceof TypePart)) {
-				MemberPart part = (MemberPart) element;
-				MemberModel model = (MemberModel) part.getModel();
-				part.getRootPart().getPartFromModel(
-						model.getParent().getParent());
-			}
+		if (element instanceof TypeModel) {
+			return _editor;
+		}
+		
+		if (element instanceof MemberModel) {
+			return ((MemberModel) element).getTypeModel();
 		}
 
 		return null;
@@ -257,38 +465,244 @@ class OutlineContentProvider implements ITreeContentProvider {
 	 * @return true if element has children, otherwise false
 	 */
 	public boolean hasChildren(Object element) {
-		return getChildren(element).length > 0;
+		if (element instanceof TypeModel) {
+			for (CompartmentModel compartment
+					: getMemberCompartments((TypeModel) element)) {
+				if (!compartment.getChildren().isEmpty()) return true;
+			}
+		}
+		
+		return false;
 	}
 
 	public Object[] getElements(Object inputElement) {
 		DiagramEditor editor = (DiagramEditor) inputElement;
-		List<AbstractPart> children = new ArrayList<AbstractPart>();
-		
-		for (AbstractModel model : editor.getRootModel().getChildren()) {
-			if (model instanceof TypeModel) {
-				children.add(editor.getRootPart().getPartFromModel(model));
-			}
-		}
-		
-		return children.toArray();
+		return editor.getRootModel().getChildren(TypeModel.class).toArray();
 	}
 
 	/**
 	 * @see org.eclipse.jface.viewers.IContentProvider#dispose()
 	 */
-	public void dispose() {}
+	public void dispose() {
+		unhookAll();
+	}
 
 	/**
 	 * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
 	 */
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
-		// do nothing
+		unhookAll();
+		_viewer = (TreeViewer) viewer;
+		_editor = (DiagramEditor) newInput;
+		
+		if (_editor != null) {
+			_editor.getRootModel().addListener(Children, _rootListener);
+			hookTypes();
+		}
+	}
+	
+	/**
+	 * Runs an update of the tree. The models may change outside the UI
+	 * thread, as when the Java model changes, in which case the update is
+	 * run in the UI thread later on, unless the tree is disposed or shows
+	 * another editor by then.
+	 * 
+	 * @param update - The update.
+	 */
+	private void updateViewer(final Runnable update) {
+		if (Display.getCurrent() != null) {
+			update.run();
+			return;
+		}
+		
+		final TreeViewer viewer = _viewer;
+		final DiagramEditor editor = _editor;
+		
+		Display.getDefault().asyncExec(new Runnable() {
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			public void run() {
+				if (viewer.getControl().isDisposed() || _viewer != viewer
+						|| _editor != editor) {
+					return;
+				}
+				
+				update.run();
+			}
+		});
+	}
+	
+	/**
+	 * @param model - The type model.
+	 * @return The compartments holding the type's fields and methods, in the
+	 * order they appear in the tree.
+	 */
+	static List<CompartmentModel> getMemberCompartments(TypeModel model) {
+		List<CompartmentModel> compartments = new ArrayList<CompartmentModel>(2);
+		
+		if (model.getFieldCompartmentModel() != null) {
+			compartments.add(model.getFieldCompartmentModel());
+		}
+		
+		if (model.getMethodCompartmentModel() != null) {
+			compartments.add(model.getMethodCompartmentModel());
+		}
+		
+		return compartments;
+	}
+	
+	/**
+	 * Hooks the types in the diagram that aren't hooked yet and unhooks the
+	 * ones that were removed from it.
+	 */
+	private void hookTypes() {
+		Set<TypeModel> removed =
+			new HashSet<TypeModel>(_typeListeners.keySet());
+		
+		for (AbstractModel model
+				: _editor.getRootModel().getChildren(TypeModel.class)) {
+			if (!removed.remove(model)) {
+				hookType((TypeModel) model);
+			}
+		}
+		
+		for (TypeModel model : removed) {
+			unhookType(model);
+		}
+	}
+	
+	/**
+	 * @param model - The type model to follow the changes of.
+	 */
+	private void hookType(TypeModel model) {
+		if (_typeListeners.containsKey(model)) return;
+		
+		TypeListener listener = new TypeListener(model);
+		listener.hook();
+		_typeListeners.put(model, listener);
+	}
+	
+	/**
+	 * @param model - The type model to stop following.
+	 */
+	private void unhookType(TypeModel model) {
+		TypeListener listener = _typeListeners.remove(model);
+		
+		if (listener != null) {
+			listener.unhook();
+		}
+	}
+	
+	/**
+	 * Stops following the changes to the current input's models.
+	 */
+	private void unhookAll() {
+		if (_editor != null) {
+			_editor.getRootModel().removeListener(Children, _rootListener);
+		}
+		
+		for (TypeListener listener : _typeListeners.values()) {
+			listener.unhook();
+		}
+		
+		_typeListeners.clear();
+	}
+	
+	/**
+	 * Updates a type's node when its members are added or removed and its
+	 * labels when it is refreshed.
+	 */
+	private class TypeListener {
+		private TypeModel _model;
+		
+		private PropertyListener _membersListener = new PropertyListener() {
+			/**
+			 * @see edu.buffalo.cse.green.editor.controller.PropertyListener#notify(java.lang.Object, java.lang.Object)
+			 */
+			public void notify(final Object oValue, final Object nValue) {
+				updateViewer(new Runnable() {
+					public void run() {
+						if (oValue == null && nValue instanceof MemberModel) {
+							int index = indexOf(nValue);
+							
+							// the member may be gone again by now
+							if (index != -1) {
+								_viewer.insert(_model, nValue, index);
+							}
+						} else if (oValue instanceof MemberModel
+								&& nValue == null) {
+							_viewer.remove(oValue);
+						} else {
+							// a transaction doesn't say which members changed
+							_viewer.refresh(_model, false);
+						}
+					}
+				});
+			}
+		};
+		
+		private PropertyListener _refreshListener = new PropertyListener() {
+			/**
+			 * @see edu.buffalo.cse.green.editor.controller.PropertyListener#notify(java.lang.Object, java.lang.Object)
+			 */
+			public void notify(Object oValue, Object nValue) {
+				updateViewer(new Runnable() {
+					public void run() {
+						// names change with renames and with the preferences
+						_viewer.update(_model, null);
+						_viewer.update(getChildren(_model), null);
+					}
+				});
+			}
+		};
+		
+		public TypeListener(TypeModel model) {
+			_model = model;
+		}
+		
+		/**
+		 * @param member - A member of the type.
+		 * @return The position of the member among the type's children.
+		 */
+		private int indexOf(Object member) {
+			int offset = 0;
+			
+			for (CompartmentModel compartment
+					: getMemberCompartments(_model)) {
+				int index = compartment.getChildren().indexOf(member);
+				if (index != -1) return offset + index;
+				offset += compartment.getChildren().size();
+			}
+			
+			return -1;
+		}
+		
+		public void hook() {
+			for (CompartmentModel compartment
+					: getMemberCompartments(_model)) {
+				compartment.addListener(Children, _membersListener);
+			}
+			
+			_model.addListener(Refresh, _refreshListener);
+		}
+		
+		public void unhook() {
+			for (CompartmentModel compartment
+					: getMemberCompartments(_model)) {
+				compartment.removeListener(Children, _membersListener);
+			}
+			
+			_model.removeListener(Refresh, _refreshListener);
+		}
 	}
 }
 
 class OutlineLabelProvider extends LabelProvider {
-	private static Map<String, Image> _mapping =
-		new HashMap<String, Image>();
+	/**
+	 * Maps the handle of each member to the icon last created for it.
+	 */
+	private Map<String, Image> _mapping = new HashMap<String, Image>();
 	
 	/**
 	 * Returns an image for the given element.
@@ -297,15 +711,13 @@ class OutlineLabelProvider extends LabelProvider {
 	 */
 	public Image getImage(Object element) {
 		// if an image was already created, free it up (so as to not waste mem)
-		MemberPart part = (MemberPart) element;
-		MemberModel model = (MemberModel) part.getModel();
+		MemberModel model = (MemberModel) element;
 		Image image = _mapping.get(model.getMember().getHandleIdentifier());
 		
 		if (image != null) {
 			image.dispose();
 		}
 		
-		
 		image = model.getIcon();
 		_mapping.put(model.getMember().getHandleIdentifier(), image);
 		return image;
@@ -318,8 +730,7 @@ class OutlineLabelProvider extends LabelProvider {
 	 * @return the text to view at the given element
 	 */
 	public String getText(Object element) {
-		MemberPart part = (MemberPart) element;
-		MemberModel model = (MemberModel) part.getModel();
+		MemberModel model = (MemberModel) element;
 		return model.getDisplayName();
 	}
 
@@ -329,4 +740,16 @@ class OutlineLabelProvider extends LabelProvider {
 	public boolean isLabelProperty(Object element, String property) {
         return false;
     }
+	
+	/**
+	 * @see org.eclipse.jface.viewers.BaseLabelProvider#dispose()
+	 */
+	public void dispose() {
+		for (Image image : _mapping.values()) {
+			image.dispose();
+		}
+		
+		_mapping.clear();
+		super.dispose();
+	}
 }
@@ -10,9 +10,17 @@
 
 package edu.buffalo.cse.green.editor.action;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.gef.commands.CompoundCommand;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.ui.actions.ActionFactory;
 
+import edu.buffalo.cse.green.editor.model.AbstractModel;
+import edu.buffalo.cse.green.editor.model.RelationshipModel;
+import edu.buffalo.cse.green.editor.model.commands.DeleteRelationshipsCommand;
+
 /**
  * Deletes the selected <code>IJavaElement</code>.
  * 
@@ -23,8 +31,29 @@ public class DeleteAction extends ContextAction {
 	 * @see edu.buffalo.cse.green.editor.action.ContextAction#doRun()
 	 */
 	public void doRun() throws JavaModelException {
-		// perform the selected model's delete command
-		getEditor().execute(_model.getDeleteCommand(getEditor()));
+		List<RelationshipModel> rModels = new ArrayList<RelationshipModel>();
+		
+		for (AbstractModel model : getEditor().getSelectedModels()) {
+			if (model instanceof RelationshipModel) {
+				rModels.add((RelationshipModel) model);
+			}
+		}
+		
+		if (rModels.size() > 1 && rModels.contains(_model)) {
+			// delete all selected relationships in one batch
+			getEditor().execute(
+					new DeleteRelationshipsCommand(getEditor(), rModels));
+		} else if (rModels.size() > 1) {
+			// delete the relationships in one batch, then the clicked model
+			CompoundCommand command = new CompoundCommand();
+			command.add(new DeleteRelationshipsCommand(getEditor(), rModels));
+			command.add(_model.getDeleteCommand(getEditor()));
+			getEditor().execute(command);
+		} else {
+			// perform the selected model's delete command
+			getEditor().execute(_model.getDeleteCommand(getEditor()));
+		}
+		
 		// refresh the editor
 		getEditor().autoSave();
 	}
@@ -0,0 +1,68 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ * 
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.action;
+
+import org.eclipse.jdt.core.JavaModelException;
+
+import edu.buffalo.cse.green.editor.DiagramEditor;
+import edu.buffalo.cse.green.editor.model.commands.AutoArrangeCommand;
+import edu.buffalo.cse.green.layout.ILayoutEngine;
+
+/**
+ * Arranges the diagram with a contributed layout engine. One of these actions
+ * is created for every engine other than the default one, which is run by
+ * <code>AutoArrangeAction</code>.
+ */
+public class LayoutEngineAction extends ContextAction {
+	private ILayoutEngine _engine;
+
+	public LayoutEngineAction(ILayoutEngine engine) {
+		super(engine);
+		_engine = engine;
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.action.ContextAction#doRun()
+	 */
+	protected void doRun() throws JavaModelException {
+		DiagramEditor editor = getEditor();
+
+		editor.execute(new AutoArrangeCommand(_engine));
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.action.ContextAction#getLabel()
+	 */
+	public String getLabel() {
+		return "Arrange Diagram (" + _engine.getLabel() + ")";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.action.ContextAction#getPath()
+	 */
+	public Submenu getPath() {
+		return Submenu.AutoArrange;
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.action.ContextAction#getSupportedModels()
+	 */
+	protected int getSupportedModels() {
+		return CM_EDITOR;
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.action.ContextAction#isEnabled()
+	 */
+	public boolean isEnabled() {
+		return true;
+	}
+}
@@ -33,6 +33,8 @@ public class PrintDIAAction extends ContextAction implements IActionDelegate{
 	 * @see edu.buffalo.cse.green.editor.action.ContextAction#doRun()
 	 */
 	public void doRun() throws JavaModelException {
+		// print the members of types that were never scrolled to
+		getEditor().getRootPart().realizeAll();
 		new PrintAction(DiagramEditor.getActiveEditor()).run();
 	}
 
@@ -12,8 +12,6 @@ package edu.buffalo.cse.green.editor.action;
 
 import java.util.List;
 
-import org.eclipse.draw2d.IFigure;
-import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.swt.graphics.Rectangle;
 
@@ -48,38 +46,20 @@ public class ZoomFitAction extends ContextAction {
 		List<RelationshipModel> allRels = activeEditor.getRootModel().getRelationships();
 		Rectangle viewSize = activeEditor.getSize();
 		
-		int hMin = 9999;
-		int hMax = 0;
-		int vMin = 9999;
-		int vMax = 0;
+		//The root model keeps the bounds of all element boxes indexed
+		org.eclipse.draw2d.geometry.Rectangle bounds =
+			activeEditor.getRootModel().getContentBounds();
 		
-		//Find the min/max bound coordinates for all element boxes
-		for(AbstractModel m : allModels) {
-			IFigure f = activeEditor.getRootPart().getPartFromModel(m).getFigure();
-
-			if(allRels.contains(m)) {
-				//Necessary because this method of obtaining the figure's dimension
-				//is inaccurate for relationships.
-				continue;
-			}
-
-			Dimension dim = m.getSize();
-			if(dim.height == -1 && dim.width == -1) {
-				//Box is default size, need to get real size instead.
-				dim = f.getLayoutManager().getPreferredSize(f.getParent(), -1, -1);
-			}
-			
-			int mLeft = m.getLocation().x;
-			int mRight = mLeft + dim.width;
-			int mTop = m.getLocation().y;
-			int mBottom = mTop + dim.height;
-			
-			if(mLeft < hMin) hMin = mLeft;
-			if(mRight > hMax) hMax = mRight;
-			if(mTop < vMin) vMin = mTop;
-			if(mBottom > vMax) vMax = mBottom;
+		if(bounds == null) {
+			//Nothing to fit
+			return;
 		}
 		
+		int hMin = bounds.x;
+		int hMax = bounds.right();
+		int vMin = bounds.y;
+		int vMax = bounds.bottom();
+		
 		//Find the min/max bound coordinates for all relationships
 		for(RelationshipModel rm : allRels) {
 			int rmLeft = rm.getLocation().x;
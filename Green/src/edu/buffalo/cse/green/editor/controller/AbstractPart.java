@@ -22,10 +22,13 @@ import java.beans.PropertyChangeEvent;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.LayoutListener;
+import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.gef.EditPolicy;
 import org.eclipse.gef.Request;
 import org.eclipse.gef.RequestConstants;
@@ -51,6 +54,14 @@ import edu.buffalo.cse.green.editor.model.commands.DeleteCommand;
  * @author hk47
  */
 public abstract class AbstractPart extends AbstractGraphicalEditPart {
+	/**
+	 * The listeners this part added to its model, so that they can be removed
+	 * when the part is deactivated while the model lives on
+	 */
+	private Map<PropertyChange, List<PropertyListener>> _listeners =
+		new EnumMap<PropertyChange, List<PropertyListener>>(
+				PropertyChange.class);
+	
 	/**
 	 * @see org.eclipse.gef.editparts.AbstractGraphicalEditPart#createFigure()
 	 */
@@ -87,12 +98,20 @@ public abstract class AbstractPart extends AbstractGraphicalEditPart {
 			 * @see org.eclipse.draw2d.LayoutListener#setConstraint(org.eclipse.draw2d.IFigure, java.lang.Object)
 			 */
 			public void setConstraint(IFigure child, Object constraint) {
-				model().setDrawnSize(child.getPreferredSize());
+				model().setDrawnSize(getDrawnSize(child));
 			}
 		});
 		return f;
 	}
 	
+	/**
+	 * @param figure - The figure of this part.
+	 * @return The size the figure is drawn as.
+	 */
+	protected Dimension getDrawnSize(IFigure figure) {
+		return figure.getPreferredSize();
+	}
+	
 	/**
 	 * Auxiliary method; makes reading easier. 
 	 */
@@ -166,6 +185,14 @@ public abstract class AbstractPart extends AbstractGraphicalEditPart {
 	protected abstract void addPropertyListeners();
 	
 	protected void addListener(PropertyChange kind, PropertyListener listener) {
+		List<PropertyListener> listeners = _listeners.get(kind);
+		
+		if (listeners == null) {
+			listeners = new ArrayList<PropertyListener>();
+			_listeners.put(kind, listeners);
+		}
+		
+		listeners.add(listener);
 		model().addListener(kind, listener);
 	}
 	
@@ -175,6 +202,15 @@ public abstract class AbstractPart extends AbstractGraphicalEditPart {
 	public void deactivate() {
 		if (isActive()) {
 			super.deactivate();
+			
+			for (Map.Entry<PropertyChange, List<PropertyListener>> entry
+					: _listeners.entrySet()) {
+				for (PropertyListener listener : entry.getValue()) {
+					model().removeListener(entry.getKey(), listener);
+				}
+			}
+			
+			_listeners.clear();
 		}
 	}
 
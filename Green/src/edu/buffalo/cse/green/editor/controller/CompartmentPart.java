@@ -11,7 +11,6 @@
 package edu.buffalo.cse.green.editor.controller;
 
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_COMPARTMENT_BORDER;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_INCREMENTAL_EXPLORER_DIA;
 
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.LineBorder;
@@ -48,6 +47,18 @@ public class CompartmentPart extends AbstractPart {
 		return cFigure;
 	}
 
+	/**
+	 * @see edu.buffalo.cse.green.editor.controller.AbstractPart#deactivate()
+	 */
+	public void deactivate() {
+		// the compartment outlives its part when a type is released
+		if (getRootPart().getPartFromModel(model()) == this) {
+			getRootPart().unmapModelFromEditPart(model());
+		}
+		
+		super.deactivate();
+	}
+
 	/**
 	 * Auxiliary method; makes reading easier. 
 	 */
@@ -96,7 +107,8 @@ public class CompartmentPart extends AbstractPart {
 	 * @see org.eclipse.gef.editparts.AbstractEditPart#refreshVisuals()
 	 */
 	protected void refreshVisuals() {
-		model().updateLabels(PlugIn.getBooleanPreference(P_DISPLAY_INCREMENTAL_EXPLORER_DIA));
+		model().updateLabels(
+				PlugIn.getPreferenceSnapshot().isDisplayIncrementalExplorer());
 	}
 
 	/**
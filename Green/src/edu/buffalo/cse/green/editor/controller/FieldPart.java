@@ -20,7 +20,6 @@ import org.eclipse.draw2d.IFigure;
 import org.eclipse.gef.EditPolicy;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
-import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.widgets.Display;
 
 import edu.buffalo.cse.green.PlugIn;
@@ -124,14 +123,10 @@ public class FieldPart extends MemberPart {
 	}
 	
 	/**
-	 * Gets rid of the old font, installing a fresh one.
+	 * Installs the font that's up to date.
 	 */
 	private void updateFontHelper() {
-		// get rid of the old font
-		Font font = figure().getFont();
-		font.dispose();
-		
-		// create the new font
+		// the font is shared by the preferences
 		figure().setFont(PlugIn.getFontPreference(P_FONT, false));
 	}
 
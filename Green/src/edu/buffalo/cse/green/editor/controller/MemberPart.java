@@ -12,7 +12,6 @@ package edu.buffalo.cse.green.editor.controller;
 
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.Element;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_UML;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_ELEMENT_TOOLTIPS;
 import static org.eclipse.jdt.core.IJavaElement.CLASS_FILE;
 import static org.eclipse.jdt.core.IJavaElement.COMPILATION_UNIT;
 
@@ -223,7 +222,7 @@ public abstract class MemberPart extends AbstractPart {
 			 * @see org.eclipse.draw2d.MouseMotionListener#mouseEntered(org.eclipse.draw2d.MouseEvent)
 			 */
 			public void mouseEntered(MouseEvent me) {
-				if (!PlugIn.getBooleanPreference(P_DISPLAY_ELEMENT_TOOLTIPS)) {
+				if (!PlugIn.getPreferenceSnapshot().isDisplayElementTooltips()) {
 					return;
 				}
 				String doc = getJavaDoc().trim();
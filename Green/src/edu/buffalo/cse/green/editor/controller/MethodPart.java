@@ -17,7 +17,6 @@ import org.eclipse.draw2d.IFigure;
 import org.eclipse.gef.EditPolicy;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.widgets.Display;
 
 import edu.buffalo.cse.green.PlugIn;
@@ -120,11 +119,7 @@ public class MethodPart extends MemberPart {
 	 */
 	private void updateFontHelper() {
 		try {
-			// get rid of the old font
-			Font font = getFigure().getFont();
-			font.dispose();
-			
-			// create the new font
+			// the font is shared by the preferences
 			TypeModel typeModel = (TypeModel) model().getParent().getParent();
 			boolean italic = (model().isAbstract() && !typeModel.isInterface());
 			getFigure().setFont(PlugIn.getFontPreference(P_FONT, italic));
@@ -25,7 +25,6 @@ import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.EditPolicy;
 import org.eclipse.gef.GraphicalEditPart;
-import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.widgets.Display;
 
 import edu.buffalo.cse.green.PlugIn;
@@ -149,14 +148,10 @@ public class NotePart extends AbstractPart {
 	}
 	
 	/**
-	 * Gets rid of the old font, installing a fresh one.
+	 * Installs the font that's up to date.
 	 */
 	private void updateFontHelper() {
-		// get rid of the old font
-		Font font = figure().getFont();
-		font.dispose();
-		
-		// create the new font
+		// the font is shared by the preferences
 		figure().setFont(PlugIn.getFontPreference(P_FONT, false));
 	}
 	
@@ -17,5 +17,6 @@ public enum PropertyChange {
 	RelationshipBendpoint(), RelationshipCardinality(),
 	RelationshipSource(), RelationshipTarget(),
 	IncomingRelationship(), OutgoingRelationship(),
-	GenerateRelationship(), RemoveRelationship(), UpdateRelationships();
+	GenerateRelationship(), GenerateRelationships(), RemoveRelationship(),
+	UpdateRelationships();
 }
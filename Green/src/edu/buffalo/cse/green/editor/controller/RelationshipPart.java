@@ -18,8 +18,6 @@ import static edu.buffalo.cse.green.editor.controller.PropertyChange.Size;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_REL_ARROW_FILL;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_REL_LINE;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_REL_TEXT;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_RELATIONSHIP_SUBTYPES;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DRAW_LINE_WIDTH;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_FONT;
 
 import java.beans.PropertyChangeListener;
@@ -47,7 +45,6 @@ import org.eclipse.gef.editpolicies.NonResizableEditPolicy;
 import org.eclipse.gef.requests.BendpointRequest;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.swt.graphics.Color;
-import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.widgets.Display;
 
 import edu.buffalo.cse.green.GreenException;
@@ -118,7 +115,7 @@ implements ConnectionEditPart, PropertyChangeListener,
 			rFigure.add(_sourceMultiplicityLabel, sourceEndpointLocator);
 		}
 		
-		rFigure.setLineWidth(PlugIn.getIntegerPreference(P_DRAW_LINE_WIDTH));
+		rFigure.setLineWidth(PlugIn.getPreferenceSnapshot().getLineWidth());
 		rFigure.addFigureListener(new FigureListener() {
 			/**
 			 * @see org.eclipse.draw2d.FigureListener#figureMoved(org.eclipse.draw2d.IFigure)
@@ -387,8 +384,7 @@ implements ConnectionEditPart, PropertyChangeListener,
 		}
 		
 		//figure().getConnectionRouter().route(figure());
-		figure().setLineWidth(PlugIn.getIntegerPreference(
-				P_DRAW_LINE_WIDTH));
+		figure().setLineWidth(PlugIn.getPreferenceSnapshot().getLineWidth());
 	}
 	
 	/**
@@ -420,11 +416,7 @@ implements ConnectionEditPart, PropertyChangeListener,
 		
 		_ignoreNextUpdateRequest = true;
 		
-		// get rid of the old font
-		Font font = _sourceMultiplicityLabel.getFont();
-		font.dispose();
-		
-		// create the new font
+		// the font is shared by the preferences
 		_sourceMultiplicityLabel.setFont(PlugIn.getFontPreference(P_FONT, false));
 	}
 	
@@ -463,7 +455,7 @@ implements ConnectionEditPart, PropertyChangeListener,
 	 * @return The subtype label, if one is desired.
 	 */
 	private String subtypeLabel() {
-		if (!PlugIn.getBooleanPreference(P_DISPLAY_RELATIONSHIP_SUBTYPES))
+		if (!PlugIn.getPreferenceSnapshot().isDisplayRelationshipSubtypes())
 			return "";
 		
 		RelationshipGroup group = PlugIn.getRelationshipGroup(getClass());
@@ -12,24 +12,35 @@ package edu.buffalo.cse.green.editor.controller;
 
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.Children;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.GenerateRelationship;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.GenerateRelationships;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.UpdateRelationships;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.FreeformLayout;
 import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Viewport;
 import org.eclipse.draw2d.XYLayout;
 import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.DragTracker;
 import org.eclipse.gef.EditPart;
 import org.eclipse.gef.EditPartViewer;
 import org.eclipse.gef.EditPolicy;
 import org.eclipse.gef.Request;
+import org.eclipse.gef.editparts.ZoomListener;
+import org.eclipse.gef.editparts.ZoomManager;
 import org.eclipse.gef.tools.MarqueeDragTracker;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.swt.widgets.Display;
 
 import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.DiagramEditor;
@@ -37,8 +48,10 @@ import edu.buffalo.cse.green.editor.controller.policies.DiagramLayoutEditPolicy;
 import edu.buffalo.cse.green.editor.controller.policies.GreenSelectionEditPolicy;
 import edu.buffalo.cse.green.editor.model.AbstractModel;
 import edu.buffalo.cse.green.editor.model.RelationshipModel;
+import edu.buffalo.cse.green.editor.model.TypeModel;
 import edu.buffalo.cse.green.editor.model.commands.DeleteCommand;
 import edu.buffalo.cse.green.editor.view.RootFigure;
+import edu.buffalo.cse.green.relationships.RelationshipBatchGenerator;
 import edu.buffalo.cse.green.relationships.RelationshipGenerator;
 
 /**
@@ -47,6 +60,12 @@ import edu.buffalo.cse.green.relationships.RelationshipGenerator;
  * @author bcmartin
  */
 public class RootPart extends AbstractPart {
+	/**
+	 * Diagrams with more elements than this only realize the types near the
+	 * visible region
+	 */
+	private static final int VIRTUALIZATION_THRESHOLD = 100;
+	
 	/**
 	 * A mapping from each model to its corresponding part
 	 */
@@ -57,8 +76,106 @@ public class RootPart extends AbstractPart {
 	 */
 	private DiagramEditor _editor;
 
+	/**
+	 * Loads the members of and realizes the types that are shown
+	 */
+	private RegionTracker _regionTracker;
+
+	/**
+	 * The types in and near the visible region, as of the last update
+	 */
+	private Set<AbstractModel> _shownTypes;
+
 	public RootPart() {
 		_modelToEditPartMap = new HashMap<AbstractModel, AbstractPart>();
+		_regionTracker = new RegionTracker();
+		_shownTypes = new HashSet<AbstractModel>();
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.controller.AbstractPart#deactivate()
+	 */
+	public void deactivate() {
+		_regionTracker.dispose();
+		super.deactivate();
+	}
+
+	/**
+	 * Has the types in and near the visible region of the diagram loaded and
+	 * realized once the current event has been handled. Called when types may
+	 * have come into view.
+	 */
+	public void updateShownRegion() {
+		_regionTracker.schedule();
+	}
+
+	/**
+	 * @return true if the diagram is large enough that only the types near the
+	 * visible region have their compartments realized, false otherwise.
+	 */
+	public boolean isVirtualized() {
+		return getRootModel().getChildren().size() > VIRTUALIZATION_THRESHOLD;
+	}
+
+	/**
+	 * @param model - The model of a type.
+	 * @return true if the type's part should realize its compartments, false
+	 * if it should be drawn as an empty box.
+	 */
+	public boolean isRealized(AbstractModel model) {
+		return !isVirtualized() || _shownTypes.contains(model);
+	}
+
+	/**
+	 * @return The models of the selected types.
+	 */
+	private Set<AbstractModel> getSelectedTypes() {
+		Set<AbstractModel> selected = new HashSet<AbstractModel>();
+		
+		for (AbstractPart child : getChildren()) {
+			if (child instanceof TypePart
+					&& child.getSelected() != SELECTED_NONE) {
+				selected.add((AbstractModel) child.getModel());
+			}
+		}
+		
+		return selected;
+	}
+
+	/**
+	 * Realizes the types in the given region and releases the others.
+	 * Selected types stay realized.
+	 * 
+	 * @param region - The region, in diagram coordinates.
+	 */
+	private void realize(Rectangle region) {
+		_shownTypes = new HashSet<AbstractModel>(
+				getRootModel().getModels(region));
+		
+		for (AbstractPart child : getChildren()) {
+			if (child instanceof TypePart) {
+				TypePart part = (TypePart) child;
+				part.setRealized(isRealized((AbstractModel) part.getModel())
+						|| part.getSelected() != SELECTED_NONE);
+			}
+		}
+	}
+
+	/**
+	 * Loads and realizes every type in the diagram, so that the whole diagram
+	 * can be drawn or measured in full. The types far from the visible region
+	 * are released again the next time it changes.
+	 */
+	public void realizeAll() {
+		getRootModel().loadAllMembers();
+		
+		for (AbstractPart child : getChildren()) {
+			if (child instanceof TypePart) {
+				((TypePart) child).setRealized(true);
+			}
+		}
+		
+		getFigure().validate();
 	}
 
 	/**
@@ -166,6 +283,8 @@ public class RootPart extends AbstractPart {
 	public void addPropertyListeners() {
 		addListener(Children, new RootChildHandler());
 		addListener(GenerateRelationship, new RelationshipGenerationHandler());
+		addListener(GenerateRelationships,
+				new RelationshipBatchGenerationHandler());
 		addListener(UpdateRelationships, new RelationshipUpdateHandler());
 	}
 
@@ -264,8 +383,29 @@ public class RootPart extends AbstractPart {
 					rModel.getPartClass()).getGenerator();
 			rGenerator.accept(rGenerator.getCompilationUnit(rModel
 					.getSourceType()));
-			rModel.getSourceModel().updateFields();
-			rModel.getSourceModel().updateMethods();
+			rModel.getSourceModel().updateMembers();
+
+			getEditor().autoSave();
+			getEditor().refresh();
+		}
+	}
+
+	class RelationshipBatchGenerationHandler implements PropertyListener {
+		public void notify(Object oValue, Object nValue) {
+			RelationshipBatchGenerator batch =
+				(RelationshipBatchGenerator) nValue;
+			Set<TypeModel> sources = new LinkedHashSet<TypeModel>();
+			
+			for (RelationshipModel rModel : batch.getRelationships()) {
+				sources.add(rModel.getSourceModel());
+			}
+
+			// one parse, rewrite and import organization per compilation unit
+			batch.run();
+			
+			for (TypeModel source : sources) {
+				source.updateMembers();
+			}
 
 			getEditor().autoSave();
 			getEditor().refresh();
@@ -278,6 +418,91 @@ public class RootPart extends AbstractPart {
 		}
 	}
 	
+	/**
+	 * Loads the members of and realizes the types in and near the visible
+	 * region of the diagram, and releases the members of the unselected types
+	 * outside it, following the scrolling and zooming of the viewport.
+	 * Requests made while an update is pending are handled by that update.
+	 */
+	class RegionTracker implements PropertyChangeListener, ZoomListener,
+			Runnable {
+		private boolean _scheduled;
+
+		private Viewport _viewport;
+
+		/**
+		 * Schedules a load in the UI thread.
+		 */
+		public void schedule() {
+			if (_scheduled) return;
+
+			_scheduled = true;
+			Display.getDefault().asyncExec(this);
+		}
+
+		/**
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			_scheduled = false;
+			if (!isActive() || getEditor() == null) return;
+
+			ZoomManager zoom = getEditor().getZoomManager();
+
+			if (_viewport == null) {
+				_viewport = zoom.getViewport();
+				_viewport.getHorizontalRangeModel().addPropertyChangeListener(
+						this);
+				_viewport.getVerticalRangeModel().addPropertyChangeListener(
+						this);
+				zoom.addZoomListener(this);
+			}
+
+			Rectangle region = new Rectangle(_viewport.getViewLocation(),
+					_viewport.getClientArea().getSize()).scale(
+							1 / zoom.getZoom());
+
+			// include what a short scroll would bring into view
+			region.expand(region.width / 2, region.height / 2);
+			// small diagrams keep the members of every type
+			if (isVirtualized()) {
+				getRootModel().loadMembers(region, getSelectedTypes());
+			} else {
+				getRootModel().loadAllMembers();
+			}
+			
+			realize(region);
+		}
+
+		/**
+		 * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+		 */
+		public void propertyChange(PropertyChangeEvent evt) {
+			schedule();
+		}
+
+		/**
+		 * @see org.eclipse.gef.editparts.ZoomListener#zoomChanged(double)
+		 */
+		public void zoomChanged(double zoom) {
+			schedule();
+		}
+
+		/**
+		 * Stops following the viewport.
+		 */
+		public void dispose() {
+			if (_viewport == null) return;
+
+			_viewport.getHorizontalRangeModel().removePropertyChangeListener(
+					this);
+			_viewport.getVerticalRangeModel().removePropertyChangeListener(
+					this);
+			getEditor().getZoomManager().removeZoomListener(this);
+			_viewport = null;
+		}
+	}
+
 	class RootChildHandler implements PropertyListener {
 		public void notify(Object oValue, Object nValue) {
 			if (oValue == null) {
@@ -11,7 +11,9 @@
 package edu.buffalo.cse.green.editor.controller;
 
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.IncomingRelationship;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Location;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.OutgoingRelationship;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Visibility;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_SELECTED;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_TYPE_BORDER;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_TYPE_BORDER_HIDDENR;
@@ -19,10 +21,14 @@ import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_TY
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_UML;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_FONT;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.draw2d.ChopboxAnchor;
 import org.eclipse.draw2d.ConnectionAnchor;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.LineBorder;
+import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.ConnectionEditPart;
 import org.eclipse.gef.EditPolicy;
@@ -34,7 +40,6 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Display;
 
@@ -55,6 +60,108 @@ import edu.buffalo.cse.green.editor.view.ITypeFigure;
  * of information regarding the type.
  */
 public class TypePart extends MemberPart implements NodeEditPart {
+	/**
+	 * Whether the compartments of this type are realized; otherwise the type
+	 * is drawn as an empty box
+	 */
+	private boolean _realized = true;
+	
+	/**
+	 * The size of an empty box that was never drawn in full
+	 */
+	private static final Dimension DEFAULT_SIZE = new Dimension(120, 60);
+	
+	/**
+	 * The size of the empty box, kept from when the type was last drawn in
+	 * full
+	 */
+	private Dimension _releasedSize;
+	
+	/**
+	 * Whether the type was drawn in full when its visuals were last refreshed
+	 */
+	private boolean _drawnInFull;
+	
+	/**
+	 * @see org.eclipse.gef.editparts.AbstractEditPart#addNotify()
+	 */
+	public void addNotify() {
+		// large diagrams only realize the types near the visible region
+		_realized = getRootPart().isRealized(model());
+		super.addNotify();
+	}
+	
+	/**
+	 * @see edu.buffalo.cse.green.editor.controller.AbstractPart#getModelChildren()
+	 */
+	protected List getModelChildren() {
+		if (!_realized) return Collections.EMPTY_LIST;
+		return super.getModelChildren();
+	}
+	
+	/**
+	 * @return true if the compartments of this type are realized, false if it
+	 * is drawn as an empty box.
+	 */
+	public boolean isRealized() {
+		return _realized;
+	}
+	
+	/**
+	 * Realizes or releases the compartments of this type. A released type is
+	 * drawn as an empty box of the size it had.
+	 * 
+	 * @param realized - Whether the compartments should be realized.
+	 */
+	public void setRealized(boolean realized) {
+		if (_realized != realized) {
+			_realized = realized;
+			refreshChildren();
+		} else if (_drawnInFull == isDrawnInFull()) {
+			// the members were neither loaded nor released
+			return;
+		}
+		
+		refreshVisuals();
+	}
+	
+	/**
+	 * @return true if the type is drawn with its members, false if it is
+	 * drawn as an empty box.
+	 */
+	private boolean isDrawnInFull() {
+		return _realized && model().isMembersLoaded();
+	}
+	
+	/**
+	 * @return The size of the type's box, or a negative size if the box takes
+	 * the size of its contents.
+	 */
+	private Dimension getBoxSize() {
+		Dimension size = model().getSize();
+		
+		// an empty box has no preferred size of its own
+		if (size.width < 0 && !isDrawnInFull()) {
+			size = (_releasedSize != null) ? _releasedSize : DEFAULT_SIZE;
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * @see edu.buffalo.cse.green.editor.controller.AbstractPart#getDrawnSize(org.eclipse.draw2d.IFigure)
+	 */
+	protected Dimension getDrawnSize(IFigure figure) {
+		if (isDrawnInFull()) {
+			_releasedSize = figure.getPreferredSize().getCopy();
+			return super.getDrawnSize(figure);
+		}
+		
+		// keep the box's full size rather than the size of its header
+		Dimension size = getBoxSize();
+		return (size.width < 0) ? super.getDrawnSize(figure) : size;
+	}
+	
 	/**
 	 * @see edu.buffalo.cse.green.editor.controller.AbstractPart#doCreateFigure()
 	 */
@@ -74,9 +181,9 @@ public class TypePart extends MemberPart implements NodeEditPart {
 	protected void refreshVisuals() {
 		super.refreshVisuals(getNameLabel());
 		GraphicalEditPart parent = (GraphicalEditPart) getParent();
-		
+		_drawnInFull = isDrawnInFull();
 		parent.setLayoutConstraint(this, figure(),
-				new Rectangle(model().getLocation(), model().getSize()));
+				new Rectangle(model().getLocation(), getBoxSize()));
 		figure().validate();
 	}
 
@@ -113,17 +220,13 @@ public class TypePart extends MemberPart implements NodeEditPart {
 	}
 
 	/**
-	 * Disposes the current font and creates a new one that's up to date.
+	 * Installs the font that's up to date.
 	 */
 	private void updateFontHelper() {
 		try {
-			// get rid of the old font
-			Font font = getNameLabel().getFont();
-			font.dispose();
-			
 			boolean italic = model().isAbstract() || model().isInterface();
 			
-			// create the new font
+			// the font is shared by the preferences
 			getNameLabel().setFont(PlugIn.getFontPreference(P_FONT, italic));
 		} catch (JavaModelException e) {
 			e.printStackTrace();
@@ -142,6 +245,17 @@ public class TypePart extends MemberPart implements NodeEditPart {
 		
 		addListener(IncomingRelationship, new ChildAndVisualsUpdater());
 		addListener(OutgoingRelationship, new ChildAndVisualsUpdater());
+		
+		// the type may come into view when added, moved or shown
+		PropertyListener loader = new PropertyListener() {
+			public void notify(Object oValue, Object nValue) {
+				getRootPart().updateShownRegion();
+			}
+		};
+		
+		addListener(Location, loader);
+		addListener(Visibility, loader);
+		getRootPart().updateShownRegion();
 	}
 
 	/**
@@ -224,10 +338,8 @@ public class TypePart extends MemberPart implements NodeEditPart {
 	public void deactivate() {
 		// free up memory
 		Image image = getNameLabel().getIcon();
-		Font font = getNameLabel().getFont();
 		
 		if (image != null) image.dispose();
-		if (font != null && figure().shouldDisposeFont()) font.dispose();
 		
 		super.deactivate(false);
 	}
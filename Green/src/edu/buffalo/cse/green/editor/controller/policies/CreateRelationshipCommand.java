@@ -46,6 +46,17 @@ public class CreateRelationshipCommand extends Command {
 
 	private RootModel _root;
 
+	/**
+	 * The cardinality the relationship was created with, or
+	 * <code>null</code> if the relationship does not support cardinality.
+	 */
+	private Integer _cardinality = null;
+
+	/**
+	 * Whether the relationship's code was generated.
+	 */
+	private boolean _generated = false;
+
 	public CreateRelationshipCommand() {
 		_relationshipPart = null;
 	}
@@ -68,6 +79,13 @@ public class CreateRelationshipCommand extends Command {
 		return (RelationshipModel) _relationshipPart.getModel();
 	}
 
+	/**
+	 * @return The source <code>TypeModel</code>.
+	 */
+	public TypeModel getSource() {
+		return getModel().getSourceModel();
+	}
+
 	/**
 	 * Sets the source <code>TypeModel</code>.
 	 * 
@@ -90,6 +108,8 @@ public class CreateRelationshipCommand extends Command {
 	 * @see org.eclipse.gef.commands.Command#execute()
 	 */
 	public void execute() {
+		_generated = false;
+		_cardinality = null;
 		Class klass = _relationshipPart.getClass();
 		getModel().setPartClass(klass);
 
@@ -155,10 +175,28 @@ public class CreateRelationshipCommand extends Command {
 			}
 			
 			_forceCardinality = false;
+			_cardinality = cardinality;
 			rGen.setCardinality(cardinality);
 		}
 
 		_root.generateRelationshipCode(getModel());
+		_generated = true;
+	}
+
+	/**
+	 * @return True if the relationship's code was generated (or queued for
+	 * generation) by the last execution, false if it was cancelled.
+	 */
+	public boolean isGenerated() {
+		return _generated;
+	}
+
+	/**
+	 * @return The cardinality the relationship was created with, or
+	 * <code>null</code> if the relationship does not support cardinality.
+	 */
+	public Integer getCardinality() {
+		return _cardinality;
 	}
 
 	/**
@@ -0,0 +1,136 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.controller.policies;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.gef.commands.CompoundCommand;
+
+import edu.buffalo.cse.green.editor.model.RootModel;
+import edu.buffalo.cse.green.editor.model.TypeModel;
+import edu.buffalo.cse.green.relationships.RelationshipBatchGenerator;
+
+/**
+ * Creates the same kind of relationship from several source types to one
+ * target at once. The contained <code>CreateRelationshipCommand</code>s are
+ * executed in order, but their code is generated in a single batch: each
+ * source compilation unit is parsed, rewritten and has its imports organized
+ * once, and the editor is refreshed once at the end. The cardinality is asked
+ * for once and used for every relationship.
+ */
+public class CreateRelationshipsCommand extends CompoundCommand {
+	private RootModel _root;
+
+	/**
+	 * The batch that generated the code, or <code>null</code> if nothing was
+	 * generated.
+	 */
+	private RelationshipBatchGenerator _batch;
+
+	public CreateRelationshipsCommand(RootModel root) {
+		super("Create Relationships");
+		_root = root;
+	}
+
+	/**
+	 * Sets the target of every relationship. Source types that are the
+	 * target itself are left out.
+	 *
+	 * @param target - The target <code>TypeModel</code>.
+	 */
+	public void setTarget(TypeModel target) {
+		for (Iterator i = getCommands().iterator(); i.hasNext();) {
+			CreateRelationshipCommand command =
+				(CreateRelationshipCommand) i.next();
+
+			if (command.getSource() == target) {
+				i.remove();
+			} else {
+				command.setTarget(target);
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.CompoundCommand#execute()
+	 */
+	public void execute() {
+		CreateRelationshipCommand first = null;
+
+		_root.beginRelationshipGeneration();
+
+		try {
+			for (Object element : getCommands()) {
+				CreateRelationshipCommand command =
+					(CreateRelationshipCommand) element;
+
+				if (first == null) {
+					first = command;
+				} else if (first.getCardinality() != null) {
+					// the first relationship asked for the cardinality
+					CreateRelationshipCommand.forceCardinality(
+							first.getCardinality());
+				}
+
+				command.execute();
+
+				// the user cancelled the first relationship
+				if (!first.isGenerated()) break;
+			}
+		} finally {
+			_batch = _root.endRelationshipGeneration();
+		}
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.CompoundCommand#canUndo()
+	 */
+	public boolean canUndo() {
+		return _batch != null && _batch.canUndo();
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.CompoundCommand#undo()
+	 */
+	public void undo() {
+		if (_batch.undo()) {
+			updateSources();
+		}
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.CompoundCommand#redo()
+	 */
+	public void redo() {
+		if (_batch.redo()) {
+			updateSources();
+		}
+	}
+
+	/**
+	 * Updates the members of the source types and refreshes the editor once.
+	 */
+	private void updateSources() {
+		Set<TypeModel> sources = new LinkedHashSet<TypeModel>();
+
+		for (Object command : getCommands()) {
+			sources.add(((CreateRelationshipCommand) command).getSource());
+		}
+
+		for (TypeModel source : sources) {
+			source.updateMembers();
+		}
+
+		_root.updateRelationships();
+	}
+}
@@ -10,19 +10,27 @@
 
 package edu.buffalo.cse.green.editor.controller.policies;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.gef.commands.Command;
 import org.eclipse.gef.editpolicies.GraphicalNodeEditPolicy;
 import org.eclipse.gef.requests.CreateConnectionRequest;
 import org.eclipse.gef.requests.ReconnectRequest;
+import org.eclipse.gef.requests.SimpleFactory;
 
 import edu.buffalo.cse.green.editor.controller.AbstractPart;
 import edu.buffalo.cse.green.editor.controller.RelationshipPart;
+import edu.buffalo.cse.green.editor.model.AbstractModel;
 import edu.buffalo.cse.green.editor.model.RelationshipModel;
+import edu.buffalo.cse.green.editor.model.RootModel;
 import edu.buffalo.cse.green.editor.model.TypeModel;
 import edu.buffalo.cse.green.editor.model.commands.ActivateSelectionToolCommand;
 
 /**
  * Provides connections to the source and target <code>TypeModel</code>.
+ * Drawing a relationship from a type that is part of a selection of several
+ * types creates that relationship from every selected type, in one batch.
  * 
  * @author hk47
  */
@@ -38,13 +46,39 @@ public class RelationshipSourceAndTargetCreationEditPolicy extends
 	protected Command getConnectionCreateCommand(CreateConnectionRequest request) {
 		AbstractPart host = (AbstractPart) getHost();
 		TypeModel typeModel = (TypeModel) host.getModel();
+		RootModel root = typeModel.getRootModel();
 
 		RelationshipPart part = (RelationshipPart) request.getNewObject();
 		part.setModel(new RelationshipModel());
 
-		CreateRelationshipCommand cmd = new CreateRelationshipCommand(typeModel
-				.getRootModel(), part);
-		cmd.setRoot(typeModel.getRootModel());
+		List<TypeModel> sources = getSources(host);
+
+		if (sources.size() > 1) {
+			CreateRelationshipsCommand cmds =
+				new CreateRelationshipsCommand(root);
+			SimpleFactory factory = new SimpleFactory(part.getClass());
+
+			for (TypeModel source : sources) {
+				RelationshipPart sourcePart = part;
+
+				if (source != typeModel) {
+					sourcePart = (RelationshipPart) factory.getNewObject();
+					sourcePart.setModel(new RelationshipModel());
+				}
+
+				CreateRelationshipCommand cmd =
+					new CreateRelationshipCommand(root, sourcePart);
+				cmd.setSource(source);
+				cmds.add(cmd);
+			}
+
+			request.setStartCommand(cmds);
+			return cmds;
+		}
+
+		CreateRelationshipCommand cmd = new CreateRelationshipCommand(root,
+				part);
+		cmd.setRoot(root);
 		cmd.setSource(typeModel);
 		request.setStartCommand(cmd);
 		return cmd;
@@ -56,13 +90,42 @@ public class RelationshipSourceAndTargetCreationEditPolicy extends
 	protected Command getConnectionCompleteCommand(
 			CreateConnectionRequest request) {
 		AbstractPart host = (AbstractPart) getHost();
-		CreateRelationshipCommand cmd = (CreateRelationshipCommand) request
-				.getStartCommand();
-		cmd.setTarget((TypeModel) host.getModel());
+		TypeModel target = (TypeModel) host.getModel();
+		Command cmd = request.getStartCommand();
+
+		if (cmd instanceof CreateRelationshipsCommand) {
+			((CreateRelationshipsCommand) cmd).setTarget(target);
+		} else {
+			((CreateRelationshipCommand) cmd).setTarget(target);
+		}
+
 		return new ActivateSelectionToolCommand(host.getRootPart().getEditor(),
 				cmd);
 	}
 
+	/**
+	 * @param host - The part the relationship is drawn from.
+	 * @return The selected types if the host's type is one of them, or just
+	 * the host's type otherwise.
+	 */
+	private List<TypeModel> getSources(AbstractPart host) {
+		List<TypeModel> sources = new ArrayList<TypeModel>();
+
+		for (AbstractModel model :
+				host.getRootPart().getEditor().getSelectedModels()) {
+			if (model instanceof TypeModel) {
+				sources.add((TypeModel) model);
+			}
+		}
+
+		if (!sources.contains(host.getModel())) {
+			sources.clear();
+			sources.add((TypeModel) host.getModel());
+		}
+
+		return sources;
+	}
+
 	/**
 	 * @see org.eclipse.gef.editpolicies.GraphicalNodeEditPolicy#getReconnectSourceCommand(org.eclipse.gef.requests.ReconnectRequest)
 	 */
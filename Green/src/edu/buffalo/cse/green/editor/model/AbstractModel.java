@@ -131,6 +131,7 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	 */
 	public void setLocation(Point iLocation) {
 		_location = iLocation;
+		boundsChanged();
 		firePropertyChange(Location, null, iLocation);
 	}
 
@@ -161,6 +162,7 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 		
 		Dimension oldSize = _size;
 		_size = iSize;
+		boundsChanged();
 		firePropertyChange(Size, oldSize, iSize);
 	}
 
@@ -190,8 +192,20 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	 * @param element - The element to map to the child model, or null if no
 	 * element should be mapped.
 	 */
-	@SuppressWarnings("unchecked")
 	protected final void addChild(C model, IJavaElement element) {
+		addChild(model, element, _children.size());
+	}
+
+	/**
+	 * Inserts a child into this model.
+	 * 
+	 * @param model - The model to add.
+	 * @param element - The element to map to the child model, or null if no
+	 * element should be mapped.
+	 * @param index - The position of the child among this model's children.
+	 */
+	@SuppressWarnings("unchecked")
+	protected final void addChild(C model, IJavaElement element, int index) {
 		if (!equals(model.getParent())) {
 			// don't allow a model to have more than one parent
 			if (model.getParent() != null) {
@@ -207,7 +221,8 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 		}
 		
 		// add the child
-		_children.add(model);
+		_children.add(index, model);
+		childAdded(model);
 		firePropertyChange(Children, null, model);
 	}
 
@@ -221,6 +236,7 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	 */
 	protected final boolean removeChild(AbstractModel model) {
 		boolean removed = _children.remove(model);
+		childRemoved(model);
 		firePropertyChange(Children, model, null);
 		dispose();
 		if (getJavaElement() != null) {
@@ -230,6 +246,42 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 		return removed;
 	}
 
+	/**
+	 * Called when a child is added to this model.
+	 * 
+	 * @param model - The child.
+	 */
+	protected void childAdded(C model) {
+		// do nothing by default
+	}
+
+	/**
+	 * Called when a child is removed from this model.
+	 * 
+	 * @param model - The child.
+	 */
+	protected void childRemoved(AbstractModel model) {
+		// do nothing by default
+	}
+
+	/**
+	 * Called when the location or size of a child of this model changes.
+	 * 
+	 * @param model - The child.
+	 */
+	protected void childBoundsChanged(AbstractModel model) {
+		// do nothing by default
+	}
+
+	/**
+	 * Notifies the parent that the location or size of this model changed.
+	 */
+	private void boundsChanged() {
+		if (_parent != null) {
+			_parent.childBoundsChanged(this);
+		}
+	}
+
 	/**
 	 * Gets all child models.
 	 */
@@ -255,6 +307,33 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 		}
 	}
 
+	/**
+	 * Removes a listener added by <code>addListener()</code>.
+	 * 
+	 * @param type - The property the listener was added for.
+	 * @param listener - The listener to remove.
+	 */
+	public void removeListener(PropertyChange type, PropertyListener listener) {
+		List<PropertyListener> listeners = new ArrayList<PropertyListener>();
+		CombinedListener.flatten(_listeners.get(type), listeners);
+		
+		if (!listeners.remove(listener)) return;
+		
+		if (listeners.isEmpty()) {
+			_listeners.remove(type);
+			return;
+		}
+		
+		// combine the remaining listeners in the order they were added
+		PropertyListener combined = listeners.get(0);
+		
+		for (int i = 1; i < listeners.size(); i++) {
+			combined = new CombinedListener(combined, listeners.get(i));
+		}
+		
+		_listeners.put(type, combined);
+	}
+
 	/**
 	 * Fires a property change. Used to communicate with the controller.
 	 * 
@@ -263,6 +342,24 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	 * @param newValue - The new value, or null if it is insignificant.
 	 */
 	public void firePropertyChange(PropertyChange type, Object oValue, Object nValue) {
+		RootModel root = findRootModel();
+
+		// changes made during a transaction are dispatched when it commits
+		if (root != null && root.queuePropertyChange(this, type, oValue, nValue)) {
+			return;
+		}
+
+		notifyListeners(type, oValue, nValue);
+	}
+
+	/**
+	 * Notifies the listeners of a property change right away.
+	 * 
+	 * @param type - The property that changed.
+	 * @param oValue - The old value, or null if it is insignificant.
+	 * @param nValue - The new value, or null if it is insignificant.
+	 */
+	void notifyListeners(PropertyChange type, Object oValue, Object nValue) {
 		PropertyListener listener = _listeners.get(type);
 
 		if (listener != null) {
@@ -273,6 +370,20 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	protected final void firePropertyChange(PropertyChange type) {
 		firePropertyChange(type, false, true);
 	}
+
+	/**
+	 * @return The root model this model is in, or <code>null</code> if it is
+	 * not in a diagram.
+	 */
+	private RootModel findRootModel() {
+		AbstractModel model = this;
+
+		while (model.getParent() != null) {
+			model = (AbstractModel) model.getParent();
+		}
+
+		return model instanceof RootModel ? (RootModel) model : null;
+	}
 	
 	/**
 	 * Gets the GUI parent of this model (in the EditPart tree).
@@ -482,6 +593,7 @@ public abstract class AbstractModel<C extends AbstractModel, P extends AbstractM
 	 */
 	public void setDrawnSize(Dimension size) {
 		_drawnSize = size;
+		boundsChanged();
 	}
 }
 
@@ -502,4 +614,21 @@ class CombinedListener implements PropertyListener {
 		_newListener.notify(oValue, nValue);
 		_oldListener.notify(oValue, nValue);
 	}
+	
+	/**
+	 * Lists the listeners combined in the given listener, oldest first.
+	 * 
+	 * @param listener - The listener, or <code>null</code>.
+	 * @param listeners - The list to add the listeners to.
+	 */
+	static void flatten(PropertyListener listener,
+			List<PropertyListener> listeners) {
+		if (listener instanceof CombinedListener) {
+			CombinedListener combined = (CombinedListener) listener;
+			flatten(combined._oldListener, listeners);
+			flatten(combined._newListener, listeners);
+		} else if (listener != null) {
+			listeners.add(listener);
+		}
+	}
 }
\ No newline at end of file
@@ -24,7 +24,7 @@ import org.eclipse.draw2d.ToolbarLayout;
 import org.eclipse.gef.commands.Command;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jface.resource.JFaceResources;
-import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
 
 import edu.buffalo.cse.green.GreenException;
 import edu.buffalo.cse.green.PlugIn;
@@ -44,6 +44,11 @@ import edu.buffalo.cse.green.relationships.RelationshipGroup;
  */
 public abstract class CompartmentModel
 extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
+	/**
+	 * The key of the font used by the incremental exploration label.
+	 */
+	private static final String EXPLORE_FONT = "green.explore";
+	
 	private CompartmentModel() {}
 
 	/**
@@ -89,6 +94,16 @@ extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
 	 * @param model - The child.
 	 */
 	abstract void addChild(FieldModel model);
+
+	/**
+	 * Inserts a member into this compartment.
+	 * 
+	 * @param model - The member's model.
+	 * @param index - The position of the member in this compartment.
+	 */
+	void insertChild(MemberModel model, int index) {
+		addChild(model, model.getJavaElement(), index);
+	}
 	
 	/**
 	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#removeFromParent()
@@ -224,6 +239,11 @@ extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
 			 */
 			private CompartmentFigure _figure;
 			
+			/**
+			 * The type part holding this compartment
+			 */
+			private TypePart _parent;
+			
 			/**
 			 * @see edu.buffalo.cse.green.editor.model.CompartmentModel#addChild(edu.buffalo.cse.green.editor.model.FieldModel)
 			 */
@@ -249,16 +269,32 @@ extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
 			 * @see edu.buffalo.cse.green.editor.model.CompartmentModel#dispatchLabels(edu.buffalo.cse.green.editor.controller.CompartmentPart)
 			 */
 			public void dispatchLabels(CompartmentPart part, CompartmentFigure figure) {
-				final TypePart parent = (TypePart) part.getParent();
+				_parent = (TypePart) part.getParent();
 				_figure = figure;
-				_figure.add(parent.getNameLabel());
+				_figure.add(_parent.getNameLabel());
+				_relLabel = null;
+			}
+			
+			/**
+			 * Creates the incremental exploration labels. This is put off until
+			 * the labels are first shown, since most diagrams never show them.
+			 */
+			private void createExploreLabels() {
+				final TypePart parent = _parent;
 				_relLabel = parent.getRelLabel();
+				
+				// the type figure keeps the labels when its compartments are
+				// released and realized again
+				if (!_relLabel.getChildren().isEmpty()) return;
+				
 				_relLabel.setLayoutManager(new ToolbarLayout(true));
 				
 				_relLabel.add(new Label( " " ));
 				Label r =
 					new Label(" ALL ", null );
-				r.setFont( new Font( null, JFaceResources.getDefaultFont().getFontData()[0].getName(), 12, 0 ) );
+				r.setFont(PlugIn.getPreferenceResources().getFont(EXPLORE_FONT,
+						new FontData(JFaceResources.getDefaultFont()
+								.getFontData()[0].getName(), 12, 0)));
 				_relLabel.add(r);
 				r.addMouseListener(new MouseListener() {
 					public void mousePressed(MouseEvent me) {
@@ -274,8 +310,7 @@ extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
 				r.setToolTip(new Label( " All " ));
 				
 				for (final RelationshipGroup group : PlugIn.getRelationshipList()) {
-					Label rel =
-						new Label(" ", group.getImageDescriptor().createImage());
+					Label rel = new Label(" ", group.getImage());
 					_relLabel.add(rel);
 
 					rel.addMouseListener(new MouseListener() {
@@ -302,6 +337,10 @@ extends AbstractModel<AbstractModel, TypeModel, IJavaElement> {
 
 			@Override
 			public void updateLabels(boolean visible) {
+				if (visible && _relLabel == null && _parent != null) {
+					createExploreLabels();
+				}
+				
 				if(_figure != null && _relLabel != null) {
 					if(visible)
 						_figure.add(_relLabel);
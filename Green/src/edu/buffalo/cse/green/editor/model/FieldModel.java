@@ -10,7 +10,6 @@
 
 package edu.buffalo.cse.green.editor.model;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_FQN_TYPE_NAMES;
 import static org.eclipse.jdt.ui.refactoring.RenameSupport.UPDATE_REFERENCES;
 
 import org.eclipse.core.runtime.CoreException;
@@ -41,7 +40,7 @@ public class FieldModel extends MemberModel<AbstractModel, CompartmentModel, IFi
 	 */
 	public String getDisplayName() {
 		try {
-			boolean fqn = PlugIn.getBooleanPreference(P_DISPLAY_FQN_TYPE_NAMES);
+			boolean fqn = PlugIn.getPreferenceSnapshot().isDisplayFqnTypeNames();
 			return getSignatureName(getMember().getTypeSignature(),
 					fqn) + " " + getMember().getElementName();
 		} catch (JavaModelException e) {
@@ -10,8 +10,6 @@
 
 package edu.buffalo.cse.green.editor.model;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_FQN_TYPE_NAMES;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_METHOD_PARAMETERS;
 import static org.eclipse.jdt.ui.refactoring.RenameSupport.UPDATE_REFERENCES;
 
 import org.eclipse.core.runtime.CoreException;
@@ -128,9 +126,9 @@ public class MethodModel extends MemberModel<AbstractModel, CompartmentModel, IM
 	 */
 	public static String getMethodSignature(IMethod method) {
 		boolean displayParameters =
-			PlugIn.getBooleanPreference(P_DISPLAY_METHOD_PARAMETERS);
+			PlugIn.getPreferenceSnapshot().isDisplayMethodParameters();
 		boolean fqn =
-			PlugIn.getBooleanPreference(P_DISPLAY_FQN_TYPE_NAMES);
+			PlugIn.getPreferenceSnapshot().isDisplayFqnTypeNames();
 		
 		try {
 			String returnType = "";
@@ -27,33 +27,34 @@ import static org.eclipse.jdt.core.dom.ASTNode.METHOD_DECLARATION;
 import static org.eclipse.jdt.core.dom.ASTNode.INITIALIZER;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.commands.Command;
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jdt.core.dom.Initializer;
 
 import edu.buffalo.cse.green.GreenException;
 import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.DiagramEditor;
 import edu.buffalo.cse.green.editor.action.ContextAction;
-import edu.buffalo.cse.green.editor.controller.AbstractPart;
 import edu.buffalo.cse.green.editor.model.commands.DeleteCommand;
+import edu.buffalo.cse.green.editor.model.commands.DeleteRelationshipsCommand;
 import edu.buffalo.cse.green.editor.model.commands.HideRelationshipCommand;
 import edu.buffalo.cse.green.editor.view.GreenBendpoint;
 import edu.buffalo.cse.green.relationships.Relationship;
+import edu.buffalo.cse.green.relationships.RelationshipCache;
 import edu.buffalo.cse.green.relationships.RelationshipGroup;
-import edu.buffalo.cse.green.relationships.RelationshipRemover;
 import edu.buffalo.cse.green.xml.XMLConverter;
 
 /**
@@ -72,20 +73,66 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 	private IType _sourceType, _targetType;
 
 	/**
-	 * @return A representation of the cardinality. 
+	 * The last computed cardinality, or null if it has not been computed.
+	 */
+	private String _cardinality;
+
+	/**
+	 * The modification stamp of the source compilation unit at the time the
+	 * cardinality was computed.
+	 */
+	private long _cardinalityStamp;
+
+	/**
+	 * The version of the relationship set at the time the cardinality was
+	 * computed.
+	 */
+	private int _cardinalityVersion;
+
+	/**
+	 * Incremented whenever the set of relationships held by this model
+	 * changes.
+	 */
+	private int _relationshipsVersion;
+
+	/**
+	 * @return A representation of the cardinality. The result is cached until
+	 * either the source compilation unit or the set of relationships changes,
+	 * and not at all while the source compilation unit has unsaved changes.
 	 * 
 	 * @throws JavaModelException
 	 * 
 	 * @author Gene Wang
 	 */
-	@SuppressWarnings("boxing")
 	public String getCardinality() throws JavaModelException {
+		long stamp = RelationshipCache.getModificationStamp(_sourceType);
+		
+		if (_cardinality == null || stamp == IResource.NULL_STAMP
+				|| _cardinalityStamp != stamp
+				|| _cardinalityVersion != _relationshipsVersion) {
+			_cardinality = computeCardinality();
+			_cardinalityStamp = stamp;
+			_cardinalityVersion = _relationshipsVersion;
+		}
+		
+		return _cardinality;
+	}
+
+	/**
+	 * Computes the cardinality of this relationship from its features.
+	 * 
+	 * @return A representation of the cardinality.
+	 * @throws JavaModelException
+	 * 
+	 * @author Gene Wang
+	 */
+	@SuppressWarnings("boxing")
+	private String computeCardinality() throws JavaModelException {
 		final String NPE = "Node is not a child of a MethodDeclaration or Initializer block.";
 		final int INF = 999999;
 		boolean isGeneric = false;
 		int min = INF;
 		int max = 0;
-		int constructors = 0;
 		int uConstructors = 0;
 		
 		Map<ASTNode, Integer> cardinality = new HashMap<ASTNode, Integer>();
@@ -98,12 +145,8 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 		}
 		if (flags.equals(Cumulative)) {
 			for (Relationship relationship : _relationships) {
-				ASTNode locator = relationship.getFeatures().get(0);
+				ASTNode locator = relationship.getEnclosingDeclaration();
 				
-				while ((!(locator instanceof MethodDeclaration) &&
-						!(locator instanceof Initializer)) && locator != null) {
-					locator = locator.getParent();
-				}
 				if(locator == null) {
 					//If locator is not within an Initializer block or Method Declaration, it
 					//will be null.  This is highly unlikely, but I can't guarantee it won't 
@@ -122,21 +165,14 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 			}
 		}
 		
-		for (IMethod method : _sourceType.getMethods()) {
-			if (method.isConstructor()) {
-				constructors++;
-			}
-		}
+		int constructors = getRootModel().getRelationshipCache()
+				.getConstructorCount(_sourceType);
 		
 		for (Relationship relationship : _relationships) {
-			ASTNode locator = relationship.getFeatures().get(0);
+			ASTNode locator = relationship.getEnclosingDeclaration();
 
 			int card;
 			
-			while ((!(locator instanceof MethodDeclaration) &&
-					!(locator instanceof Initializer)) && locator != null) {
-				locator = locator.getParent();
-			}
 			if(locator == null) {
 				throw new NullPointerException(NPE);
 			}
@@ -231,7 +267,40 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 	 * @return True if the relationship was added, false otherwise.
 	 */
 	public boolean addRelationship(Relationship relationship) {
-		return _relationships.add(relationship);
+		if (_relationships.add(relationship)) {
+			_relationshipsVersion++;
+			return true;
+		}
+		
+		return false;
+	}
+
+	/**
+	 * Removes all relationships that were not marked as retained during the
+	 * last pass of the recognizers and clears the mark on the others.
+	 * 
+	 * @return True if any relationship was removed, false otherwise.
+	 */
+	public boolean removeUnretainedRelationships() {
+		boolean removed = false;
+		
+		for (Iterator<Relationship> iter = _relationships.iterator();
+				iter.hasNext();) {
+			Relationship relationship = iter.next();
+			
+			if (!relationship.isRetained()) {
+				iter.remove();
+				removed = true;
+			} else {
+				relationship.setRetained(false);
+			}
+		}
+		
+		if (removed) {
+			_relationshipsVersion++;
+		}
+		
+		return removed;
 	}
 
 	/**
@@ -439,7 +508,8 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#getDeleteCommand(edu.buffalo.cse.green.editor.DiagramEditor)
 	 */
 	public DeleteCommand getDeleteCommand(DiagramEditor editor) {
-		return new DeleteRelationshipCommand(editor, this);
+		return new DeleteRelationshipsCommand(editor,
+				Collections.singletonList(this));
 	}
 
 	/**
@@ -465,49 +535,6 @@ public class RelationshipModel extends AbstractModel<AbstractModel, RootModel, I
 		return _relationships;
 	}
 	
-	/**
-	 * A command for deleting relationships.
-	 * 
-	 * @author bcmartin
-	 */
-	class DeleteRelationshipCommand extends DeleteCommand {
-		private RelationshipModel _rModel;
-
-		private DiagramEditor _editor;
-
-		public DeleteRelationshipCommand(
-				DiagramEditor editor,
-				RelationshipModel relationship) {
-			_editor = editor;
-			_rModel = relationship;
-		}
-
-		/**
-		 * @see edu.buffalo.cse.green.editor.model.commands.DeleteCommand#doDelete()
-		 */
-		public void doDelete() {
-			AbstractPart part = _editor.getRootPart().getPartFromModel(_rModel);
-			RelationshipGroup group = PlugIn.getRelationshipGroup(part.getClass());
-			RelationshipRemover remover = group.getRemover();
-			remover.setRelationship(_rModel);
-			remover.run(remover.getCompilationUnit(_rModel.getSourceType()), null);
-			remover.setRelationship(null);
-			getSourceModel().updateFields();
-			getSourceModel().updateMethods();
-		}
-
-		/**
-		 * @see edu.buffalo.cse.green.editor.model.commands.DeleteCommand#getDeleteMessage()
-		 */
-		public String getDeleteMessage() {
-			if (getSourceType().isBinary()) {
-				return null;
-			}
-			
-			return "Are you sure you want to delete that relationship?";
-		}
-	}
-	
 	/**
 	 * @param relationship - The relationship.
 	 * 
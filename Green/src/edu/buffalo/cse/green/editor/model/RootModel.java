@@ -16,17 +16,30 @@ import static edu.buffalo.cse.green.GreenException.GRERR_WRONG_SOURCE_PROJECT;
 import static edu.buffalo.cse.green.GreenException.GRWARN_ELEMENT_IN_WRONG_EDITOR;
 import static edu.buffalo.cse.green.constants.XMLConstants.XML_GREEN_VERSION;
 import static edu.buffalo.cse.green.constants.XMLConstants.XML_UML;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Children;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.GenerateRelationship;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.GenerateRelationships;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Location;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Redraw;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Refresh;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Size;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.UpdateRelationships;
+import static edu.buffalo.cse.green.editor.controller.PropertyChange.Visibility;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
@@ -36,9 +49,11 @@ import org.eclipse.jdt.core.JavaCore;
 import edu.buffalo.cse.green.GreenException;
 import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.DiagramEditor;
+import edu.buffalo.cse.green.editor.controller.PropertyChange;
 import edu.buffalo.cse.green.editor.controller.RelationshipPart;
 import edu.buffalo.cse.green.editor.controller.RootPart;
 import edu.buffalo.cse.green.editor.model.commands.DeleteCommand;
+import edu.buffalo.cse.green.relationships.RelationshipBatchGenerator;
 import edu.buffalo.cse.green.relationships.RelationshipCache;
 import edu.buffalo.cse.green.xml.XMLConverter;
 
@@ -52,14 +67,41 @@ import static edu.buffalo.cse.green.constants.CodeConstants.Model.*;
  * @author bcmartin
  */
 public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJavaElement> {
+	/**
+	 * The property changes that transactions hold back. Any other change,
+	 * such as one that generates relationships, is dispatched right away.
+	 */
+	private static final Set<PropertyChange> COALESCED_CHANGES =
+		EnumSet.of(Children, Location, Redraw, Refresh, Size, Visibility);
+
 	private IJavaProject _project;
 	private RootModelCache _cache;
+	private SpatialIndex _index;
+
+	/**
+	 * The property changes held back by the open transaction, by model and
+	 * then by property, or <code>null</code> if no transaction is open.
+	 */
+	private Map<AbstractModel, Map<PropertyChange, Object[]>> _pending;
+
+	/**
+	 * The children added to this model during the open transaction.
+	 */
+	private List<AbstractModel> _pendingChildren;
+
+	/**
+	 * The number of transactions begun and not yet committed.
+	 */
+	private int _transactions;
+
 	private List<RelationshipModel> _relationshipModels;
 	private RelationshipCache _relationships;
+	private RelationshipBatchGenerator _pendingGenerations;
 
 	public RootModel() {
 		super();
 		_cache = new RootModelCache();
+		_index = new SpatialIndex();
 		_relationships = new RelationshipCache();
 		_relationshipModels = new ArrayList<RelationshipModel>();
 	}
@@ -81,6 +123,171 @@ public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJava
 		return this;
 	}
 
+	/**
+	 * Begins a transaction. Until it is committed, the changes made to the
+	 * children, location, size, visibility and appearance of the models in
+	 * this diagram are not passed on to their edit parts. Instead, they are
+	 * coalesced per model and property and dispatched once at commit, so a
+	 * bulk operation updates each figure once. Transactions may be nested;
+	 * only the outermost commit dispatches the changes.
+	 */
+	public void beginTransaction() {
+		if (_transactions++ == 0) {
+			_pending = new LinkedHashMap<AbstractModel,
+					Map<PropertyChange, Object[]>>();
+			_pendingChildren = new ArrayList<AbstractModel>();
+		}
+	}
+
+	/**
+	 * Commits the transaction begun last. If it is the outermost one, the
+	 * property changes held back since it began are dispatched.
+	 */
+	public void commitTransaction() {
+		if (_transactions == 0) {
+			GreenException.illegalOperation("No transaction has begun");
+		}
+
+		if (--_transactions > 0) return;
+
+		Map<AbstractModel, Map<PropertyChange, Object[]>> pending = _pending;
+		List<AbstractModel> added = _pendingChildren;
+		_pending = null;
+		_pendingChildren = null;
+
+		for (Map.Entry<AbstractModel, Map<PropertyChange, Object[]>> entry
+				: pending.entrySet()) {
+			for (Map.Entry<PropertyChange, Object[]> change
+					: entry.getValue().entrySet()) {
+				entry.getKey().notifyListeners(change.getKey(),
+						change.getValue()[0], change.getValue()[1]);
+			}
+		}
+
+		// the coalesced change no longer names the added children
+		if (!added.isEmpty()) {
+			Set<AbstractModel> children =
+				new HashSet<AbstractModel>(getChildren());
+
+			for (AbstractModel model : added) {
+				if (children.contains(model)) {
+					model.assertValid();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Holds back a property change until the open transaction commits, if
+	 * there is one and the property is one that can be coalesced. Later
+	 * changes to the same property of the same model replace the new value
+	 * of the held back change, keeping its old value.
+	 * 
+	 * @param model - The model that changed.
+	 * @param type - The property that changed.
+	 * @param oValue - The old value.
+	 * @param nValue - The new value.
+	 * @return True if the change was held back.
+	 */
+	boolean queuePropertyChange(AbstractModel model, PropertyChange type,
+			Object oValue, Object nValue) {
+		if (_pending == null || !COALESCED_CHANGES.contains(type)) {
+			return false;
+		}
+
+		if (type == Children) {
+			if (model == this && oValue == null) {
+				_pendingChildren.add((AbstractModel) nValue);
+			}
+
+			oValue = false;
+			nValue = true;
+		}
+
+		Map<PropertyChange, Object[]> changes = _pending.get(model);
+
+		if (changes == null) {
+			changes = new EnumMap<PropertyChange, Object[]>(
+					PropertyChange.class);
+			_pending.put(model, changes);
+		}
+
+		Object[] values = changes.get(type);
+
+		if (values == null) {
+			changes.put(type, new Object[] { oValue, nValue });
+		} else {
+			values[1] = nValue;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#childAdded(edu.buffalo.cse.green.editor.model.AbstractModel)
+	 */
+	@Override
+	protected void childAdded(AbstractModel model) {
+		if (!(model instanceof RelationshipModel)) {
+			index(model);
+		}
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#childRemoved(edu.buffalo.cse.green.editor.model.AbstractModel)
+	 */
+	@Override
+	protected void childRemoved(AbstractModel model) {
+		_index.remove(model);
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#childBoundsChanged(edu.buffalo.cse.green.editor.model.AbstractModel)
+	 */
+	@Override
+	protected void childBoundsChanged(AbstractModel model) {
+		if (_index.contains(model)) {
+			index(model);
+		}
+	}
+
+	/**
+	 * Indexes the bounds of a type or note. Relationships are not indexed;
+	 * their bounds follow the types they connect.
+	 * 
+	 * @param model - The model.
+	 */
+	private void index(AbstractModel model) {
+		Dimension size = model.getSize();
+
+		if (size.width < 0 || size.height < 0) {
+			// the model is drawn at its preferred size
+			size = model.getDrawnSize();
+
+			if (size == null) {
+				size = new Dimension(0, 0);
+			}
+		}
+
+		_index.put(model, new Rectangle(model.getLocation(), size));
+	}
+
+	/**
+	 * @param area - The area, in diagram coordinates.
+	 * @return The types and notes that intersect the given area.
+	 */
+	public List<AbstractModel> getModels(Rectangle area) {
+		return _index.getModels(area);
+	}
+
+	/**
+	 * @return The smallest rectangle containing all types and notes, or
+	 * <code>null</code> if the diagram has none.
+	 */
+	public Rectangle getContentBounds() {
+		return _index.getBounds();
+	}
+
 	/**
 	 * Handles removal of the given <code>TypeModel</code> from the root.
 	 * 
@@ -114,7 +321,41 @@ public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJava
 	 * @param rModel - The relationship to generate code for.
 	 */
 	public void generateRelationshipCode(RelationshipModel rModel) {
-		firePropertyChange(GenerateRelationship, null, rModel);
+		if (_pendingGenerations != null) {
+			_pendingGenerations.add(rModel);
+		} else {
+			firePropertyChange(GenerateRelationship, null, rModel);
+		}
+	}
+
+	/**
+	 * Starts queueing relationship code generation. Until
+	 * <code>endRelationshipGeneration()</code> is called, relationships passed
+	 * to <code>generateRelationshipCode()</code> are only recorded.
+	 */
+	public void beginRelationshipGeneration() {
+		if (_pendingGenerations == null) {
+			_pendingGenerations = new RelationshipBatchGenerator();
+		}
+	}
+
+	/**
+	 * Fires the property that generates the code for all relationships queued
+	 * since <code>beginRelationshipGeneration()</code> was called.
+	 * 
+	 * @return The batch that generated the code, which can undo it, or
+	 * <code>null</code> if nothing was queued.
+	 */
+	public RelationshipBatchGenerator endRelationshipGeneration() {
+		RelationshipBatchGenerator batch = _pendingGenerations;
+		_pendingGenerations = null;
+		
+		if (batch == null || batch.isEmpty()) {
+			return null;
+		}
+
+		firePropertyChange(GenerateRelationships, null, batch);
+		return batch;
 	}
 
 	/**
@@ -218,9 +459,7 @@ public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJava
 
 			GreenException.illegalOperation(isValidTypeModel(typeModel));
 
-			// update the fields and models
-			typeModel.updateFields();
-			typeModel.updateMethods();
+			// the members are loaded once the type is shown
 
 			// LOOKINTO Answer why is this needed, since 4 statements up it appears to already have been done...
 			// Answer: Null pointer thrown without this statement...possibly a more elegant solution is available
@@ -665,8 +904,12 @@ public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJava
 		for (int y = 0; y <= MAX_BOX_HEIGHT; y += DEFAULT_BOX_HEIGHT) {
 			for (int x = 0; x <= MAX_BOX_WIDTH; x += DEFAULT_BOX_WIDTH) {
 				boolean fail = false;
+				Rectangle slot = new Rectangle(x - (DEFAULT_BOX_WIDTH / 2),
+						y - (DEFAULT_BOX_HEIGHT / 2), DEFAULT_BOX_WIDTH,
+						DEFAULT_BOX_HEIGHT);
 
-				for (AbstractModel element : getChildren()) {
+				// only types near the slot can be located in it
+				for (AbstractModel element : getModels(slot)) {
 					if (element instanceof TypeModel) {
 						TypeModel sibling = (TypeModel) element;
 						if (!sibling.equals(model)
@@ -694,14 +937,128 @@ public class RootModel extends AbstractModel<AbstractModel, AbstractModel, IJava
 		model.setLocation(new Point(DEFAULT_X_LOCATION, DEFAULT_Y_LOCATION));
 	}
 	
+	/**
+	 * Loads the members of the visible types in the given region and releases
+	 * the members of the types outside it, so that only the types near the
+	 * shown part of the diagram hold member models.
+	 * 
+	 * @param region - The region.
+	 * @param retained - Types outside the region whose members are kept.
+	 */
+	public void loadMembers(Rectangle region, Set<AbstractModel> retained) {
+		Set<AbstractModel> shown =
+			new HashSet<AbstractModel>(getModels(region));
+		beginTransaction();
+
+		try {
+			for (AbstractModel model : getChildren()) {
+				if (!(model instanceof TypeModel)) continue;
+
+				TypeModel type = (TypeModel) model;
+
+				if (shown.contains(type) && type.isVisible()) {
+					type.loadMembers();
+				} else if (!retained.contains(type)) {
+					type.releaseMembers();
+				}
+			}
+		} finally {
+			commitTransaction();
+		}
+	}
+
+	/**
+	 * Loads the members of every visible type in the diagram, so that the
+	 * whole diagram can be drawn in full.
+	 */
+	public void loadAllMembers() {
+		beginTransaction();
+
+		try {
+			for (AbstractModel model : getChildren()) {
+				if (model instanceof TypeModel && model.isVisible()) {
+					((TypeModel) model).loadMembers();
+				}
+			}
+		} finally {
+			commitTransaction();
+		}
+	}
+
+	/**
+	 * Places many types at once in rows below the rest of the diagram. Unlike
+	 * <code>placeUMLBox()</code>, this does not look for free slots, so it
+	 * takes time linear in the size of the diagram.
+	 * 
+	 * @param models - The types to place.
+	 */
+	public void placeUMLBoxes(List<TypeModel> models) {
+		Set<AbstractModel> placed = new HashSet<AbstractModel>(models);
+		Rectangle bounds = null;
+
+		for (AbstractModel child : getChildren()) {
+			Rectangle childBounds = _index.getBounds(child);
+			if (childBounds == null || placed.contains(child)) continue;
+
+			if (bounds == null) {
+				bounds = childBounds.getCopy();
+			} else {
+				bounds.union(childBounds);
+			}
+		}
+
+		int top = bounds == null ? 0
+				: bounds.bottom() + (DEFAULT_BOX_HEIGHT / 2);
+		int columns = (int) Math.ceil(Math.sqrt(models.size()));
+
+		for (int i = 0; i < models.size(); i++) {
+			models.get(i).setLocation(new Point(
+					(i % columns) * DEFAULT_BOX_WIDTH,
+					top + (i / columns) * DEFAULT_BOX_HEIGHT));
+		}
+	}
+
 	/**
 	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#refresh()
 	 */
 	@Override
 	public void refresh() {
-		updateTypes();
-		
-		super.refresh();
+		beginTransaction();
+
+		try {
+			updateTypes();
+
+			super.refresh();
+		} finally {
+			commitTransaction();
+		}
+	}
+
+	/**
+	 * Makes every model in the diagram redraw itself without updating it from
+	 * the code.
+	 */
+	public void redraw() {
+		beginTransaction();
+
+		try {
+			redraw(this);
+		} finally {
+			commitTransaction();
+		}
+	}
+
+	/**
+	 * Makes the given model and all of its descendants redraw themselves.
+	 *
+	 * @param model - The model.
+	 */
+	private static void redraw(AbstractModel model) {
+		for (Object child : model.getChildren()) {
+			redraw((AbstractModel) child);
+		}
+
+		model.forceRefesh();
 	}
 
 	/**
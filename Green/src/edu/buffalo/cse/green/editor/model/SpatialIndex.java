@@ -0,0 +1,200 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Indexes the bounds of models in a uniform grid so that the models in an
+ * area can be found without looking at every model. Each model is listed in
+ * every cell its bounds overlap.
+ */
+public class SpatialIndex {
+	/**
+	 * The width and height of a cell.
+	 */
+	public static final int CELL_SIZE = 256;
+
+	/**
+	 * Maps each cell to the models overlapping it.
+	 */
+	private Map<Long, List<AbstractModel>> _cells;
+
+	/**
+	 * Maps each model to its indexed bounds.
+	 */
+	private Map<AbstractModel, Rectangle> _bounds;
+
+	public SpatialIndex() {
+		_cells = new HashMap<Long, List<AbstractModel>>();
+		_bounds = new IdentityHashMap<AbstractModel, Rectangle>();
+	}
+
+	/**
+	 * Adds a model to the index or moves it to new bounds.
+	 *
+	 * @param model - The model.
+	 * @param bounds - The bounds of the model.
+	 */
+	public void put(AbstractModel model, Rectangle bounds) {
+		Rectangle old = _bounds.get(model);
+
+		if (bounds.equals(old)) return;
+
+		if (old != null) {
+			remove(model);
+		}
+
+		bounds = bounds.getCopy();
+		_bounds.put(model, bounds);
+
+		for (int cy = cell(bounds.y); cy <= cell(bounds.bottom()); cy++) {
+			for (int cx = cell(bounds.x); cx <= cell(bounds.right()); cx++) {
+				Long key = key(cx, cy);
+				List<AbstractModel> models = _cells.get(key);
+
+				if (models == null) {
+					models = new ArrayList<AbstractModel>(4);
+					_cells.put(key, models);
+				}
+
+				models.add(model);
+			}
+		}
+	}
+
+	/**
+	 * Removes a model from the index.
+	 *
+	 * @param model - The model.
+	 */
+	public void remove(AbstractModel model) {
+		Rectangle bounds = _bounds.remove(model);
+
+		if (bounds == null) return;
+
+		for (int cy = cell(bounds.y); cy <= cell(bounds.bottom()); cy++) {
+			for (int cx = cell(bounds.x); cx <= cell(bounds.right()); cx++) {
+				Long key = key(cx, cy);
+				List<AbstractModel> models = _cells.get(key);
+
+				models.remove(model);
+
+				if (models.isEmpty()) {
+					_cells.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param model - The model.
+	 * @return The indexed bounds of the model, or <code>null</code> if it is
+	 * not indexed.
+	 */
+	public Rectangle getBounds(AbstractModel model) {
+		return _bounds.get(model);
+	}
+
+	/**
+	 * @param model - The model.
+	 * @return True if the model is indexed.
+	 */
+	public boolean contains(AbstractModel model) {
+		return _bounds.containsKey(model);
+	}
+
+	/**
+	 * @param area - The area.
+	 * @return The models whose bounds intersect the given area.
+	 */
+	public List<AbstractModel> getModels(Rectangle area) {
+		List<AbstractModel> found = new ArrayList<AbstractModel>();
+
+		if (area.width < 0 || area.height < 0) return found;
+
+		int left = cell(area.x), right = cell(area.right());
+		int top = cell(area.y), bottom = cell(area.bottom());
+
+		// a sparse index is cheaper to scan than a large area
+		if ((long) (right - left + 1) * (bottom - top + 1) > _cells.size()) {
+			for (Map.Entry<AbstractModel, Rectangle> entry
+					: _bounds.entrySet()) {
+				if (intersects(entry.getValue(), area)) {
+					found.add(entry.getKey());
+				}
+			}
+
+			return found;
+		}
+
+		for (int cy = top; cy <= bottom; cy++) {
+			for (int cx = left; cx <= right; cx++) {
+				List<AbstractModel> models = _cells.get(key(cx, cy));
+				if (models == null) continue;
+
+				for (AbstractModel model : models) {
+					Rectangle bounds = _bounds.get(model);
+
+					// report models spanning several cells only once
+					if (intersects(bounds, area)
+							&& cx == Math.max(left, cell(bounds.x))
+							&& cy == Math.max(top, cell(bounds.y))) {
+						found.add(model);
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * @return The smallest rectangle containing the bounds of all models, or
+	 * <code>null</code> if the index is empty.
+	 */
+	public Rectangle getBounds() {
+		Rectangle union = null;
+
+		for (Rectangle bounds : _bounds.values()) {
+			if (union == null) {
+				union = bounds.getCopy();
+			} else {
+				union.union(bounds);
+			}
+		}
+
+		return union;
+	}
+
+	/**
+	 * Unlike <code>Rectangle.intersects()</code>, this counts rectangles that
+	 * only touch, so that empty rectangles are found as well.
+	 */
+	private static boolean intersects(Rectangle a, Rectangle b) {
+		return a.x <= b.right() && b.x <= a.right()
+				&& a.y <= b.bottom() && b.y <= a.bottom();
+	}
+
+	private static int cell(int coordinate) {
+		return (int) Math.floor(coordinate / (double) CELL_SIZE);
+	}
+
+	private static Long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+	}
+}
@@ -23,21 +23,29 @@ import static edu.buffalo.cse.green.constants.XMLConstants.XML_TYPE_Y;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.IncomingRelationship;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.OutgoingRelationship;
 import static edu.buffalo.cse.green.editor.controller.PropertyChange.Refresh;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_FQN_TYPE_NAMES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_FILTERS_MEMBER;
 import static org.eclipse.jdt.ui.refactoring.RenameSupport.UPDATE_REFERENCES;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.gef.commands.Command;
 import org.eclipse.gef.palette.ToolEntry;
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
@@ -58,6 +66,7 @@ import edu.buffalo.cse.green.editor.controller.TypePart;
 import edu.buffalo.cse.green.editor.model.commands.DeleteCommand;
 import edu.buffalo.cse.green.editor.model.commands.DeleteTypeCommand;
 import edu.buffalo.cse.green.editor.model.commands.HideTypeCommand;
+import edu.buffalo.cse.green.editor.model.filters.MemberFilterSet;
 import edu.buffalo.cse.green.types.ITypeProperties;
 import edu.buffalo.cse.green.xml.XMLConverter;
 
@@ -86,6 +95,22 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	private CompartmentModel _fieldCompartment;
 
 	private CompartmentModel _methodCompartment;
+
+	/**
+	 * Whether the compartments hold models of the type's members. Members are
+	 * only loaded once the type is shown.
+	 */
+	private boolean _membersLoaded;
+
+	/**
+	 * The modification stamp of the type when its members were last updated.
+	 */
+	private long _memberStamp = IResource.NULL_STAMP;
+
+	/**
+	 * The member filters in use when the members were last updated.
+	 */
+	private String _memberFilters;
 	
 	
 	//Visibility of individual compartments was an unsuccessful attempt
@@ -215,7 +240,7 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	 */
 	public void addChild(FieldModel model) {
 		CompartmentModel cm = getFieldCompartmentModel();
-		if (cm == null) return;
+		if (cm == null || !_membersLoaded) return;
 		
 		if (!PlugIn.filterMember(model)) {
 			cm.addChild(model);
@@ -230,6 +255,8 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	 * @param model - The child.
 	 */
 	public void addChild(MethodModel model) {
+		if (!_membersLoaded) return;
+		
 		if (!PlugIn.filterMember(model)) {
 			getMethodCompartmentModel().addChild(model);
 		} else {
@@ -243,37 +270,84 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	 * at the user's discretion.
 	 */
 	public String getDisplayName() {
-		boolean fqn = PlugIn.getBooleanPreference(P_DISPLAY_FQN_TYPE_NAMES);
+		boolean fqn = PlugIn.getPreferenceSnapshot().isDisplayFqnTypeNames();
 
 		return fqn ? getType().getFullyQualifiedName() :
 			getType().getElementName();
 	}
 
 	/**
-	 * Updates the methods compartment.
+	 * Updates the fields and methods compartments, and records the state of
+	 * the type they were updated from so that <code>refresh()</code> can skip
+	 * types that have not changed since.
 	 */
-	public void updateMethods() {
-		//FIXME Method filter causes NPE in this method
-		//Must look into this to make sure the solution of destroying the
-		//old compartment and making new ones doesn't **** up...create
-		//grossly undesirable side effects in...our underlying model. 
+	public void updateMembers() {
+		if (!_membersLoaded) return;
+		
+		_memberStamp = getMemberStamp();
+		_memberFilters = PlugIn.getPreference(P_FILTERS_MEMBER);
+		updateFields();
+		updateMethods();
+	}
+
+	/**
+	 * @return True if the compartments hold models of the type's members.
+	 */
+	public boolean isMembersLoaded() {
+		return _membersLoaded;
+	}
+
+	/**
+	 * Creates models for the type's members, if they have not been created.
+	 */
+	public void loadMembers() {
+		if (_membersLoaded) return;
+		
+		_membersLoaded = true;
+		updateMembers();
+	}
 
-//		if(!_methodsAreVisible) return;
+	/**
+	 * Removes the models of the type's members, along with their edit parts
+	 * and figures. They are created again by <code>loadMembers()</code>.
+	 */
+	public void releaseMembers() {
+		if (!_membersLoaded) return;
+		
+		_membersLoaded = false;
+		_memberStamp = IResource.NULL_STAMP;
+		
+		if (_fieldCompartment != null) {
+			_fieldCompartment.removeChildren();
+		}
+		
+		if (_methodCompartment != null) {
+			_methodCompartment.removeChildren();
+		}
+		
+		// the filter verdicts of the members are no longer needed
+		MemberFilterSet filters = PlugIn.getMemberFilterSet();
+		
+		try {
+			for (IJavaElement child : getType().getChildren()) {
+				if (child instanceof IMember) {
+					filters.forget((IMember) child);
+				}
+			}
+		} catch (JavaModelException e) {
+			// the type is gone; its verdicts are dropped as they age
+		}
+	}
 
+	/**
+	 * Updates the methods compartment.
+	 */
+	public void updateMethods() {
 		CompartmentModel compartment = getMethodCompartmentModel();
 		if (compartment == null) return;
-		compartment.removeChildren();
-//		removeChild(_methodCompartment);
-//		_methodCompartment = CompartmentModel.newMethodCompartment();
-//		addChild(_methodCompartment);
 		
 		try {
-			IMethod[] methods = getType().getMethods();
-
-			for (int j = 0; j < methods.length; j++) {
-				MethodModel mModel = new MethodModel(methods[j]);
-				addChild(mModel);
-			}
+			updateCompartment(compartment, getType().getMethods());
 		} catch (JavaModelException e) {
 			e.printStackTrace();
 		}
@@ -283,30 +357,104 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	 * Updates the fields compartment.
 	 */
 	public void updateFields() {
-		//FIXME Field filter causes NPE in this method
-		//Must look into this to make sure the solution of destroying the
-		//old compartment and making new ones doesn't **** up...create
-		//grossly undesirable side effects in...our underlying model. 
-
-//		if(!_fieldsAreVisible) return;
-
 		CompartmentModel compartment = getFieldCompartmentModel();
 		if (compartment == null) return;
-		compartment.removeChildren();
-//		removeChild(_fieldCompartment);
-//		_fieldCompartment = CompartmentModel.newFieldCompartment();
-//		addChild(_fieldCompartment);
 		
 		try {
-			IField[] fields = getType().getFields();
+			updateCompartment(compartment, getType().getFields());
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+	}
 
-			for (int j = 0; j < fields.length; j++) {
-				FieldModel fModel = new FieldModel(fields[j]);
-				addChild(fModel);
+	/**
+	 * Brings the children of a compartment in line with the given members.
+	 * Members are matched to the existing models by handle identifier; the
+	 * models of members that are still there, in the same order, are kept
+	 * and have their labels updated, and only the differences are removed
+	 * or inserted.
+	 * 
+	 * @param compartment - The compartment.
+	 * @param members - The members the compartment should show, in order.
+	 */
+	private void updateCompartment(CompartmentModel compartment,
+			IMember[] members) {
+		List<AbstractModel> children = compartment.getChildren();
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		
+		for (int i = 0; i < children.size(); i++) {
+			positions.put(children.get(i).getJavaElement()
+					.getHandleIdentifier(), i);
+		}
+		
+		List<MemberModel> models = new ArrayList<MemberModel>();
+		List<IMember> shown = new ArrayList<IMember>();
+		Set<AbstractModel> kept = new HashSet<AbstractModel>();
+		int last = -1;
+		
+		for (IMember member : members) {
+			Integer position = positions.get(member.getHandleIdentifier());
+			MemberModel model;
+			
+			// a member that moved ahead of a kept one is created again
+			if (position != null && position > last) {
+				model = (MemberModel) children.get(position);
+				last = position;
+			} else if (member instanceof IMethod) {
+				model = new MethodModel((IMethod) member);
+			} else {
+				model = new FieldModel((IField) member);
+			}
+			
+			if (PlugIn.filterMember(model)) continue;
+			
+			if (model.getParent() == compartment) {
+				kept.add(model);
+			}
+			
+			models.add(model);
+			shown.add(member);
+		}
+		
+		for (AbstractModel child : new ArrayList<AbstractModel>(children)) {
+			if (!kept.contains(child)) {
+				child.removeFromParent();
+			}
+		}
+		
+		for (int i = 0; i < models.size(); i++) {
+			MemberModel model = models.get(i);
+			
+			if (kept.contains(model)) {
+				// the member's label may have changed
+				model.setMember(shown.get(i));
+			} else {
+				compartment.insertChild(model, i);
+			}
+		}
+	}
+
+	/**
+	 * @return The modification stamp of the resource the type is read from,
+	 * or <code>IResource.NULL_STAMP</code> if the type may have changed
+	 * without it changing.
+	 */
+	private long getMemberStamp() {
+		try {
+			ICompilationUnit cu = getType().getCompilationUnit();
+			
+			// unsaved changes don't touch the resource
+			if (cu != null && cu.hasUnsavedChanges()) {
+				return IResource.NULL_STAMP;
 			}
 		} catch (JavaModelException e) {
-			e.printStackTrace();
+			return IResource.NULL_STAMP;
 		}
+		
+		IResource resource = getType().getResource();
+		
+		return resource == null ? IResource.NULL_STAMP
+				: resource.getModificationStamp();
 	}
 
 	/**
@@ -523,6 +671,11 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	public void setVisible(boolean value) {
 		super.setVisible(value);
 		
+		// hidden types don't need their members
+		if (!value) {
+			releaseMembers();
+		}
+		
 		if (value) {
 			for (RelationshipModel rModel : getIncomingEdges()) {
 				rModel.setVisible(true);
@@ -626,9 +779,15 @@ public class TypeModel extends MemberModel<CompartmentModel, RootModel, IType> {
 	 * @see edu.buffalo.cse.green.editor.model.AbstractModel#refresh()
 	 */
 	public void refresh() {
-		if (getMember().exists()) {
-			updateFields();
-			updateMethods();
+		if (_membersLoaded && getMember().exists()) {
+			long stamp = getMemberStamp();
+			
+			// the members only change with the type or the member filters
+			if (stamp == IResource.NULL_STAMP || stamp != _memberStamp
+					|| !PlugIn.getPreference(P_FILTERS_MEMBER).equals(
+							_memberFilters)) {
+				updateMembers();
+			}
 		}
 
 		super.refresh();
@@ -10,13 +10,12 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_FQN_TYPE_NAMES;
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
-
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.gef.commands.Command;
 import org.eclipse.jdt.core.IClassFile;
@@ -49,6 +48,12 @@ public class AddJavaElementCommand extends Command {
 	
 	private ArrayList<IJavaElement> _dupElement;
 	
+	/**
+	 * Whether the added types are placed by auto-arrange when the preference
+	 * is set.
+	 */
+	private boolean _autoArrange;
+	
 	public AddJavaElementCommand(
 			DiagramEditor editor,
 			IJavaElement element) {
@@ -56,6 +61,35 @@ public class AddJavaElementCommand extends Command {
 		_element = element;
 		_commands = new ArrayList<Command>();
 		_dupElement = new ArrayList<IJavaElement>();
+		_autoArrange = true;
+	}
+	
+	/**
+	 * Sets whether the added types are placed by auto-arrange. Commands that
+	 * add types through several of these commands turn this off and arrange
+	 * all of the added types at once.
+	 * 
+	 * @param autoArrange - Whether to auto-arrange.
+	 */
+	public void setAutoArrange(boolean autoArrange) {
+		_autoArrange = autoArrange;
+	}
+	
+	/**
+	 * @return The models of the types added by this command.
+	 */
+	public List<TypeModel> getAddedModels() {
+		List<TypeModel> models = new ArrayList<TypeModel>();
+		
+		for (Command command : _commands) {
+			TypeModel model = ((AddTypeCommand) command)._model;
+			
+			if (model != null) {
+				models.add(model);
+			}
+		}
+		
+		return models;
 	}
 
 	/**
@@ -69,34 +103,42 @@ public class AddJavaElementCommand extends Command {
 		// Determine the type of <code>IJavaElement</code> and take the
 		// appropriate action.
 		try {
+			List<IType> types = new ArrayList<IType>();
+			boolean bulk = false;
+			
 			if (_element instanceof IJavaProject) {
 				IJavaProject project = (IJavaProject) _element;
 				
 				for (IPackageFragment packFrag
 						: project.getPackageFragments()) {
 					if (!packFrag.isReadOnly()) {
-						openPackage(root, packFrag);
+						openPackage(types, packFrag);
 					}
 				}
+				
+				bulk = true;
 			} else if (_element instanceof IPackageFragment) {
 				IPackageFragment packFrag = (IPackageFragment) _element;
-				openPackage(root, packFrag);
+				openPackage(types, packFrag);
+				bulk = true;
 			} else if (_element instanceof ICompilationUnit) {
-				openCU(root, (ICompilationUnit) _element);
+				openCU(types, (ICompilationUnit) _element);
 			} else if (_element instanceof IClassFile) {
-				openClass(root, (IClassFile) _element);
+				openClass(types, (IClassFile) _element);
 			} else if (_element instanceof IType) {
-				createType(root, (IType) _element);
+				types.add((IType) _element);
 			} else if (_element instanceof IMember) {
 				_element = _element.getAncestor(IJavaElement.TYPE);
-				createType(root, (IType) _element);
+				types.add((IType) _element);
 			} else {
 				GreenException.illegalOperation(
 						"Cannot open this kind of Java Element: " + _element);
 			}
+			
+			createTypes(root, types, bulk);
 
 			if(_dupElement.size() > 0) {
-				boolean fqn = PlugIn.getBooleanPreference(P_DISPLAY_FQN_TYPE_NAMES);
+				boolean fqn = PlugIn.getPreferenceSnapshot().isDisplayFqnTypeNames();
 				ArrayList<String> eleNames = new ArrayList<String>();
 				String prompt = "Selected type is already in the diagram:\n\n";
 				if(_dupElement.size() > 1) {
@@ -122,10 +164,10 @@ public class AddJavaElementCommand extends Command {
 						"Information", prompt + namePrompt);
 			}
 			
-			if(PlugIn.getBooleanPreference(P_AUTOARRANGE))
+			if(_autoArrange && PlugIn.getPreferenceSnapshot().isAutoArrange()
+					&& !getAddedModels().isEmpty())
 			{
-				_editor.execute(new AutoArrangeCommand());
-				_editor.execute(new AutoArrangeCommand());
+				_editor.execute(new AutoArrangeCommand(getAddedModels(), false));
 			}
 			else
 			{
@@ -138,42 +180,38 @@ public class AddJavaElementCommand extends Command {
 	}
 
 	/**
-	 * Opens all the compilation units in the given
-	 * <code>IPackageFragment</code>.
+	 * Collects the types of all the compilation units and class files in the
+	 * given <code>IPackageFragment</code>.
 	 */
-	private void openPackage(RootModel model, IPackageFragment packFrag)
+	private void openPackage(List<IType> types, IPackageFragment packFrag)
 	throws JavaModelException {
 		ICompilationUnit[] cus = packFrag.getCompilationUnits();
 		IClassFile[] classFiles = packFrag.getClassFiles();
 		
 		for (ICompilationUnit cu : cus) {
-			openCU(model, cu);
+			openCU(types, cu);
 		}
 		
 		for (IClassFile classFile : classFiles) {
-			openClass(model, classFile);
+			openClass(types, classFile);
 		}
 	}
 
 	/**
-	 * Opens a compilation unit and all the types in it.
+	 * Collects all the types in a compilation unit.
 	 */
-	private void openCU(RootModel root, ICompilationUnit cu)
+	private void openCU(List<IType> types, ICompilationUnit cu)
 	throws JavaModelException {
-		IType[] types = cu.getAllTypes();
-
-		for (int i = 0; i < types.length; i++) {
-			createType(root, types[i]);
-		}
+		Collections.addAll(types, cu.getAllTypes());
 	}
 
 	/**
-	 * Loads a class into the editor.
+	 * Collects the type of a class file.
 	 */
-	private void openClass(RootModel root, IClassFile classFile) {
+	private void openClass(List<IType> types, IClassFile classFile) {
 		IType type = classFile.getType();
 		if(type.exists()) {
-			createType(root, type);
+			types.add(type);
 		}
 	}
 
@@ -185,32 +223,45 @@ public class AddJavaElementCommand extends Command {
 	}
 	
 	/**
-	 * Creates a <code>TypeModel</code> in the given <code>UMLRootModel</code>. 
+	 * Creates a <code>TypeModel</code> in the given <code>UMLRootModel</code>
+	 * for each of the given types that is not already in it. The models are
+	 * created in a single transaction.
 	 * 
 	 * @param root - The root model.
-	 * @param type - The type's model.
+	 * @param types - The types.
+	 * @param bulk - If true, the types are placed in rows below the diagram
+	 * rather than one at a time in free slots.
 	 * 
 	 * @author jeg34
 	 */
-	private void createType(RootModel root, IType type) {
-		boolean isInRoot = false;
-		List<AbstractModel> children = root.getChildren();
-		Iterator itr = children.iterator();
+	private void createTypes(RootModel root, List<IType> types, boolean bulk) {
+		Set<IJavaElement> inRoot = new HashSet<IJavaElement>();
 		
-		while(itr.hasNext()) {
-			AbstractModel currModel = (AbstractModel)itr.next();
-			if((currModel).getJavaElement() != null) {
-				if((currModel).getJavaElement().equals(type)) {
-					_dupElement.add(type);
-					isInRoot = true;
-				}
+		for (AbstractModel currModel : root.getChildren()) {
+			if (currModel.getJavaElement() != null) {
+				inRoot.add(currModel.getJavaElement());
 			}
 		}
 		
-		if(!isInRoot) {
-			Command command = new AddTypeCommand(root, type);
-			_commands.add(command);
-			command.execute();
+		root.beginTransaction();
+		
+		try {
+			for (IType type : types) {
+				if (!inRoot.add(type)) {
+					_dupElement.add(type);
+					continue;
+				}
+				
+				AddTypeCommand command = new AddTypeCommand(root, type, !bulk);
+				_commands.add(command);
+				command.execute();
+			}
+			
+			if (bulk) {
+				root.placeUMLBoxes(getAddedModels());
+			}
+		} finally {
+			root.commitTransaction();
 		}
 	}
 	
@@ -252,10 +303,16 @@ public class AddJavaElementCommand extends Command {
 		 * The <code>TypeModel</code> representing the added type.
 		 */
 		private TypeModel _model;
+		
+		/**
+		 * Whether the type is placed in a free slot once it is added.
+		 */
+		private boolean _place;
 
-		public AddTypeCommand(RootModel root, IType type) {
+		public AddTypeCommand(RootModel root, IType type, boolean place) {
 			_root = root;
 			_type = type;
+			_place = place;
 		}
 		
 		/**
@@ -264,7 +321,7 @@ public class AddJavaElementCommand extends Command {
 		public void execute() {
 			_model = _root.createTypeModel(_type);
 
-			if (_model != null) {
+			if (_model != null && _place) {
 				_root.placeUMLBox(_model);
 			}
 		}
@@ -9,283 +9,219 @@
  */
 
 /**
- * 
+ *
  */
 package edu.buffalo.cse.green.editor.model.commands;
 
-import java.util.List;
-import java.util.Vector;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
-import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.gef.commands.Command;
+import org.eclipse.swt.widgets.Display;
 
-import ccvisu.GraphData;
-import ccvisu.GraphEdge;
-import ccvisu.Minimizer;
-import ccvisu.MinimizerBarnesHut;
-import ccvisu.Options;
-import edu.buffalo.cse.green.ccvisu.CCVisuUtil;
-import edu.buffalo.cse.green.ccvisu.GraphVertex;
+import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.DiagramEditor;
-import edu.buffalo.cse.green.editor.model.AbstractModel;
-import edu.buffalo.cse.green.editor.model.RelationshipModel;
 import edu.buffalo.cse.green.editor.model.RootModel;
 import edu.buffalo.cse.green.editor.model.TypeModel;
+import edu.buffalo.cse.green.layout.ILayoutEngine;
+import edu.buffalo.cse.green.layout.LayoutGraph;
 
 /**
+ * Arranges the types of the active diagram with a layout engine. The layout
+ * is computed by an <code>AutoArrangeJob</code> in the background; the types
+ * follow the intermediate layouts the engine reports, and the final layout is
+ * what the command undoes and redoes. The diagram is only read once any
+ * earlier arrangement of it has stopped, without the UI waiting for it.
+ *
  * @author zgwang
  *
  */
 public class AutoArrangeCommand extends Command {
+	/**
+	 * The time, in milliseconds, an engine is given to compute a layout.
+	 */
+	public static final long LAYOUT_BUDGET = 10000;
 
 	private int[][] opos;
 	private int[][] npos;
-	private Vector<TypeModel> _m;
-	
+	private TypeModel[] _m;
+	private DiagramEditor _editor;
+
+	/**
+	 * The job running for this command, if any. Set and read in the UI
+	 * thread, but cleared by whichever thread cancels the job.
+	 */
+	private volatile AutoArrangeJob _job;
+	private ILayoutEngine _engine;
+
 	/**
-	 * 
+	 * The types to place, or <code>null</code> if the whole diagram is
+	 * arranged.
+	 */
+	private Set<TypeModel> _added;
+
+	/**
+	 * Whether the types related to the added types may move as well.
+	 */
+	private boolean _moveNeighbours;
+
+	/**
+	 * Arranges the whole diagram with the default layout engine.
 	 */
 	public AutoArrangeCommand() {
-		_m = new Vector<TypeModel>();
+		this(PlugIn.getDefaultLayoutEngine());
+	}
+
+	/**
+	 * Arranges the whole diagram with the given layout engine.
+	 *
+	 * @param engine - The engine.
+	 */
+	public AutoArrangeCommand(ILayoutEngine engine) {
+		_engine = engine;
+	}
+
+	/**
+	 * Places the given types with the default layout engine, leaving every
+	 * other type where it is.
+	 *
+	 * @param added - The types to place.
+	 * @param moveNeighbours - Whether the types directly related to the
+	 * given types may move as well.
+	 */
+	public AutoArrangeCommand(Collection<TypeModel> added,
+			boolean moveNeighbours) {
+		this();
+		_added = new HashSet<TypeModel>(added);
+		_moveNeighbours = moveNeighbours;
 	}
-	
+
 	public void undo() {
-		for( int i=0; i<_m.size(); i++)
-			_m.get(i).setLocation(opos[i][0], opos[i][1]);
+		if (_job != null) {
+			_job.cancel();
+			_job = null;
+		}
+
+		// the job may not have read the diagram yet
+		if (opos != null) {
+			move(opos);
+		}
 	}
-	
+
 	public void redo() {
-		for( int i=0; i<_m.size(); i++)
-			_m.get(i).setLocation(npos[i][0], npos[i][1]);
+		if (npos == null) {
+			// the arrangement was undone before it finished
+			execute();
+			return;
+		}
+
+		move(npos);
 	}
-	
+
 	public void execute() {
-		DiagramEditor editor = DiagramEditor.getActiveEditor();
-		RootModel root = editor.getRootModel();
-//		List<AbstractModel> allModels = root.getChildren();
-		List<RelationshipModel> rels = root.getRelationships();
-		
-		/*
-		 * 
-			Dimension dim = m.getSize();
-			if(dim.height == -1 && dim.width == -1) {
-				//Box is default size, need to get real size instead.
-				dim = f.getLayoutManager().getPreferredSize(f.getParent(), -1, -1);
-			}		 * 
-for(AbstractModel m : allModels) {
-			IFigure f = activeEditor.getRootPart().getPartFromModel(m).getFigure();
-		 * 
-		 */
-		
-		/*for(RelationshipModel relModel : rels) {
-			String[] interfaces = relModel.getSourceType().getSuperInterfaceNames();
-			IType source = relModel.getSourceType();
-			IType target = relModel.getTargetType();
-			TypeModel sModel = root.getModelFromType(source);
-			TypeModel tModel = root.getModelFromType(target);
+		_editor = DiagramEditor.getActiveEditor();
 
-			
-			
-			System.out.println(sModel.getLocation());
-			System.out.println(tModel.getLocation());
-			
-			for(int a = 0; a < interfaces.length; a++) {
-				if(interfaces[a].equals(target.getElementName())) {
-					IFigure sFig = editor.getRootPart().getPartFromModel(sModel).getFigure();
-					IFigure tFig = editor.getRootPart().getPartFromModel(tModel).getFigure();
-					sFig.setLocation(new Point(50, 50));
-					tFig.setLocation(new Point(50, 50));
+		// only one arrangement of a diagram runs at a time; the new job waits
+		// for the old one to stop before it reads the diagram
+		Platform.getJobManager().cancel(_editor);
 
-					Dimension sDim = getRealSize(sFig);
-					Dimension tDim = getRealSize(tFig);
-					
-					int horizCenter = tModel.getLocation().x + (tDim.width / 2);
-					sModel.setLocation(horizCenter - (sDim.width / 2),
-							tModel.getLocation().y + tDim.height + 50);
-				}
-				
-			}
-		}*/
-		List<AbstractModel> mods = root.getChildren();
-		//List<Map.Entry<Integer, TypeModel>> l = new LinkedList<Map.Entry<Integer, TypeModel>>();
-		GraphData gd = new GraphData();
-		for(AbstractModel m : mods) {
-			//TODO Insert heuristic layout algorithm here.
-			//new org.eclipse.zest.layouts.algorithms.SpringLayoutAlgorithm();
-			
-			/*System.out.println(models.getBounds() + "; " +
-					models.getDrawnSize() + "; " +
-					models.getSize());*/
-			//models.setLocation(new Point(60, 60));
-			if(m instanceof TypeModel)
-			{
-				final TypeModel n = (TypeModel)m;
-				GraphVertex me = new GraphVertex(n);
-				me.id = gd.vertices.size();
-				me.name = "" + me.id;
-				Dimension size = editor.getRootPart().getPartFromModel(n).getFigure().getSize(); 
-				me.degree = n.getIncomingEdges().size() +
-							n.getOutgoingEdges().size() + (size.height * size.width /20000.0f);
-				//System.out.println("1: " + size.height + ", 2: " + size.width);
-				me.isSource = me.degree > 0;
-				me.pos.x = n.getLocation().x/200.0f;
-				me.pos.y = n.getLocation().y/200.0f;
-				if( !gd.vertices.contains(me) )
-				{
-					gd.vertices.add(me);
-					_m.add(n);
-				}
-				else
-					me = (GraphVertex)gd.vertices.get( gd.vertices.indexOf(me) );
-				/*int card = 0, i=0;
-				card += n.getIncomingEdges().size();
-				card += n.getOutgoingEdges().size();
-				for(Map.Entry<Integer, TypeModel> o : l)
-				{
-					if( o.getKey() <= card )
-						break;
-					i++;
-				}
-				final int c = card;
-				l.add(i, new Map.Entry<Integer, TypeModel>() {
-					private Integer _k;
-					private TypeModel _v;
-					{ _k = c; _v = n; }
-					public Integer getKey() { return _k; }
-					public TypeModel getValue() { return _v; }
-					public TypeModel setValue(TypeModel value) { return _v = value; }
-					@Override public boolean equals(Object o) { return ((Map.Entry<Integer, TypeModel>)o).getValue() == this.getValue(); }
-				});*/
-				for(RelationshipModel e : n.getOutgoingEdges())
-				{
-					TypeModel y = e.getTargetModel();
-					if (n.equals(y)) continue; // no reflexive graph
-					GraphVertex you = new GraphVertex(y);
-					you.id = gd.vertices.size();
-					you.name = "" + you.id;
-					you.degree = y.getIncomingEdges().size() +
-								 y.getOutgoingEdges().size() /*(y.getSize().height + y.getSize().width)*/;
-					you.isSource = you.degree > 0;
-					you.pos.x = y.getLocation().x/200.0f;
-					you.pos.y = y.getLocation().y/200.0f;
-					if( !gd.vertices.contains(you) )
-					{
-						gd.vertices.add(you);
-						_m.add(y);
-					}
-					else
-						you = (GraphVertex) gd.vertices.get( gd.vertices.indexOf(you) );
-					
-					// have me, you
-					// create edge
-					
-					if (me.id!=you.id) {
-						GraphEdge ed = new GraphEdge();
-						ed.x = me.id;
-						ed.y = you.id;
-						ed.w = 1.0f;
-						gd.edges.add(ed);
-					}
-				}
-			}
-		}
-		
-		//final GraphData fn = gd;
-		
-		//CCVisu.initializeLayout(gd, 2, null);
-		
-		Options options = CCVisuUtil.newOptions(gd, 100, 3, 1, false, false, 2.001f, null, false);
-		Minimizer me = new MinimizerBarnesHut(options);
-		/* new GraphEventListener() {
-		public void onGraphEvent(GraphEvent evt) {
-				for( int i=0; i<fn.vertices.size(); i++ )
-				{
-					System.out.println("putting vertex " + i + " to (" + fn.pos[i][0] + ", " + fn.pos[i][1] + ").");
-					fn.vertices.get(i).me.setLocation((int)(fn.pos[i][0]*1000), (int)(fn.pos[i][1]*1000));
-				}
-				try {
-					Thread.sleep(200);
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
-			
-		}*/
-		
-		me.minimizeEnergy();
-		
-		//System.out.println("computed " + gd.vertices.size() + " vertices.");
-		
-		// normalize
-		float lx = 999, ly = 999;
-		for( ccvisu.GraphVertex v : gd.vertices )
+		_job = new AutoArrangeJob(this, _editor, _engine, LAYOUT_BUDGET);
+		_job.schedule();
+	}
+
+	/**
+	 * Records the positions of the types and takes the snapshot of the
+	 * diagram the given job lays out. Called in the UI thread when the job
+	 * starts, once any earlier arrangement of the diagram has stopped.
+	 *
+	 * @param job - The job that starts.
+	 * @return The snapshot, or <code>null</code> if the job is no longer the
+	 * one running for this command or there is nothing to place.
+	 */
+	LayoutGraph readDiagram(AutoArrangeJob job) {
+		if (_job != job) return null;
+
+		// the layout needs the full size of every type
+		_editor.getRootPart().realizeAll();
+
+		LayoutGraph graph = new LayoutGraph(_editor, _added, _moveNeighbours);
+		_m = new TypeModel[graph.getVertexCount()];
+		opos = new int[_m.length][2];
+
+		for( int i=0; i<_m.length; i++ )
 		{
-			if( v.pos.x < lx )
-				lx = v.pos.x;
-			if( v.pos.y < ly )
-				ly = v.pos.y;
+			_m[i] = graph.getModel(i);
+			opos[i][0] = _m[i].getLocation().x;
+			opos[i][1] = _m[i].getLocation().y;
 		}
-		
-		for( ccvisu.GraphVertex v : gd.vertices )
-		{
-			v.pos.x -= lx;
-			v.pos.y -= ly;
+
+		if (!graph.hasFreeVertices()) {
+			// nothing to place
+			_job = null;
+			npos = opos;
+			_editor.checkDirty();
+			return null;
 		}
-		
-		opos = new int[_m.size()][2];
-		npos = new int[_m.size()][2];
-		
-		for( int i=0; i<gd.vertices.size(); i++ )
-		{
-			//System.out.println("putting vertex " + i + " to (" + gd.pos[i][0] + ", " + gd.pos[i][1] + ").");
-			opos[i][0] = _m.get(i).getLocation().x;
-			opos[i][1] = _m.get(i).getLocation().y;
-			GraphVertex v = (GraphVertex) gd.vertices.get(i); 
-			v.me.setLocation((int)(v.pos.x*200), (int)(v.pos.y*200));
-			npos[i][0] = v.me.getLocation().x;
-			npos[i][1] = v.me.getLocation().y;
+
+		return graph;
+	}
+
+	/**
+	 * Moves the arranged types to the given positions in a single transaction,
+	 * so that the diagram is updated once.
+	 *
+	 * @param positions - The positions, indexed like the arranged types.
+	 */
+	private void move(int[][] positions) {
+		RootModel root = _editor.getRootModel();
+		root.beginTransaction();
+
+		try {
+			for( int i=0; i<_m.length; i++)
+				_m[i].setLocation(positions[i][0], positions[i][1]);
+		} finally {
+			root.commitTransaction();
 		}
-		
-		/*class noode {
-			public List<noode> childs;
-			public TypeModel me;
-			public noode(TypeModel m)
-			{
-				me = m;
-				childs = new ArrayList<noode>();
-			}
-		};
-		
-		noode dad = new Object() {
+	}
 
-			private List<Map.Entry<Integer, TypeModel>> l;
-			
-			public noode go(List<Map.Entry<Integer, TypeModel>> li) {
-				l = li;
-				noode r = new noode(null);
-				while(!l.isEmpty())
-				{
-					noode me = new noode(l.get(0).getValue());
-					r.childs.add(me);
-					l.remove(me);
-					recursive(me);
-				}
-				return r;
-			}
+	/**
+	 * Detaches the given job from this command if it is the one running for
+	 * it. Called from the thread that cancels the job, which need not be the
+	 * UI thread.
+	 *
+	 * @param job - The job that was cancelled.
+	 */
+	void jobCanceled(AutoArrangeJob job) {
+		if (_job == job) {
+			_job = null;
+		}
+	}
+
+	/**
+	 * Moves the arranged types to the positions reached by the given job. This
+	 * may be called from any thread; the types are moved in the UI thread, and
+	 * only if the job is still the one running for this command.
+	 *
+	 * @param job - The job that computed the positions.
+	 * @param positions - The positions, indexed like the arranged types.
+	 * @param last - True if these are the final positions.
+	 */
+	void publish(final AutoArrangeJob job, final int[][] positions,
+			final boolean last) {
+		Display.getDefault().asyncExec(new Runnable() {
+			public void run() {
+				if (_job != job) return;
 
-			private void recursive(noode r) {
-				
+				move(positions);
+
+				if (last) {
+					_job = null;
+					npos = positions;
+					_editor.checkDirty();
+				}
 			}
-			
-		}.go( l );
-		for(Map.Entry<Integer, TypeModel> e : l)
-		{
-			//e.getValue().setLocation(60, 60);
-			
-		}*/
-		
-		editor.checkDirty();
+		});
 	}
-
 }
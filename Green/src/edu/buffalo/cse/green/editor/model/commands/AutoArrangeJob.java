@@ -0,0 +1,134 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.model.commands;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+import edu.buffalo.cse.green.editor.DiagramEditor;
+import edu.buffalo.cse.green.layout.ILayoutEngine;
+import edu.buffalo.cse.green.layout.ILayoutListener;
+import edu.buffalo.cse.green.layout.LayoutGraph;
+
+/**
+ * Runs a layout engine in the background. The jobs arranging the same diagram
+ * run one after the other, and each reads the diagram only when it starts.
+ * The intermediate layouts the engine reports, at most once every
+ * <code>ILayoutListener.UPDATE_INTERVAL</code> milliseconds, are handed to the
+ * owning <code>AutoArrangeCommand</code>, followed by the final layout.
+ * Cancelling the job stops the engine and detaches the job from its command,
+ * so that nothing it computed is published afterwards.
+ */
+public class AutoArrangeJob extends Job {
+	private AutoArrangeCommand _command;
+
+	private DiagramEditor _editor;
+
+	private ILayoutEngine _engine;
+
+	private long _budget;
+
+	public AutoArrangeJob(AutoArrangeCommand command, DiagramEditor editor,
+			ILayoutEngine engine, long budget) {
+		super("Auto-Arranging Diagram");
+		_command = command;
+		_editor = editor;
+		_engine = engine;
+		_budget = budget;
+		setRule(new DiagramRule(editor));
+	}
+
+	/**
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	protected IStatus run(IProgressMonitor monitor) {
+		final LayoutGraph[] graph = new LayoutGraph[1];
+
+		Display.getDefault().syncExec(new Runnable() {
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			public void run() {
+				graph[0] = _command.readDiagram(AutoArrangeJob.this);
+			}
+		});
+
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		if (graph[0] == null) {
+			// detached from the command, or nothing to place
+			return Status.OK_STATUS;
+		}
+
+		int[][] positions = _engine.layout(graph[0], _budget, monitor,
+				new ILayoutListener() {
+					public void layoutChanged(int[][] positions) {
+						_command.publish(AutoArrangeJob.this, positions,
+								false);
+					}
+				});
+
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		_command.publish(this, positions, true);
+
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * @see org.eclipse.core.runtime.jobs.Job#canceling()
+	 */
+	protected void canceling() {
+		_command.jobCanceled(this);
+	}
+
+	/**
+	 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+	 */
+	public boolean belongsTo(Object family) {
+		return family == _editor;
+	}
+
+	/**
+	 * Keeps the jobs arranging the same diagram from running at the same
+	 * time.
+	 */
+	private static class DiagramRule implements ISchedulingRule {
+		private DiagramEditor _editor;
+
+		public DiagramRule(DiagramEditor editor) {
+			_editor = editor;
+		}
+
+		/**
+		 * @see org.eclipse.core.runtime.jobs.ISchedulingRule#contains(org.eclipse.core.runtime.jobs.ISchedulingRule)
+		 */
+		public boolean contains(ISchedulingRule rule) {
+			return isConflicting(rule);
+		}
+
+		/**
+		 * @see org.eclipse.core.runtime.jobs.ISchedulingRule#isConflicting(org.eclipse.core.runtime.jobs.ISchedulingRule)
+		 */
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule instanceof DiagramRule
+					&& ((DiagramRule) rule)._editor == _editor;
+		}
+	}
+}
@@ -10,7 +10,6 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
 import static org.eclipse.jface.window.Window.OK;
 
 import org.eclipse.draw2d.geometry.Dimension;
@@ -98,7 +97,7 @@ public class CreateCommand extends Command {
 			_model.createNewInstance(_model);
 		}
 		
-		if(PlugIn.getBooleanPreference(P_AUTOARRANGE))
+		if(PlugIn.getPreferenceSnapshot().isAutoArrange())
 		{
 			DiagramEditor.getActiveEditor().execute(new AutoArrangeCommand());
 		}
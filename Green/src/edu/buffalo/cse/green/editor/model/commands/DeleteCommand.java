@@ -10,8 +10,6 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
-
 import org.eclipse.gef.commands.Command;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Shell;
@@ -65,7 +63,7 @@ public abstract class DeleteCommand extends Command {
 		if (perform) {
 			doDelete();
 			
-			if(PlugIn.getBooleanPreference(P_AUTOARRANGE))
+			if(PlugIn.getPreferenceSnapshot().isAutoArrange())
 			{
 				DiagramEditor.getActiveEditor().execute(new AutoArrangeCommand());
 			}
@@ -0,0 +1,150 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.model.commands;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.buffalo.cse.green.editor.DiagramEditor;
+import edu.buffalo.cse.green.editor.model.RelationshipModel;
+import edu.buffalo.cse.green.editor.model.TypeModel;
+import edu.buffalo.cse.green.relationships.RelationshipBatchRemover;
+
+/**
+ * Deletes one or more relationships from the code. All removals that target
+ * the same compilation unit are applied in a single rewrite and save, and the
+ * whole deletion is undone as one command. Undo is refused once any of the
+ * modified compilation units has been edited after the deletion.
+ */
+public class DeleteRelationshipsCommand extends DeleteCommand {
+	private DiagramEditor _editor;
+
+	private List<RelationshipModel> _rModels;
+
+	private RelationshipBatchRemover _remover;
+
+	public DeleteRelationshipsCommand(DiagramEditor editor,
+			List<RelationshipModel> rModels) {
+		super();
+		_editor = editor;
+		_rModels = rModels;
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.commands.DeleteCommand#doDelete()
+	 */
+	public void doDelete() {
+		_remover = new RelationshipBatchRemover();
+
+		for (RelationshipModel rModel : _rModels) {
+			_remover.add(rModel);
+		}
+
+		_remover.run();
+		updateSourceModels();
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.commands.DeleteCommand#getDeleteMessage()
+	 */
+	public String getDeleteMessage() {
+		for (RelationshipModel rModel : _rModels) {
+			if (rModel.getSourceType().isBinary()) {
+				return null;
+			}
+		}
+
+		if (_rModels.size() == 1) {
+			return "Are you sure you want to delete that relationship?";
+		}
+
+		return "Are you sure you want to delete those " + _rModels.size()
+				+ " relationships?";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.editor.model.commands.DeleteCommand#canUndo()
+	 */
+	public boolean canUndo() {
+		return _remover != null && _remover.canUndo();
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.Command#undo()
+	 */
+	public void undo() {
+		if (_remover.undo()) {
+			updateSourceModels();
+		}
+	}
+
+	/**
+	 * @see org.eclipse.gef.commands.Command#redo()
+	 */
+	public void redo() {
+		_rModels = findCurrentModels();
+		
+		if (!_rModels.isEmpty()) {
+			doDelete();
+		}
+	}
+
+	/**
+	 * Undoing the deletion refreshes the editor, which replaces the
+	 * relationship models; finds the models that now stand for the deleted
+	 * relationships.
+	 * 
+	 * @return The current models of the relationships deleted by this
+	 * command.
+	 */
+	private List<RelationshipModel> findCurrentModels() {
+		List<RelationshipModel> current = new ArrayList<RelationshipModel>();
+
+		for (RelationshipModel rModel :
+				_editor.getRootModel().getRelationships()) {
+			for (RelationshipModel deleted : _rModels) {
+				if (rModel.getPartClass() == deleted.getPartClass()
+						&& rModel.getSourceType().equals(
+								deleted.getSourceType())
+						&& rModel.getTargetType().equals(
+								deleted.getTargetType())) {
+					current.add(rModel);
+					break;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	/**
+	 * Refreshes the editor once and updates the members of every source type
+	 * touched by the command.
+	 */
+	private void updateSourceModels() {
+		Set<TypeModel> sources = new HashSet<TypeModel>();
+
+		for (RelationshipModel rModel : _rModels) {
+			if (rModel.getSourceModel() != null) {
+				sources.add(rModel.getSourceModel());
+			}
+		}
+
+		_editor.refresh();
+
+		for (TypeModel source : sources) {
+			source.updateMembers();
+			source.forceRefesh();
+		}
+	}
+}
@@ -10,6 +10,7 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -43,20 +44,23 @@ public class DeleteTypeCommand extends DeleteCommand {
 	public void doDelete() {
 		RootModel root = _typeModel.getRootModel();
 
-		//Remove relationships first
-		List<RelationshipModel> rels = root.getRelationships();
+		//Remove relationships first, all in a single batch so that each
+		//affected compilation unit is only rewritten and saved once
+		IType t = _typeModel.getType();
+		List<RelationshipModel> rels = new ArrayList<RelationshipModel>();
 		
-		//No iterators here due to CME's (ConcurrentModificationException)
-		//Removal of relationships causes modifications to the rels list.
-		for(int i = 0; i < rels.size(); i++) {
-			IType t = _typeModel.getType();
-			RelationshipModel r = rels.get(i);
+		for (RelationshipModel r : root.getRelationships()) {
 			if(r.getSourceType() == t || r.getTargetType() == t) {
-				DeleteCommand drc = r.getDeleteCommand(DiagramEditor.findProjectEditor(root.getProject()));
-				drc.suppressMessage(true);
-				drc.execute();
+				rels.add(r);
 			}
 		}
+		
+		if (!rels.isEmpty()) {
+			DeleteCommand drc = new DeleteRelationshipsCommand(
+					DiagramEditor.findProjectEditor(root.getProject()), rels);
+			drc.suppressMessage(true);
+			drc.execute();
+		}
 
 		
 		_typeModel.removeChildren(); // remove fields/methods
@@ -65,6 +65,7 @@ public class IncrementalExploreCommand extends Command {
 		RootModel root = _editor.getRootModel();
 		Set<RelationshipModel> relationships =
 			root.getRelationshipCache().getRelationships(type);
+		List<TypeModel> added = new ArrayList<TypeModel>();
 		
 		for (RelationshipModel rModel : relationships) {
 			// if the relationship type is hidden, abort
@@ -77,9 +78,12 @@ public class IncrementalExploreCommand extends Command {
 			// if the type is not in the editor, load it in
 			if (_relTypes.contains(rModel.getRelationshipGroup())) {
 				if (root.getModelFromType(tType) == null) {
-					Command command = new AddJavaElementCommand(_editor, tType);
+					AddJavaElementCommand command =
+						new AddJavaElementCommand(_editor, tType);
+					command.setAutoArrange(false);
 					_commands.add(command);
 					command.execute();
+					added.addAll(command.getAddedModels());
 				}
 			}
 		}
@@ -87,6 +91,12 @@ public class IncrementalExploreCommand extends Command {
 		// refresh the diagram if exploration found something
 		// otherwise, display a dialog to inform the user
 		if (_commands.size() > 0) {
+			if (PlugIn.getPreferenceSnapshot().isAutoArrange() && !added.isEmpty()) {
+				Command command = new AutoArrangeCommand(added, false);
+				_commands.add(command);
+				command.execute();
+			}
+			
 			_editor.refresh();
 		}
 		else if(!_suppressWarning){
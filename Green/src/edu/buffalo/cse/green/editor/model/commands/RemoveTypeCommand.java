@@ -10,8 +10,6 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
-
 import org.eclipse.gef.commands.Command;
 
 import edu.buffalo.cse.green.PlugIn;
@@ -37,7 +35,7 @@ public class RemoveTypeCommand extends Command {
 	public void execute() {
 		_typeModel.removeFromParent();
 		
-		if(PlugIn.getBooleanPreference(P_AUTOARRANGE))
+		if(PlugIn.getPreferenceSnapshot().isAutoArrange())
 		{
 			DiagramEditor.getActiveEditor().execute(new AutoArrangeCommand());
 		}
@@ -10,14 +10,11 @@
 
 package edu.buffalo.cse.green.editor.model.commands;
 
-import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_GRID_SIZE;
-
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.commands.Command;
 
-import edu.buffalo.cse.green.GreenException;
 import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.model.AbstractModel;
 
@@ -64,15 +61,7 @@ public class SetConstraintCommand extends Command {
 	 * @param r - The constraint.
 	 */
 	public void setBounds(Rectangle r) {
-		String sGridSize = PlugIn.getPreference(P_GRID_SIZE);
-		int gridSize = 1;
-		
-		try {
-			gridSize = Integer.parseInt(sGridSize);
-			if (gridSize < 1) gridSize = 1;
-		} catch (NumberFormatException e) {
-			GreenException.warn("Cannot parse grid size: " + sGridSize);
-		}
+		int gridSize = PlugIn.getPreferenceSnapshot().getGridSize();
 		
 		if (gridSize != 1) {
 			int x = r.getLocation().x + gridSize / 2;
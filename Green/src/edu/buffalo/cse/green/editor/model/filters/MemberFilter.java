@@ -31,6 +31,7 @@ public class MemberFilter {
 	private Set<Integer> _type;
 	private MemberVisibility _visibility;
 	private String _nameMatcher;
+	private Pattern _pattern;
 	private int _enabled;
 	
 	public MemberFilter(int enabled, boolean types, boolean fields,
@@ -67,24 +68,11 @@ public class MemberFilter {
 				return false;
 			}
 			
-			IType type;
-			
-			String memberName = member.getElementName();
-			
-			if (member.getElementType() == IJavaElement.TYPE) {
-				type = (IType) member;
-			} else {
-				type = member.getDeclaringType();
-				memberName = type.getElementName() + "." + memberName;
-			}
-			
-			String packageName = type.getPackageFragment().getElementName();
-			String qualifiedName = packageName + "."
-			+ type.getCompilationUnit().getElementName() + "." + memberName;
-			
+			// the name is only built when the kind and visibility match
             boolean condition = (_type.contains(member.getElementType())
                     && _visibility.match(member)
-                    && Pattern.matches(_nameMatcher, qualifiedName));
+                    && getPattern().matcher(getQualifiedName(member))
+                    		.matches());
 			
 			if (_enabled % 2 == 0) {
 				return condition;
@@ -98,6 +86,46 @@ public class MemberFilter {
 		return false;
 	}
 	
+	/**
+	 * @return The compiled name pattern, compiled on first use.
+	 */
+	private Pattern getPattern() {
+		if (_pattern == null) {
+			_pattern = Pattern.compile(_nameMatcher);
+		}
+		
+		return _pattern;
+	}
+	
+	/**
+	 * @param member - The member.
+	 * @return The name the pattern is matched against: the package, the
+	 * compilation unit, the declaring type for non-types, and the member.
+	 */
+	private static String getQualifiedName(IMember member) {
+		IType type;
+		StringBuilder name = new StringBuilder();
+		
+		if (member.getElementType() == IJavaElement.TYPE) {
+			type = (IType) member;
+		} else {
+			type = member.getDeclaringType();
+		}
+		
+		name.append(type.getPackageFragment().getElementName());
+		name.append('.');
+		name.append(type.getCompilationUnit().getElementName());
+		name.append('.');
+		
+		if (type != member) {
+			name.append(type.getElementName());
+			name.append('.');
+		}
+		
+		name.append(member.getElementName());
+		return name.toString();
+	}
+	
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -0,0 +1,175 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.model.filters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+import edu.buffalo.cse.green.GreenException;
+
+/**
+ * The filters stored in one value of the member filter preference. The
+ * verdict for each member is remembered, so that refreshing a diagram doesn't
+ * match every member against every filter again. A new set is made whenever
+ * the preference changes, which discards the remembered verdicts. Verdicts are
+ * forgotten when the members' models are released, and only the most
+ * recently used <code>MAX_VERDICTS</code> are kept in any case.
+ */
+public class MemberFilterSet {
+	/**
+	 * The most verdicts remembered at once.
+	 */
+	public static final int MAX_VERDICTS = 10000;
+
+	/**
+	 * The preference value the filters were read from.
+	 */
+	private String _value;
+
+	private List<MemberFilter> _filters;
+
+	/**
+	 * Maps a member to its verdict, in order of use.
+	 */
+	private Map<IMember, Verdict> _verdicts;
+
+	/**
+	 * @param value - The value of the member filter preference.
+	 */
+	public MemberFilterSet(String value) {
+		_value = value;
+		_filters = Collections.unmodifiableList(parse(value));
+		_verdicts = new LinkedHashMap<IMember, Verdict>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(
+					Map.Entry<IMember, Verdict> eldest) {
+				return size() > MAX_VERDICTS;
+			}
+		};
+	}
+
+	/**
+	 * @param value - The value of the member filter preference.
+	 * @return New instances of the filters stored in the value.
+	 */
+	public static List<MemberFilter> parse(String value) {
+		List<MemberFilter> filters = new ArrayList<MemberFilter>();
+
+		try {
+			StringTokenizer tokens = new StringTokenizer(value, "|");
+
+			while (tokens.hasMoreTokens()) {
+				String token = tokens.nextToken();
+				filters.add(new MemberFilter(token));
+			}
+		} catch (Exception e) {
+			GreenException.warn("problem loading filters");
+		}
+
+		return filters;
+	}
+
+	/**
+	 * @return The preference value the filters were read from.
+	 */
+	public String getValue() {
+		return _value;
+	}
+
+	/**
+	 * @return The filters in this set; they must not be changed.
+	 */
+	public List<MemberFilter> getFilters() {
+		return _filters;
+	}
+
+	/**
+	 * @param member - The member.
+	 * @return true if any of the filters filters out the member, false
+	 * otherwise.
+	 */
+	public synchronized boolean isFiltered(IMember member) {
+		if (_filters.isEmpty()) return false;
+
+		int flags, parentFlags;
+
+		try {
+			// the visibility filters look at the modifiers of the member and
+			// whether its parent is an interface
+			IJavaElement parent = member.getParent();
+			flags = member.getFlags();
+			parentFlags = (parent instanceof IType)
+					? ((IType) parent).getFlags() : 0;
+		} catch (JavaModelException e) {
+			// the member doesn't exist; let the filters decide
+			return matches(member);
+		}
+
+		Verdict verdict = _verdicts.get(member);
+
+		if (verdict == null || verdict._flags != flags
+				|| verdict._parentFlags != parentFlags) {
+			verdict = new Verdict(flags, parentFlags, matches(member));
+			_verdicts.put(member, verdict);
+		}
+
+		return verdict._filtered;
+	}
+
+	/**
+	 * Forgets the verdict of a member whose model was released.
+	 *
+	 * @param member - The member.
+	 */
+	public synchronized void forget(IMember member) {
+		_verdicts.remove(member);
+	}
+
+	/**
+	 * @param member - The member.
+	 * @return true if any of the filters filters out the member, false
+	 * otherwise.
+	 */
+	private boolean matches(IMember member) {
+		for (MemberFilter filter : _filters) {
+			if (filter.isFiltered(member)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The verdict of a member, along with the modifiers it depends on.
+	 */
+	private static class Verdict {
+		private int _flags;
+
+		private int _parentFlags;
+
+		private boolean _filtered;
+
+		public Verdict(int flags, int parentFlags, boolean filtered) {
+			_flags = flags;
+			_parentFlags = parentFlags;
+			_filtered = filtered;
+		}
+	}
+}
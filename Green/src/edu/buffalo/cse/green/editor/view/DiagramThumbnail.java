@@ -0,0 +1,285 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.editor.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.draw2d.BufferedGraphicsSource;
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.FigureCanvas;
+import org.eclipse.draw2d.FreeformFigure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.LightweightSystem;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.ScaledGraphics;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+
+/**
+ * A downsampled picture of a diagram, kept in a bitmap. The figures that
+ * repaint themselves in the editor mark the parts of the bitmap that are out
+ * of date, and only those parts are painted again when the picture is next
+ * asked for; off-screen changes are included, since the regions are recorded
+ * before they are clipped to the editor's viewport.
+ */
+public class DiagramThumbnail {
+	/**
+	 * The largest width or height of the bitmap, in pixels.
+	 */
+	public static final int MAX_SIZE = 400;
+
+	private IFigure _source;
+
+	private Image _image;
+
+	/**
+	 * The bounds of the source figure the bitmap was drawn for.
+	 */
+	private Rectangle _drawnBounds;
+
+	private double _scale;
+
+	/**
+	 * The part of the source figure that has changed since it was last drawn,
+	 * or <code>null</code> if the bitmap is up to date.
+	 */
+	private Rectangle _dirty;
+
+	private List<ThumbnailListener> _listeners;
+
+	/**
+	 * Creates a thumbnail of the given figure and starts tracking the regions
+	 * of it that the canvas repaints.
+	 *
+	 * @param canvas - The canvas that shows the figure.
+	 * @param source - The figure to draw, which must be shown in the canvas.
+	 */
+	public DiagramThumbnail(FigureCanvas canvas, IFigure source) {
+		_source = source;
+		_listeners = new ArrayList<ThumbnailListener>();
+
+		LightweightSystem lws = canvas.getLightweightSystem();
+		DirtyRegionTracker tracker = new DirtyRegionTracker();
+		lws.setUpdateManager(tracker);
+		tracker.setGraphicsSource(new BufferedGraphicsSource(canvas));
+	}
+
+	/**
+	 * @param listener - Notified when the bitmap becomes out of date.
+	 */
+	public void addListener(ThumbnailListener listener) {
+		_listeners.add(listener);
+	}
+
+	/**
+	 * @param listener - The listener to remove.
+	 */
+	public void removeListener(ThumbnailListener listener) {
+		_listeners.remove(listener);
+	}
+
+	/**
+	 * Brings the out of date parts of the bitmap up to date and returns it.
+	 * The image belongs to the thumbnail and must not be disposed.
+	 *
+	 * @return The picture of the diagram, or <code>null</code> if the
+	 * thumbnail was disposed.
+	 */
+	public Image getImage() {
+		if (_source == null) return null;
+
+		Rectangle bounds = getSourceBounds();
+
+		if (_image == null || !bounds.equals(_drawnBounds)) {
+			resize(bounds);
+			_dirty = bounds.getCopy();
+		}
+
+		if (_dirty != null) {
+			repaint(_dirty.intersect(bounds));
+			_dirty = null;
+		}
+
+		return _image;
+	}
+
+	/**
+	 * @return The ratio of the bitmap's size to the size of the diagram.
+	 */
+	public double getScale() {
+		return _scale;
+	}
+
+	/**
+	 * @return The bounds of the diagram, which the bitmap shows.
+	 */
+	public Rectangle getSourceBounds() {
+		if (_source instanceof FreeformFigure) {
+			return ((FreeformFigure) _source).getFreeformExtent().getCopy();
+		}
+
+		return _source.getBounds().getCopy();
+	}
+
+	/**
+	 * Frees the bitmap and stops tracking the source figure.
+	 */
+	public void dispose() {
+		_source = null;
+		_dirty = null;
+
+		if (_image != null) {
+			_image.dispose();
+			_image = null;
+		}
+
+		_listeners.clear();
+	}
+
+	/**
+	 * Makes a new, blank bitmap whose scale fits the given bounds.
+	 *
+	 * @param bounds - The bounds of the source figure.
+	 */
+	private void resize(Rectangle bounds) {
+		int width = Math.max(1, bounds.width);
+		int height = Math.max(1, bounds.height);
+		_scale = Math.min(1.0, Math.min((double) MAX_SIZE / width,
+				(double) MAX_SIZE / height));
+
+		if (_image != null) {
+			_image.dispose();
+		}
+
+		_image = new Image(null, Math.max(1, (int) Math.ceil(width * _scale)),
+				Math.max(1, (int) Math.ceil(height * _scale)));
+		_drawnBounds = bounds;
+	}
+
+	/**
+	 * Paints the given region of the source figure into the bitmap.
+	 *
+	 * @param region - The region, in the source figure's coordinates.
+	 */
+	private void repaint(Rectangle region) {
+		if (region.isEmpty()) return;
+
+		GC gc = new GC(_image);
+		SWTGraphics swtGraphics = new SWTGraphics(gc);
+		ScaledGraphics graphics = new ScaledGraphics(swtGraphics);
+
+		try {
+			graphics.scale(_scale);
+			graphics.translate(-_drawnBounds.x, -_drawnBounds.y);
+			graphics.clipRect(region);
+			graphics.setBackgroundColor(ColorConstants.white);
+			graphics.fillRectangle(region);
+			_source.paint(graphics);
+		} finally {
+			graphics.dispose();
+			swtGraphics.dispose();
+			gc.dispose();
+		}
+	}
+
+	/**
+	 * Marks a region of a figure as out of date if the figure is part of the
+	 * source figure.
+	 *
+	 * @param figure - The figure that is being repainted.
+	 * @param region - The region, in the figure's coordinates.
+	 */
+	private void markDirty(IFigure figure, Rectangle region) {
+		if (_source == null || region.isEmpty() || !isSourceFigure(figure)) {
+			return;
+		}
+
+		figure.translateToAbsolute(region);
+		_source.translateToRelative(region);
+
+		// antialiased edges spill over into the neighboring pixels
+		int margin = (int) Math.ceil(1 / Math.max(_scale, 0.01));
+		region.expand(margin, margin);
+
+		if (_dirty == null) {
+			_dirty = region;
+		} else {
+			_dirty.union(region);
+		}
+	}
+
+	/**
+	 * @param figure - The figure.
+	 * @return true if the figure is the source figure or one of its
+	 * descendants, false otherwise.
+	 */
+	private boolean isSourceFigure(IFigure figure) {
+		for (IFigure walker = figure; walker != null;
+				walker = walker.getParent()) {
+			if (walker == _source) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Notifies the listeners that the bitmap is out of date.
+	 */
+	private void fireThumbnailChanged() {
+		for (ThumbnailListener listener :
+				new ArrayList<ThumbnailListener>(_listeners)) {
+			listener.thumbnailChanged(this);
+		}
+	}
+
+	/**
+	 * Listens for changes to a thumbnail.
+	 */
+	public interface ThumbnailListener {
+		/**
+		 * Called after the editor repaints a part of the diagram that the
+		 * thumbnail shows. The thumbnail is only brought up to date when
+		 * <code>getImage()</code> is called.
+		 *
+		 * @param thumbnail - The thumbnail.
+		 */
+		public void thumbnailChanged(DiagramThumbnail thumbnail);
+	}
+
+	/**
+	 * The canvas' update manager, which also records the dirty regions in
+	 * the thumbnail.
+	 */
+	private class DirtyRegionTracker extends DeferredUpdateManager {
+		/**
+		 * @see org.eclipse.draw2d.DeferredUpdateManager#addDirtyRegion(org.eclipse.draw2d.IFigure, int, int, int, int)
+		 */
+		public synchronized void addDirtyRegion(IFigure figure, int x, int y,
+				int w, int h) {
+			super.addDirtyRegion(figure, x, y, w, h);
+			markDirty(figure, new Rectangle(x, y, w, h));
+		}
+
+		/**
+		 * @see org.eclipse.draw2d.DeferredUpdateManager#repairDamage()
+		 */
+		protected void repairDamage() {
+			super.repairDamage();
+
+			if (_dirty != null) {
+				fireThumbnailChanged();
+			}
+		}
+	}
+}
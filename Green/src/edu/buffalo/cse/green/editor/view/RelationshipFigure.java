@@ -18,8 +18,11 @@ import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.PolylineConnection;
 
+import edu.buffalo.cse.green.PlugIn;
+
 /**
- * A figure that represents a relationship.
+ * A figure that represents a relationship. When the diagram is zoomed out far
+ * enough, only the line is painted, without its decorations and labels.
  * 
  * @author hk47
  */
@@ -32,7 +35,10 @@ public class RelationshipFigure extends PolylineConnection {
 	}
 	
 	public void paint(Graphics g) {
-		g.setAntialias( org.eclipse.swt.SWT.ON );
+		// plain lines are drawn without antialiasing
+		g.setAntialias(g.getAbsoluteScale()
+				>= PlugIn.getPreferenceSnapshot().getBoxesZoom()
+				? org.eclipse.swt.SWT.ON : org.eclipse.swt.SWT.OFF);
 		if( !g.getClass( ).getPackage( ).getName( ).equals( "org.eclipse.draw2d" ) && getLineWidth( ) == 0 ) {
 			setLineWidth( 1 );
 			super.paint( g );
@@ -40,6 +46,16 @@ public class RelationshipFigure extends PolylineConnection {
 		} else super.paint( g );
 	}
 
+	/**
+	 * @see org.eclipse.draw2d.Figure#paintChildren(org.eclipse.draw2d.Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		if (graphics.getAbsoluteScale()
+				>= PlugIn.getPreferenceSnapshot().getBoxesZoom()) {
+			super.paintChildren(graphics);
+		}
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.IFigure#addNotify()
 	 */
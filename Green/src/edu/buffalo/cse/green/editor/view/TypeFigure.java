@@ -11,10 +11,18 @@
 package edu.buffalo.cse.green.editor.view;
 
 import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.ToolbarLayout;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import edu.buffalo.cse.green.PlugIn;
+import edu.buffalo.cse.green.preferences.PreferenceSnapshot;
 
 /**
- * The figure that corresponds to a <code>TypePart</code> in the editor.
+ * The figure that corresponds to a <code>TypePart</code> in the editor. When
+ * the diagram is zoomed out far enough that members can't be read, only the
+ * name compartment is painted, and further out the type is a plain box.
  * 
  * @author bcmartin
  */
@@ -34,6 +42,30 @@ public class TypeFigure extends Figure implements ITypeFigure {
 		_relLabel.setOpaque(true);
 	}
 
+	/**
+	 * @see org.eclipse.draw2d.Figure#paintChildren(org.eclipse.draw2d.Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		PreferenceSnapshot preferences = PlugIn.getPreferenceSnapshot();
+		double scale = graphics.getAbsoluteScale();
+		
+		if (scale >= preferences.getNamesZoom()) {
+			super.paintChildren(graphics);
+		} else if (scale >= preferences.getBoxesZoom()
+				&& !getChildren().isEmpty()) {
+			// the name compartment comes first
+			IFigure child = (IFigure) getChildren().get(0);
+			
+			if (child.isVisible()
+					&& child.intersects(graphics.getClip(new Rectangle()))) {
+				graphics.pushState();
+				graphics.clipRect(child.getBounds());
+				child.paint(graphics);
+				graphics.popState();
+			}
+		}
+	}
+
 	/**
 	 * @see edu.buffalo.cse.green.editor.view.ITypeFigure#getNameLabel()
 	 */
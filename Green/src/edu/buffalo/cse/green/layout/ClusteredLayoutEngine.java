@@ -0,0 +1,309 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import static edu.buffalo.cse.green.layout.ForceDirectedLayoutEngine.CONVERGENCE;
+import static edu.buffalo.cse.green.layout.ForceDirectedLayoutEngine.ITERATIONS;
+import static edu.buffalo.cse.green.layout.ForceDirectedLayoutEngine.MIN_ITERATIONS;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Lays out each package of a diagram on its own and then arranges the
+ * packages. The packages are laid out concurrently with the
+ * <code>ForceDirectedLayout</code>, so the layout takes about as long as the
+ * largest package does. The packages are then arranged by the same layout,
+ * with one vertex per package, sized like the package's layout and connected
+ * to the other packages by an edge weighted by the number of relationships
+ * between them. Finally, packages that overlap are pushed apart.
+ *
+ * Since whole packages move, placing types next to pinned ones is left to
+ * the <code>ForceDirectedLayoutEngine</code>.
+ */
+public class ClusteredLayoutEngine implements ILayoutEngine {
+	/**
+	 * The space kept between two packages.
+	 */
+	public static final int CLUSTER_GAP = 100;
+
+	/**
+	 * The maximum number of passes made to push overlapping packages apart.
+	 */
+	public static final int SEPARATION_PASSES = 100;
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#getLabel()
+	 */
+	public String getLabel() {
+		return "Clustered by Package";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#layout(edu.buffalo.cse.green.layout.LayoutGraph, long, org.eclipse.core.runtime.IProgressMonitor, edu.buffalo.cse.green.layout.ILayoutListener)
+	 */
+	public int[][] layout(LayoutGraph graph, long budget,
+			IProgressMonitor monitor, ILayoutListener listener) {
+		if (graph.hasPinnedVertices()) {
+			return new ForceDirectedLayoutEngine().layout(graph, budget,
+					monitor, listener);
+		}
+
+		long deadline = System.currentTimeMillis() + budget;
+		LayoutGraph[] clusters = graph.split();
+		int[][][] layouts = new int[clusters.length][][];
+
+		monitor.beginTask(getLabel(), clusters.length + 1);
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors());
+
+		try {
+			List<Future<int[][]>> results = new ArrayList<Future<int[][]>>();
+
+			for (LayoutGraph cluster : clusters) {
+				results.add(executor.submit(new ClusterLayout(cluster,
+						deadline, monitor)));
+			}
+
+			for (int c = 0; c < clusters.length; c++) {
+				layouts[c] = results.get(c).get();
+				monitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			monitor.done();
+
+			return getPositions(graph);
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			monitor.done();
+
+			return getPositions(graph);
+		} finally {
+			executor.shutdown();
+		}
+
+		int[][] origins = arrange(graph, clusters, layouts, deadline, monitor);
+		int[][] positions = new int[graph.getVertexCount()][];
+		int[] next = new int[clusters.length];
+
+		for (int v = 0; v < positions.length; v++) {
+			int c = graph.getCluster(v);
+			int[] local = layouts[c][next[c]++];
+
+			positions[v] = new int[] { origins[c][0] + local[0],
+					origins[c][1] + local[1] };
+		}
+
+		monitor.done();
+
+		return positions;
+	}
+
+	/**
+	 * Arranges the packages.
+	 *
+	 * @param graph - The graph.
+	 * @param clusters - The graph of each package.
+	 * @param layouts - The layout of each package.
+	 * @param deadline - The time the layout must be done by.
+	 * @param monitor - The monitor to check for cancellation.
+	 * @return The upper-left corner of each package, indexed by package.
+	 */
+	private int[][] arrange(LayoutGraph graph, LayoutGraph[] clusters,
+			int[][][] layouts, long deadline, IProgressMonitor monitor) {
+		int count = clusters.length;
+		int[] width = new int[count];
+		int[] height = new int[count];
+
+		for (int c = 0; c < count; c++) {
+			for (int v = 0; v < layouts[c].length; v++) {
+				width[c] = Math.max(width[c], layouts[c][v][0]
+						+ clusters[c].getWidth(v));
+				height[c] = Math.max(height[c], layouts[c][v][1]
+						+ clusters[c].getHeight(v));
+			}
+
+			width[c] += CLUSTER_GAP;
+			height[c] += CLUSTER_GAP;
+		}
+
+		// one edge per pair of packages, weighted by their relationships
+		Map<Long, Integer> ids = new HashMap<Long, Integer>();
+		List<Float> weights = new ArrayList<Float>();
+		List<Long> pairs = new ArrayList<Long>();
+
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			int s = graph.getCluster(graph.getSource(e));
+			int t = graph.getCluster(graph.getTarget(e));
+			if (s == t) continue;
+
+			Long pair = ((long) Math.min(s, t) << 32) | Math.max(s, t);
+			Integer edge = ids.get(pair);
+
+			if (edge == null) {
+				ids.put(pair, weights.size());
+				weights.add(graph.getWeight(e));
+				pairs.add(pair);
+			} else {
+				weights.set(edge, weights.get(edge) + graph.getWeight(e));
+			}
+		}
+
+		int[] sources = new int[pairs.size()];
+		int[] targets = new int[pairs.size()];
+		float[] weight = new float[pairs.size()];
+
+		for (int e = 0; e < sources.length; e++) {
+			sources[e] = (int) (pairs.get(e) >>> 32);
+			targets[e] = pairs.get(e).intValue();
+			weight[e] = weights.get(e);
+		}
+
+		LayoutGraph packages = new LayoutGraph(width, height, sources,
+				targets, weight);
+		int[][] centers = new ClusterLayout(packages, deadline, monitor)
+				.call();
+		float[] left = new float[count];
+		float[] top = new float[count];
+
+		for (int c = 0; c < count; c++) {
+			left[c] = centers[c][0] - width[c] / 2.0f;
+			top[c] = centers[c][1] - height[c] / 2.0f;
+		}
+
+		separate(left, top, width, height);
+		monitor.worked(1);
+
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+
+		for (int c = 0; c < count; c++) {
+			minX = Math.min(minX, left[c]);
+			minY = Math.min(minY, top[c]);
+		}
+
+		int[][] origins = new int[count][2];
+
+		for (int c = 0; c < count; c++) {
+			origins[c][0] = Math.round(left[c] - minX);
+			origins[c][1] = Math.round(top[c] - minY);
+		}
+
+		return origins;
+	}
+
+	/**
+	 * Pushes overlapping rectangles apart along the axis they overlap least
+	 * on, until none overlap or <code>SEPARATION_PASSES</code> passes have
+	 * been made.
+	 *
+	 * @param left - The left edges of the rectangles.
+	 * @param top - The top edges of the rectangles.
+	 * @param width - The widths of the rectangles.
+	 * @param height - The heights of the rectangles.
+	 */
+	private void separate(float[] left, float[] top, int[] width,
+			int[] height) {
+		int count = left.length;
+		boolean overlap = true;
+
+		for (int pass = 0; pass < SEPARATION_PASSES && overlap; pass++) {
+			overlap = false;
+
+			for (int i = 0; i < count; i++) {
+				for (int j = i + 1; j < count; j++) {
+					float dx = Math.min(left[i] + width[i], left[j] + width[j])
+							- Math.max(left[i], left[j]);
+					float dy = Math.min(top[i] + height[i], top[j] + height[j])
+							- Math.max(top[i], top[j]);
+
+					if (dx <= 0 || dy <= 0) continue;
+
+					overlap = true;
+
+					if (dx < dy) {
+						float shift = (left[i] < left[j] ? dx : -dx) / 2;
+						left[i] -= shift;
+						left[j] += shift;
+					} else {
+						float shift = (top[i] < top[j] ? dy : -dy) / 2;
+						top[i] -= shift;
+						top[j] += shift;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the positions the vertices of a graph start from.
+	 *
+	 * @param graph - The graph.
+	 * @return The positions, indexed by vertex.
+	 */
+	private int[][] getPositions(LayoutGraph graph) {
+		int[][] positions = new int[graph.getVertexCount()][2];
+
+		for (int v = 0; v < positions.length; v++) {
+			positions[v][0] = graph.getX(v);
+			positions[v][1] = graph.getY(v);
+		}
+
+		return positions;
+	}
+
+	/**
+	 * Lays out a single graph in the calling thread.
+	 */
+	private static class ClusterLayout implements Callable<int[][]> {
+		private LayoutGraph _graph;
+
+		private long _deadline;
+
+		private IProgressMonitor _monitor;
+
+		public ClusterLayout(LayoutGraph graph, long deadline,
+				IProgressMonitor monitor) {
+			_graph = graph;
+			_deadline = deadline;
+			_monitor = monitor;
+		}
+
+		/**
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		public int[][] call() {
+			ForceDirectedLayout layout = new ForceDirectedLayout(_graph,
+					ITERATIONS, null, 1);
+
+			for (int i = 1; i <= ITERATIONS; i++) {
+				float movement = layout.iterate();
+
+				if (_monitor.isCanceled()
+						|| System.currentTimeMillis() > _deadline
+						|| (i > MIN_ITERATIONS && movement < CONVERGENCE)) {
+					break;
+				}
+			}
+
+			return layout.getPositions(true);
+		}
+	}
+}
@@ -0,0 +1,734 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Arranges a <code>LayoutGraph</code> by minimizing the same energy as the
+ * CCVisu minimizer with the settings auto-arrange uses: an attraction
+ * exponent of 3, a repulsion exponent of 1 and a gravitation factor of 2.001.
+ * Each vertex repels the others in proportion to its weighted degree plus a
+ * share of its area, and each edge attracts its ends in proportion to its
+ * weight.
+ *
+ * Unlike CCVisu, which moves one vertex at a time, every iteration moves all
+ * free vertices at once based on the positions of the previous iteration.
+ * This lets the vertices be split into ranges that are processed
+ * concurrently. Repulsion is approximated with a quadtree rebuilt at the
+ * start of each iteration, and positions are kept in <code>float</code>
+ * arrays. Each vertex is moved towards the minimum of its energy found by a
+ * line search along its Newton step, so an iteration takes O(V log V + E)
+ * time spread over the available threads.
+ *
+ * Coordinates are in layout units; a unit spans <code>SCALE</code> pixels.
+ */
+public class ForceDirectedLayout {
+	/**
+	 * The number of pixels a layout unit spans.
+	 */
+	public static final float SCALE = 200.0f;
+
+	/**
+	 * The factor of the gravitation towards the barycenter.
+	 */
+	public static final float GRAVITATION = 2.001f;
+
+	/**
+	 * The mass of a vertex per square pixel of its area.
+	 */
+	public static final float AREA_MASS = 1 / 20000.0f;
+
+	/**
+	 * The share of its best move a vertex makes. Since all vertices move at
+	 * once, full moves overshoot and the layout keeps oscillating.
+	 */
+	public static final float DAMPING = 0.5f;
+
+	/**
+	 * The number of ranges the vertices are split into per thread, so that
+	 * threads that finish early can pick up more work.
+	 */
+	public static final int RANGES_PER_THREAD = 4;
+
+	/**
+	 * The factors the repulsion is varied by during all but the last
+	 * <code>SETTLING_ITERATIONS</code> iterations, which helps the layout
+	 * escape local minima.
+	 */
+	private static final float[] PULSE = { 0.95f, 0.9f, 0.85f, 0.8f, 0.75f,
+			0.8f, 0.85f, 0.9f, 0.95f, 1.0f, 1.1f, 1.2f, 1.3f, 1.4f, 1.5f,
+			1.4f, 1.3f, 1.2f, 1.1f, 1.0f };
+
+	/**
+	 * The number of final iterations run with the unvaried repulsion.
+	 */
+	public static final int SETTLING_ITERATIONS = 20;
+
+	private int _size;
+
+	private int _iterations;
+
+	private int _iteration;
+
+	private float[] _x, _y, _nx, _ny;
+
+	private float[] _mass;
+
+	private boolean[] _pinned;
+
+	private int _free;
+
+	private int[] _start, _adjacent;
+
+	private float[] _weight;
+
+	private float _repulsion, _finalRepulsion;
+
+	private float _baryX, _baryY;
+
+	private QuadTree _tree = new QuadTree();
+
+	private ExecutorService _executor;
+
+	private List<Callable<Float>> _tasks;
+
+	/**
+	 * Prepares the layout of the given graph.
+	 *
+	 * @param graph - The graph.
+	 * @param iterations - The number of iterations the layout is planned for;
+	 * the repulsion only settles towards the end.
+	 * @param executor - The executor the vertex ranges are processed by, or
+	 * <code>null</code> to move all vertices in the calling thread.
+	 * @param threads - The number of threads of the executor.
+	 */
+	public ForceDirectedLayout(LayoutGraph graph, int iterations,
+			ExecutorService executor, int threads) {
+		_size = graph.getVertexCount();
+		_iterations = iterations;
+		_executor = executor;
+		_x = new float[_size];
+		_y = new float[_size];
+		_nx = new float[_size];
+		_ny = new float[_size];
+		_mass = new float[_size];
+		_pinned = new boolean[_size];
+
+		int edges = graph.getEdgeCount();
+		int[] count = new int[_size];
+		float[] degree = new float[_size];
+		float attraction = 0;
+
+		for (int e = 0; e < edges; e++) {
+			count[graph.getSource(e)]++;
+			count[graph.getTarget(e)]++;
+			degree[graph.getSource(e)] += graph.getWeight(e);
+			degree[graph.getTarget(e)] += graph.getWeight(e);
+			attraction += 2 * graph.getWeight(e);
+		}
+
+		_start = new int[_size + 1];
+
+		for (int v = 0; v < _size; v++) {
+			_start[v + 1] = _start[v] + count[v];
+		}
+
+		int[] next = new int[_size];
+		System.arraycopy(_start, 0, next, 0, _size);
+		_adjacent = new int[2 * edges];
+		_weight = new float[2 * edges];
+
+		for (int e = 0; e < edges; e++) {
+			int s = graph.getSource(e), t = graph.getTarget(e);
+			_weight[next[s]] = _weight[next[t]] = graph.getWeight(e);
+			_adjacent[next[s]++] = t;
+			_adjacent[next[t]++] = s;
+		}
+
+		// vertices that start on top of each other never push apart
+		Random random = new Random(_size);
+		float mass = 0;
+
+		for (int v = 0; v < _size; v++) {
+			_pinned[v] = graph.isPinned(v);
+			_x[v] = graph.getX(v) / SCALE;
+			_y[v] = graph.getY(v) / SCALE;
+
+			if (!_pinned[v]) {
+				_free++;
+				_x[v] += (random.nextFloat() - 0.5f) / 100;
+				_y[v] += (random.nextFloat() - 0.5f) / 100;
+			}
+
+			_mass[v] = Math.max(AREA_MASS, degree[v] + graph.getWidth(v)
+					* graph.getHeight(v) * AREA_MASS);
+			mass += _mass[v];
+		}
+
+		// makes the average length of an edge roughly one unit
+		_finalRepulsion = attraction == 0 ? 1 : attraction / mass;
+		_repulsion = _finalRepulsion;
+
+		int ranges = _executor == null ? 1
+				: Math.min(_size, threads * RANGES_PER_THREAD);
+		_tasks = new ArrayList<Callable<Float>>();
+
+		for (int r = 0; r < ranges; r++) {
+			final int lo = r * _size / ranges;
+			final int hi = (r + 1) * _size / ranges;
+
+			_tasks.add(new Callable<Float>() {
+				public Float call() {
+					return move(lo, hi);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Moves every free vertex once.
+	 *
+	 * @return The average distance, in layout units, the free vertices
+	 * moved.
+	 */
+	public float iterate() {
+		if (_size < 2) return 0;
+
+		_iteration++;
+
+		if (_iteration <= _iterations - SETTLING_ITERATIONS) {
+			float pulse = PULSE[_iteration % PULSE.length];
+			_repulsion = _finalRepulsion * pulse * pulse;
+		} else {
+			_repulsion = _finalRepulsion;
+		}
+
+		_baryX = _baryY = 0;
+
+		for (int v = 0; v < _size; v++) {
+			_baryX += _x[v];
+			_baryY += _y[v];
+		}
+
+		_baryX /= _size;
+		_baryY /= _size;
+		_tree.build(_x, _y, _mass, _size);
+
+		float movement = 0;
+
+		if (_executor == null) {
+			movement = move(0, _size);
+		} else {
+			try {
+				for (Future<Float> result : _executor.invokeAll(_tasks)) {
+					movement += result.get();
+				}
+			} catch (InterruptedException e) {
+				// keep the previous positions
+				Thread.currentThread().interrupt();
+				return 0;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+				return 0;
+			}
+		}
+
+		float[] x = _x, y = _y;
+		_x = _nx;
+		_y = _ny;
+		_nx = x;
+		_ny = y;
+
+		return _free == 0 ? 0 : movement / _free;
+	}
+
+	/**
+	 * Computes the next position of the vertices in the given range.
+	 *
+	 * @param lo - The first vertex.
+	 * @param hi - The vertex after the last one.
+	 * @return The total distance the free vertices of the range moved.
+	 */
+	private float move(int lo, int hi) {
+		float[] dir = new float[2];
+		float limit = _tree.getWidth() / 8;
+		float movement = 0;
+
+		for (int v = lo; v < hi; v++) {
+			_nx[v] = _x[v];
+			_ny[v] = _y[v];
+
+			if (_pinned[v] || !getDirection(v, dir)) continue;
+
+			float length = (float) Math.sqrt(dir[0] * dir[0] + dir[1]
+					* dir[1]);
+
+			if (length > limit) {
+				dir[0] *= limit / length;
+				dir[1] *= limit / length;
+			}
+
+			// line search: try fractions and multiples of the Newton step
+			float dx = dir[0] / 32, dy = dir[1] / 32;
+			float best = getEnergy(v, _x[v], _y[v]);
+			int bestMultiple = 0;
+
+			for (int multiple = 32; multiple >= 1
+					&& (bestMultiple == 0 || bestMultiple / 2 == multiple);
+					multiple /= 2) {
+				float energy = getEnergy(v, _x[v] + dx * multiple, _y[v] + dy
+						* multiple);
+
+				if (energy < best) {
+					best = energy;
+					bestMultiple = multiple;
+				}
+			}
+
+			for (int multiple = 64; multiple <= 128
+					&& bestMultiple == multiple / 2; multiple *= 2) {
+				float energy = getEnergy(v, _x[v] + dx * multiple, _y[v] + dy
+						* multiple);
+
+				if (energy < best) {
+					best = energy;
+					bestMultiple = multiple;
+				}
+			}
+
+			dx *= bestMultiple * DAMPING;
+			dy *= bestMultiple * DAMPING;
+			_nx[v] += dx;
+			_ny[v] += dy;
+			movement += Math.abs(dx) + Math.abs(dy);
+		}
+
+		return movement;
+	}
+
+	/**
+	 * Computes the Newton step of a vertex: the force acting on it divided by
+	 * the second derivative of its energy.
+	 *
+	 * @param v - The vertex.
+	 * @param dir - Receives the step.
+	 * @return False if the vertex should not move.
+	 */
+	private boolean getDirection(int v, float[] dir) {
+		float x = _x[v], y = _y[v];
+		dir[0] = dir[1] = 0;
+
+		// the repulsion energy is linear, so it has no second derivative
+		_tree.addRepulsion(v, x, y, _mass[v] * _repulsion, dir);
+		float dir2 = 0;
+
+		for (int i = _start[v]; i < _start[v + 1]; i++) {
+			int u = _adjacent[i];
+			float dx = _x[u] - x, dy = _y[u] - y;
+			float dist = (float) Math.sqrt(dx * dx + dy * dy);
+
+			float force = _weight[i] * dist;
+
+			dir[0] += dx * force;
+			dir[1] += dy * force;
+			dir2 += 2 * force;
+		}
+
+		float dx = _baryX - x, dy = _baryY - y;
+		float gravity = GRAVITATION * _repulsion * _mass[v]
+				* (float) Math.sqrt(dx * dx + dy * dy);
+
+		dir[0] += dx * gravity;
+		dir[1] += dy * gravity;
+		dir2 += 2 * gravity;
+
+		if (dir2 <= 0) return false;
+
+		dir[0] /= dir2;
+		dir[1] /= dir2;
+
+		return true;
+	}
+
+	/**
+	 * Computes the energy of a vertex at the given position, with every other
+	 * vertex at its current position.
+	 *
+	 * @param v - The vertex.
+	 * @param x - The x coordinate of the vertex.
+	 * @param y - The y coordinate of the vertex.
+	 * @return The energy.
+	 */
+	private float getEnergy(int v, float x, float y) {
+		float energy = -_tree.getRepulsionEnergy(v, x, y, _mass[v]
+				* _repulsion);
+
+		for (int i = _start[v]; i < _start[v + 1]; i++) {
+			int u = _adjacent[i];
+			float dx = _x[u] - x, dy = _y[u] - y;
+			float dist = (float) Math.sqrt(dx * dx + dy * dy);
+
+			energy += _weight[i] * dist * dist * dist / 3;
+		}
+
+		float dx = _baryX - x, dy = _baryY - y;
+		float dist = (float) Math.sqrt(dx * dx + dy * dy);
+		energy += GRAVITATION * _repulsion * _mass[v] * dist * dist * dist / 3;
+
+		return energy;
+	}
+
+	/**
+	 * Converts the current layout to diagram coordinates.
+	 *
+	 * @param normalize - Whether to move the layout to the origin.
+	 * @return The upper-left corner of each vertex, indexed by vertex.
+	 */
+	public int[][] getPositions(boolean normalize) {
+		float lx = 0, ly = 0;
+
+		if (normalize) {
+			lx = ly = Float.MAX_VALUE;
+
+			for (int v = 0; v < _size; v++) {
+				lx = Math.min(lx, _x[v]);
+				ly = Math.min(ly, _y[v]);
+			}
+		}
+
+		int[][] positions = new int[_size][2];
+
+		for (int v = 0; v < _size; v++) {
+			positions[v][0] = Math.max(0, Math.round((_x[v] - lx) * SCALE));
+			positions[v][1] = Math.max(0, Math.round((_y[v] - ly) * SCALE));
+		}
+
+		return positions;
+	}
+
+	/**
+	 * A Barnes-Hut quadtree over the vertices, stored in arrays that are
+	 * reused from one iteration to the next. Once built, the tree is only
+	 * read, so any number of threads may query it.
+	 */
+	private static class QuadTree {
+		/**
+		 * The depth at which vertices are no longer separated; this bounds the
+		 * size of the tree when vertices share a position.
+		 */
+		private static final int MAX_DEPTH = 24;
+
+		private static final int INTERNAL = -1;
+
+		private static final int BUCKET = -2;
+
+		private int _nodes;
+
+		/**
+		 * For leaves, the vertex in the node. Internal nodes and leaves that
+		 * hold several vertices at MAX_DEPTH are marked as such.
+		 */
+		private int[] _vertex = new int[0];
+
+		private int[] _child = new int[0];
+
+		private float[] _left = new float[0], _top = new float[0],
+				_width = new float[0];
+
+		private float[] _mass = new float[0], _cx = new float[0],
+				_cy = new float[0];
+
+		/**
+		 * The positions and masses of the vertices the tree was built from,
+		 * which must not change while the tree is queried.
+		 */
+		private float[] _vertexX, _vertexY, _vertexMass;
+
+		/**
+		 * Rebuilds the tree.
+		 *
+		 * @param x - The x coordinates of the vertices.
+		 * @param y - The y coordinates of the vertices.
+		 * @param mass - The masses of the vertices.
+		 * @param size - The number of vertices.
+		 */
+		public void build(float[] x, float[] y, float[] mass, int size) {
+			_vertexX = x;
+			_vertexY = y;
+			_vertexMass = mass;
+
+			float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+			float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+			for (int v = 0; v < size; v++) {
+				minX = Math.min(minX, x[v]);
+				minY = Math.min(minY, y[v]);
+				maxX = Math.max(maxX, x[v]);
+				maxY = Math.max(maxY, y[v]);
+			}
+
+			_nodes = 0;
+			float width = Math.max(maxX - minX, maxY - minY) * 1.0001f;
+			addNode(minX, minY, Math.max(width, Float.MIN_VALUE), 0, x, y,
+					mass);
+
+			for (int v = 1; v < size; v++) {
+				insert(v, x, y, mass);
+			}
+
+			// turn the sums of the weighted positions into centers of mass
+			for (int n = 0; n < _nodes; n++) {
+				_cx[n] /= _mass[n];
+				_cy[n] /= _mass[n];
+			}
+		}
+
+		/**
+		 * @return The width of the area covered by the tree.
+		 */
+		public float getWidth() {
+			return _width[0];
+		}
+
+		private void insert(int v, float[] x, float[] y, float[] mass) {
+			int n = 0;
+
+			for (int depth = 0;; depth++) {
+				if (_vertex[n] >= 0) {
+					if (depth >= MAX_DEPTH) {
+						_vertex[n] = BUCKET;
+					} else {
+						int u = _vertex[n];
+						_vertex[n] = INTERNAL;
+						addChild(n, u, x, y, mass);
+					}
+				}
+
+				_mass[n] += mass[v];
+				_cx[n] += x[v] * mass[v];
+				_cy[n] += y[v] * mass[v];
+
+				if (_vertex[n] == BUCKET) return;
+
+				int child = _child[4 * n + getQuadrant(n, x[v], y[v])];
+
+				if (child < 0) {
+					addChild(n, v, x, y, mass);
+					return;
+				}
+
+				n = child;
+			}
+		}
+
+		private int getQuadrant(int n, float x, float y) {
+			float half = _width[n] / 2;
+
+			return (x >= _left[n] + half ? 1 : 0)
+					| (y >= _top[n] + half ? 2 : 0);
+		}
+
+		private void addChild(int n, int v, float[] x, float[] y,
+				float[] mass) {
+			int quadrant = getQuadrant(n, x[v], y[v]);
+			float half = _width[n] / 2;
+			float left = _left[n] + ((quadrant & 1) == 0 ? 0 : half);
+			float top = _top[n] + ((quadrant & 2) == 0 ? 0 : half);
+
+			_child[4 * n + quadrant] = addNode(left, top, half, v, x, y, mass);
+		}
+
+		private int addNode(float left, float top, float width, int v,
+				float[] x, float[] y, float[] mass) {
+			if (_nodes == _vertex.length) {
+				int capacity = Math.max(16, 2 * _nodes);
+				_vertex = copy(_vertex, capacity);
+				_child = copy(_child, 4 * capacity);
+				_left = copy(_left, capacity);
+				_top = copy(_top, capacity);
+				_width = copy(_width, capacity);
+				_mass = copy(_mass, capacity);
+				_cx = copy(_cx, capacity);
+				_cy = copy(_cy, capacity);
+			}
+
+			int n = _nodes++;
+			_vertex[n] = v;
+			_left[n] = left;
+			_top[n] = top;
+			_width[n] = width;
+			_mass[n] = mass[v];
+			_cx[n] = x[v] * mass[v];
+			_cy[n] = y[v] * mass[v];
+
+			for (int q = 0; q < 4; q++) {
+				_child[4 * n + q] = -1;
+			}
+
+			return n;
+		}
+
+		/**
+		 * Adds the repulsion the tree exerts on a vertex to the given force.
+		 *
+		 * @param v - The vertex.
+		 * @param x - The x coordinate of the vertex.
+		 * @param y - The y coordinate of the vertex.
+		 * @param factor - The repulsion factor of the vertex.
+		 * @param dir - The force.
+		 */
+		public void addRepulsion(int v, float x, float y, float factor,
+				float[] dir) {
+			addRepulsion(0, v, true, x, y, factor, dir);
+		}
+
+		/**
+		 * @param onPath - Whether the node holds the vertex, whose own mass
+		 * must then be left out.
+		 */
+		private void addRepulsion(int n, int v, boolean onPath, float x,
+				float y, float factor, float[] dir) {
+			float mass = getMass(n, v, onPath);
+
+			if (mass <= 0) return;
+
+			float dx = getCenterX(n, v, onPath, mass) - x;
+			float dy = getCenterY(n, v, onPath, mass) - y;
+			float dist = (float) Math.sqrt(dx * dx + dy * dy);
+
+			if (isOpened(n, dist)) {
+				int path = getPathChild(n, v, onPath);
+
+				for (int q = 0; q < 4; q++) {
+					int child = _child[4 * n + q];
+					if (child >= 0) {
+						addRepulsion(child, v, child == path, x, y, factor,
+								dir);
+					}
+				}
+			} else if (dist > 0) {
+				float force = factor * mass / dist;
+				dir[0] -= dx * force;
+				dir[1] -= dy * force;
+			}
+		}
+
+		/**
+		 * Computes the repulsion energy between a vertex and the tree, as a
+		 * positive number. The nodes are approximated exactly as they are by
+		 * <code>addRepulsion()</code>, so that the energy is the one whose
+		 * gradient the layout follows.
+		 *
+		 * @param v - The vertex.
+		 * @param x - The x coordinate of the vertex.
+		 * @param y - The y coordinate of the vertex.
+		 * @param factor - The repulsion factor of the vertex.
+		 * @return The energy.
+		 */
+		public float getRepulsionEnergy(int v, float x, float y,
+				float factor) {
+			return getRepulsionEnergy(0, v, true, x, y, factor);
+		}
+
+		private float getRepulsionEnergy(int n, int v, boolean onPath,
+				float x, float y, float factor) {
+			float mass = getMass(n, v, onPath);
+
+			if (mass <= 0) return 0;
+
+			float dx = getCenterX(n, v, onPath, mass) - x;
+			float dy = getCenterY(n, v, onPath, mass) - y;
+			float dist = (float) Math.sqrt(dx * dx + dy * dy);
+
+			if (isOpened(n, dist)) {
+				int path = getPathChild(n, v, onPath);
+				float energy = 0;
+
+				for (int q = 0; q < 4; q++) {
+					int child = _child[4 * n + q];
+					if (child >= 0) {
+						energy += getRepulsionEnergy(child, v, child == path,
+								x, y, factor);
+					}
+				}
+
+				return energy;
+			}
+
+			return factor * mass * dist;
+		}
+
+		/**
+		 * @return True if the children of the node must be visited instead of
+		 * approximating the node by its center of mass.
+		 */
+		private boolean isOpened(int n, float dist) {
+			return _vertex[n] == INTERNAL && dist < _width[n];
+		}
+
+		/**
+		 * @return The mass of the node, without the vertex's if it is in it.
+		 */
+		private float getMass(int n, int v, boolean onPath) {
+			return onPath ? _mass[n] - _vertexMass[v] : _mass[n];
+		}
+
+		/**
+		 * @return The x coordinate of the node's center of mass, without the
+		 * vertex if it is in the node.
+		 */
+		private float getCenterX(int n, int v, boolean onPath, float mass) {
+			if (!onPath) return _cx[n];
+
+			return (_cx[n] * _mass[n] - _vertexX[v] * _vertexMass[v]) / mass;
+		}
+
+		/**
+		 * @return The y coordinate of the node's center of mass, without the
+		 * vertex if it is in the node.
+		 */
+		private float getCenterY(int n, int v, boolean onPath, float mass) {
+			if (!onPath) return _cy[n];
+
+			return (_cy[n] * _mass[n] - _vertexY[v] * _vertexMass[v]) / mass;
+		}
+
+		/**
+		 * @return The child of the node that holds the vertex, or -1 if the
+		 * node does not hold it. The quadrant is computed from the position
+		 * the vertex was inserted at, exactly as it was on insertion.
+		 */
+		private int getPathChild(int n, int v, boolean onPath) {
+			if (!onPath) return -1;
+
+			return _child[4 * n + getQuadrant(n, _vertexX[v], _vertexY[v])];
+		}
+
+		private static int[] copy(int[] array, int length) {
+			int[] copy = new int[length];
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+			return copy;
+		}
+
+		private static float[] copy(float[] array, int length) {
+			float[] copy = new float[length];
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+			return copy;
+		}
+	}
+}
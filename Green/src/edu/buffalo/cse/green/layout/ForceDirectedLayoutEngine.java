@@ -0,0 +1,110 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Contributes the <code>ForceDirectedLayout</code>, run on one thread per
+ * available processor. The threads only live as long as a single layout.
+ */
+public class ForceDirectedLayoutEngine implements ILayoutEngine {
+	/**
+	 * The maximum number of iterations.
+	 */
+	public static final int ITERATIONS = 100;
+
+	/**
+	 * The average distance, in layout units, a free vertex may move during
+	 * one iteration for the layout to be considered converged.
+	 */
+	public static final float CONVERGENCE = 0.001f;
+
+	/**
+	 * The number of iterations that always run before convergence is checked.
+	 */
+	public static final int MIN_ITERATIONS = 10;
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#getLabel()
+	 */
+	public String getLabel() {
+		return "Parallel Force-Directed";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#layout(edu.buffalo.cse.green.layout.LayoutGraph, long, org.eclipse.core.runtime.IProgressMonitor, edu.buffalo.cse.green.layout.ILayoutListener)
+	 */
+	public int[][] layout(LayoutGraph graph, long budget,
+			IProgressMonitor monitor, ILayoutListener listener) {
+		long deadline = System.currentTimeMillis() + budget;
+		long lastUpdate = 0;
+		boolean normalize = !graph.hasPinnedVertices();
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			ForceDirectedLayout layout = new ForceDirectedLayout(graph,
+					ITERATIONS, executor, threads);
+
+			monitor.beginTask(getLabel(), ITERATIONS);
+
+			for (int i = 1; i <= ITERATIONS; i++) {
+				float movement = layout.iterate();
+				monitor.worked(1);
+
+				if (monitor.isCanceled()
+						|| System.currentTimeMillis() > deadline
+						|| (i > MIN_ITERATIONS && movement < CONVERGENCE)) {
+					break;
+				}
+
+				long now = System.currentTimeMillis();
+
+				// only build the positions that are reported
+				if (listener != null && now - lastUpdate
+						>= ILayoutListener.UPDATE_INTERVAL) {
+					lastUpdate = now;
+					listener.layoutChanged(restorePinned(graph,
+							layout.getPositions(normalize)));
+				}
+			}
+
+			monitor.done();
+
+			return restorePinned(graph, layout.getPositions(normalize));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Moves the pinned vertices back to exactly where they were, undoing any
+	 * rounding.
+	 *
+	 * @param graph - The graph.
+	 * @param positions - The positions of the vertices.
+	 * @return The positions.
+	 */
+	private int[][] restorePinned(LayoutGraph graph, int[][] positions) {
+		for (int v = 0; v < positions.length; v++) {
+			if (graph.isPinned(v)) {
+				positions[v][0] = graph.getX(v);
+				positions[v][1] = graph.getY(v);
+			}
+		}
+
+		return positions;
+	}
+}
@@ -0,0 +1,46 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ * 
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Computes the positions of the types in a diagram. Layout engines are
+ * contributed through the <code>layoutEngine</code> extension point; a single
+ * instance of each engine is shared by all editors, so implementations must
+ * keep the state of a layout local to <code>layout()</code>.
+ * 
+ * Layouts are computed outside the UI thread and must not access the models
+ * of the graph.
+ */
+public interface ILayoutEngine {
+	/**
+	 * @return The name of the engine, as shown in the editor's menus.
+	 */
+	public String getLabel();
+
+	/**
+	 * Computes a layout.
+	 * 
+	 * @param graph - The snapshot of the diagram to lay out.
+	 * @param budget - The time, in milliseconds, the engine should finish
+	 * within. Engines that run out of time return the best layout found so
+	 * far.
+	 * @param monitor - The monitor to report progress to and to check for
+	 * cancellation. A cancelled engine returns the best layout found so far.
+	 * @param listener - The listener notified of intermediate layouts, or
+	 * <code>null</code>. Engines are not required to produce any.
+	 * @return The upper-left corner of each vertex, indexed by vertex. Pinned
+	 * vertices keep the position the snapshot gives them.
+	 */
+	public int[][] layout(LayoutGraph graph, long budget,
+			IProgressMonitor monitor, ILayoutListener listener);
+}
@@ -0,0 +1,33 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ * 
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+/**
+ * Receives the intermediate results of an <code>ILayoutEngine</code>.
+ */
+public interface ILayoutListener {
+	/**
+	 * The minimum time, in milliseconds, between two intermediate layouts
+	 * reported by an engine.
+	 */
+	public static final long UPDATE_INTERVAL = 100;
+
+	/**
+	 * Called by the engine, from the thread computing the layout, when it
+	 * has reached a new intermediate layout. Engines call it at most once
+	 * every <code>UPDATE_INTERVAL</code> milliseconds, so that they only
+	 * build the positions that are reported.
+	 * 
+	 * @param positions - The upper-left corner of each vertex, indexed by
+	 * vertex. The array is not modified by the engine afterwards.
+	 */
+	public void layoutChanged(int[][] positions);
+}
@@ -0,0 +1,566 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import edu.buffalo.cse.green.editor.model.RelationshipKind;
+
+/**
+ * Arranges a <code>LayoutGraph</code> in horizontal layers (a Sugiyama-style
+ * layout). Generalization and realization edges point upwards, so supertypes
+ * are drawn above their subtypes; all other relationships point from their
+ * source down to their target.
+ *
+ * The layout runs in four phases:
+ * <ol>
+ * <li>cycle removal, reversing the edges that point backward in an order
+ * that keeps every hierarchy edge pointing upwards;</li>
+ * <li>longest-path layering, with dummy vertices inserted along edges that
+ * span several layers;</li>
+ * <li>crossing reduction, ordering each layer by the barycenter of its
+ * neighbours in a fixed number of up and down sweeps;</li>
+ * <li>coordinate assignment, moving each vertex towards the center of its
+ * neighbours without letting vertices of a layer overlap.</li>
+ * </ol>
+ * Every phase is linear in the size of the graph except for the sorting in
+ * the third phase, so the whole layout takes O((V + E) log V) time, where E
+ * counts the edge segments between dummy vertices. Types without any
+ * relationships are packed in rows below the layers.
+ */
+public class LayeredLayout {
+	/**
+	 * The space between two vertices of the same layer.
+	 */
+	public static final int HORIZONTAL_GAP = 40;
+
+	/**
+	 * The space between two layers.
+	 */
+	public static final int VERTICAL_GAP = 80;
+
+	/**
+	 * The space reserved for an edge passing through a layer.
+	 */
+	public static final int DUMMY_WIDTH = 20;
+
+	/**
+	 * The distance of the layout from the origin.
+	 */
+	public static final int MARGIN = 20;
+
+	/**
+	 * The minimum width of the rows unrelated types are packed in.
+	 */
+	public static final int ROW_WIDTH = 1000;
+
+	/**
+	 * The number of up and down sweeps used to reduce crossings.
+	 */
+	public static final int ORDERING_SWEEPS = 8;
+
+	/**
+	 * The number of up and down sweeps used to align vertices.
+	 */
+	public static final int ALIGNMENT_SWEEPS = 4;
+
+	private LayoutGraph _graph;
+
+	/**
+	 * The number of vertices in the graph; dummy vertices are numbered from
+	 * here on.
+	 */
+	private int _real;
+
+	private int _nodes;
+
+	private int[] _layerOf;
+
+	private int[] _width;
+
+	private int[] _segUpper, _segLower;
+
+	private int _segments;
+
+	private int[][] _layers;
+
+	private int[] _position;
+
+	private float[] _x;
+
+	private int[] _upStart, _up, _downStart, _down;
+
+	public LayeredLayout(LayoutGraph graph) {
+		_graph = graph;
+	}
+
+	/**
+	 * Computes the layout.
+	 *
+	 * @return The upper-left corner of each vertex, indexed by vertex.
+	 */
+	public int[][] layout() {
+		_real = _graph.getVertexCount();
+		int edges = _graph.getEdgeCount();
+		int[] upper = new int[edges];
+		int[] lower = new int[edges];
+		boolean[] hierarchy = new boolean[edges];
+
+		for (int e = 0; e < edges; e++) {
+			hierarchy[e] = _graph.getKind(e) == RelationshipKind.Single;
+
+			if (hierarchy[e]) {
+				upper[e] = _graph.getTarget(e);
+				lower[e] = _graph.getSource(e);
+			} else {
+				upper[e] = _graph.getSource(e);
+				lower[e] = _graph.getTarget(e);
+			}
+		}
+
+		removeCycles(upper, lower, hierarchy);
+		int[] layer = assignLayers(upper, lower);
+		insertDummies(layer, upper, lower);
+		buildLayers();
+		order();
+		align();
+
+		return getPositions();
+	}
+
+	/**
+	 * Reverses the edges that close a cycle so that the graph becomes
+	 * acyclic. The vertices are put in an order in which every hierarchy edge
+	 * points forward, preferring at each step the vertex with the fewest
+	 * other incoming edges from vertices not yet ordered; the edges that
+	 * point backward in that order are then reversed. Hierarchy edges are
+	 * only reversed if the hierarchy itself has a cycle.
+	 */
+	private void removeCycles(int[] upper, int[] lower, boolean[] hierarchy) {
+		int[][] out = adjacency(_real, upper, upper.length);
+		int[] start = out[0], list = out[1];
+		int[] hierarchyIn = new int[_real];
+		final int[] otherIn = new int[_real];
+		int[] rank = new int[_real];
+		boolean[] ranked = new boolean[_real];
+		PriorityQueue<long[]> available = new PriorityQueue<long[]>(
+				Math.max(1, _real), new Comparator<long[]>() {
+					public int compare(long[] a, long[] b) {
+						return a[0] < b[0] ? -1 : a[0] > b[0] ? 1
+								: (int) (a[1] - b[1]);
+					}
+				});
+
+		for (int e = 0; e < lower.length; e++) {
+			if (hierarchy[e]) {
+				hierarchyIn[lower[e]]++;
+			} else {
+				otherIn[lower[e]]++;
+			}
+		}
+
+		for (int v = 0; v < _real; v++) {
+			if (hierarchyIn[v] == 0) {
+				available.add(new long[] { otherIn[v], v });
+			}
+		}
+
+		int next = 0, unranked = 0;
+
+		while (next < _real) {
+			long[] entry = available.poll();
+			int v;
+
+			if (entry == null) {
+				// the hierarchy has a cycle; break it anywhere
+				while (ranked[unranked]) unranked++;
+				v = unranked;
+			} else {
+				v = (int) entry[1];
+
+				// skip vertices that were re-added with a lower count
+				if (ranked[v] || entry[0] != otherIn[v]) continue;
+			}
+
+			ranked[v] = true;
+			rank[v] = next++;
+
+			for (int i = start[v]; i < start[v + 1]; i++) {
+				int e = list[i];
+				int w = lower[e];
+				if (ranked[w]) continue;
+
+				if (hierarchy[e]) {
+					hierarchyIn[w]--;
+				} else {
+					otherIn[w]--;
+				}
+
+				if (hierarchyIn[w] == 0) {
+					available.add(new long[] { otherIn[w], w });
+				}
+			}
+		}
+
+		for (int e = 0; e < upper.length; e++) {
+			if (rank[upper[e]] > rank[lower[e]]) {
+				int v = upper[e];
+				upper[e] = lower[e];
+				lower[e] = v;
+			}
+		}
+	}
+
+	/**
+	 * Places every vertex one layer below the lowest of its upper neighbours,
+	 * in topological order.
+	 *
+	 * @return The layer of each vertex, or -1 for vertices without edges.
+	 */
+	private int[] assignLayers(int[] upper, int[] lower) {
+		int[][] out = adjacency(_real, upper, upper.length);
+		int[] start = out[0], list = out[1];
+		int[] incoming = new int[_real];
+		int[] layer = new int[_real];
+		int[] queue = new int[_real];
+		int head = 0, tail = 0;
+
+		for (int e = 0; e < lower.length; e++) {
+			incoming[lower[e]]++;
+		}
+
+		for (int v = 0; v < _real; v++) {
+			if (incoming[v] == 0) {
+				queue[tail++] = v;
+			}
+
+			// unrelated vertices are not layered
+			layer[v] = start[v] == start[v + 1] && incoming[v] == 0 ? -1 : 0;
+		}
+
+		while (head < tail) {
+			int v = queue[head++];
+
+			for (int i = start[v]; i < start[v + 1]; i++) {
+				int w = lower[list[i]];
+				layer[w] = Math.max(layer[w], layer[v] + 1);
+
+				if (--incoming[w] == 0) {
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		return layer;
+	}
+
+	/**
+	 * Splits every edge into segments between adjacent layers, adding a
+	 * dummy vertex to each layer an edge passes through.
+	 */
+	private void insertDummies(int[] layer, int[] upper, int[] lower) {
+		_nodes = _real;
+		_layerOf = new int[_real + upper.length];
+		_width = new int[_layerOf.length];
+		_segUpper = new int[upper.length];
+		_segLower = new int[upper.length];
+		_segments = 0;
+
+		for (int v = 0; v < _real; v++) {
+			_layerOf[v] = layer[v];
+			_width[v] = _graph.getWidth(v);
+		}
+
+		for (int e = 0; e < upper.length; e++) {
+			int from = upper[e];
+
+			for (int l = layer[upper[e]] + 1; l < layer[lower[e]]; l++) {
+				int dummy = addNode(l);
+				addSegment(from, dummy);
+				from = dummy;
+			}
+
+			addSegment(from, lower[e]);
+		}
+	}
+
+	private int addNode(int layer) {
+		if (_nodes == _layerOf.length) {
+			_layerOf = copy(_layerOf, _nodes * 2);
+			_width = copy(_width, _nodes * 2);
+		}
+
+		_layerOf[_nodes] = layer;
+		_width[_nodes] = DUMMY_WIDTH;
+
+		return _nodes++;
+	}
+
+	private void addSegment(int upper, int lower) {
+		if (_segments == _segUpper.length) {
+			int length = Math.max(1, _segments * 2);
+			_segUpper = copy(_segUpper, length);
+			_segLower = copy(_segLower, length);
+		}
+
+		_segUpper[_segments] = upper;
+		_segLower[_segments] = lower;
+		_segments++;
+	}
+
+	/**
+	 * Groups the vertices by layer and indexes the segments by both of their
+	 * ends.
+	 */
+	private void buildLayers() {
+		int count = 0;
+
+		for (int v = 0; v < _nodes; v++) {
+			count = Math.max(count, _layerOf[v] + 1);
+		}
+
+		int[] sizes = new int[count];
+
+		for (int v = 0; v < _nodes; v++) {
+			if (_layerOf[v] >= 0) sizes[_layerOf[v]]++;
+		}
+
+		_layers = new int[count][];
+		_position = new int[_nodes];
+
+		for (int l = 0; l < count; l++) {
+			_layers[l] = new int[sizes[l]];
+			sizes[l] = 0;
+		}
+
+		for (int v = 0; v < _nodes; v++) {
+			int l = _layerOf[v];
+			if (l < 0) continue;
+
+			_position[v] = sizes[l];
+			_layers[l][sizes[l]++] = v;
+		}
+
+		int[][] up = adjacency(_nodes, _segLower, _segments);
+		int[][] down = adjacency(_nodes, _segUpper, _segments);
+		_upStart = up[0];
+		_up = up[1];
+		_downStart = down[0];
+		_down = down[1];
+
+		// store neighbouring vertices rather than segment indices
+		for (int i = 0; i < _segments; i++) {
+			_up[i] = _segUpper[_up[i]];
+			_down[i] = _segLower[_down[i]];
+		}
+	}
+
+	/**
+	 * Reduces crossings by sorting each layer by the average position of
+	 * its neighbours in the layer above (on the way down) or below (on the
+	 * way up).
+	 */
+	private void order() {
+		for (int sweep = 0; sweep < ORDERING_SWEEPS; sweep++) {
+			for (int l = 1; l < _layers.length; l++) {
+				order(_layers[l], _upStart, _up);
+			}
+
+			for (int l = _layers.length - 2; l >= 0; l--) {
+				order(_layers[l], _downStart, _down);
+			}
+		}
+	}
+
+	private void order(int[] layer, int[] start, int[] list) {
+		final float[] key = new float[layer.length];
+		Integer[] sorted = new Integer[layer.length];
+		int[] nodes = copy(layer, layer.length);
+
+		for (int i = 0; i < layer.length; i++) {
+			int v = layer[i];
+			int degree = start[v + 1] - start[v];
+			float sum = 0;
+
+			for (int j = start[v]; j < start[v + 1]; j++) {
+				sum += _position[list[j]];
+			}
+
+			key[i] = degree == 0 ? i : sum / degree;
+			sorted[i] = i;
+		}
+
+		// the sort is stable, so ties keep their current order
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			public int compare(Integer i, Integer j) {
+				return Float.compare(key[i], key[j]);
+			}
+		});
+
+		for (int i = 0; i < layer.length; i++) {
+			layer[i] = nodes[sorted[i]];
+			_position[layer[i]] = i;
+		}
+	}
+
+	/**
+	 * Assigns x coordinates, moving every vertex towards the center of its
+	 * neighbours in the adjacent layer while keeping the order of each
+	 * layer.
+	 */
+	private void align() {
+		_x = new float[_nodes];
+
+		for (int[] layer : _layers) {
+			float x = 0;
+
+			for (int v : layer) {
+				_x[v] = x;
+				x += _width[v] + HORIZONTAL_GAP;
+			}
+		}
+
+		for (int sweep = 0; sweep < ALIGNMENT_SWEEPS; sweep++) {
+			for (int l = 1; l < _layers.length; l++) {
+				align(_layers[l], _upStart, _up);
+			}
+
+			for (int l = _layers.length - 2; l >= 0; l--) {
+				align(_layers[l], _downStart, _down);
+			}
+		}
+	}
+
+	private void align(int[] layer, int[] start, int[] list) {
+		int size = layer.length;
+		float[] wanted = new float[size];
+		float[] left = new float[size];
+		float[] right = new float[size];
+
+		for (int i = 0; i < size; i++) {
+			int v = layer[i];
+			int degree = start[v + 1] - start[v];
+			float sum = 0;
+
+			for (int j = start[v]; j < start[v + 1]; j++) {
+				sum += _x[list[j]] + _width[list[j]] / 2f;
+			}
+
+			wanted[i] = degree == 0 ? _x[v] : sum / degree - _width[v] / 2f;
+		}
+
+		// push overlapping vertices right, then left, and meet halfway
+		for (int i = 0; i < size; i++) {
+			left[i] = i == 0 ? wanted[i] : Math.max(wanted[i], left[i - 1]
+					+ _width[layer[i - 1]] + HORIZONTAL_GAP);
+		}
+
+		for (int i = size - 1; i >= 0; i--) {
+			right[i] = i == size - 1 ? wanted[i] : Math.min(wanted[i],
+					right[i + 1] - _width[layer[i]] - HORIZONTAL_GAP);
+		}
+
+		for (int i = 0; i < size; i++) {
+			_x[layer[i]] = (left[i] + right[i]) / 2;
+		}
+	}
+
+	/**
+	 * Converts the computed coordinates to positions of the real vertices,
+	 * placing unrelated vertices in rows below the layers.
+	 */
+	private int[][] getPositions() {
+		int[][] positions = new int[_real][2];
+		float min = Float.MAX_VALUE;
+		int width = 0;
+		int y = MARGIN;
+
+		for (int v = 0; v < _nodes; v++) {
+			if (_layerOf[v] >= 0) min = Math.min(min, _x[v]);
+		}
+
+		for (int[] layer : _layers) {
+			int height = 0;
+
+			for (int v : layer) {
+				if (v >= _real) continue;
+
+				positions[v][0] = MARGIN + Math.round(_x[v] - min);
+				positions[v][1] = y;
+				height = Math.max(height, _graph.getHeight(v));
+				width = Math.max(width, positions[v][0] + _width[v]);
+			}
+
+			y += height + VERTICAL_GAP;
+		}
+
+		width = Math.max(width, ROW_WIDTH);
+		int x = MARGIN;
+		int height = 0;
+
+		for (int v = 0; v < _real; v++) {
+			if (_layerOf[v] >= 0) continue;
+
+			if (x > MARGIN && x + _width[v] > width) {
+				x = MARGIN;
+				y += height + VERTICAL_GAP;
+				height = 0;
+			}
+
+			positions[v][0] = x;
+			positions[v][1] = y;
+			x += _width[v] + HORIZONTAL_GAP;
+			height = Math.max(height, _graph.getHeight(v));
+		}
+
+		return positions;
+	}
+
+	/**
+	 * Indexes items by an int key in compressed form: the items with key
+	 * <code>k</code> are <code>list[start[k]]</code> to
+	 * <code>list[start[k + 1] - 1]</code>.
+	 *
+	 * @param size - The number of keys.
+	 * @param keys - The key of each item.
+	 * @param count - The number of items.
+	 * @return <code>{ start, list }</code>.
+	 */
+	private static int[][] adjacency(int size, int[] keys, int count) {
+		int[] start = new int[size + 1];
+		int[] list = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			start[keys[i] + 1]++;
+		}
+
+		for (int k = 0; k < size; k++) {
+			start[k + 1] += start[k];
+		}
+
+		int[] fill = copy(start, size);
+
+		for (int i = 0; i < count; i++) {
+			list[fill[keys[i]]++] = i;
+		}
+
+		return new int[][] { start, list };
+	}
+
+	private static int[] copy(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(length, array.length));
+
+		return copy;
+	}
+}
@@ -0,0 +1,49 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ * 
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Contributes the <code>LayeredLayout</code>. The layout is fast enough that
+ * it ignores the time budget and never reports intermediate layouts.
+ *
+ * The layers are assigned without regard to where the types are, so the
+ * layout cannot work around pinned types; placing types next to pinned ones
+ * is left to the <code>ForceDirectedLayoutEngine</code>.
+ */
+public class LayeredLayoutEngine implements ILayoutEngine {
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#getLabel()
+	 */
+	public String getLabel() {
+		return "Layered";
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.layout.ILayoutEngine#layout(edu.buffalo.cse.green.layout.LayoutGraph, long, org.eclipse.core.runtime.IProgressMonitor, edu.buffalo.cse.green.layout.ILayoutListener)
+	 */
+	public int[][] layout(LayoutGraph graph, long budget,
+			IProgressMonitor monitor, ILayoutListener listener) {
+		if (graph.hasPinnedVertices()) {
+			return new ForceDirectedLayoutEngine().layout(graph, budget,
+					monitor, listener);
+		}
+
+		monitor.beginTask(getLabel(), 1);
+
+		int[][] positions = new LayeredLayout(graph).layout();
+
+		monitor.done();
+
+		return positions;
+	}
+}
@@ -0,0 +1,516 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.jdt.core.IPackageFragment;
+
+import edu.buffalo.cse.green.editor.DiagramEditor;
+import edu.buffalo.cse.green.editor.controller.AbstractPart;
+import edu.buffalo.cse.green.editor.model.AbstractModel;
+import edu.buffalo.cse.green.editor.model.RelationshipKind;
+import edu.buffalo.cse.green.editor.model.RelationshipModel;
+import edu.buffalo.cse.green.editor.model.TypeModel;
+
+/**
+ * An immutable snapshot of the types in a diagram and the relationships
+ * between them, taken in the UI thread so that layout algorithms can run
+ * anywhere. Vertices and edges are identified by their index.
+ *
+ * Only one edge is kept per ordered pair of types. If several relationships
+ * connect the same pair, the edge takes the kind of a <code>Single</code>
+ * (generalization or realization) relationship when there is one.
+ *
+ * A snapshot may pin some of its vertices. Layout engines must return pinned
+ * vertices at their current position.
+ *
+ * Vertices are grouped into clusters, one per package, and edges carry a
+ * weight. Snapshots of a diagram give every edge a weight of one; graphs
+ * derived by layout engines may weigh their edges differently.
+ */
+public class LayoutGraph {
+	/**
+	 * The spread, in pixels, of the start positions of types placed near the
+	 * same neighbours.
+	 */
+	public static final int SPREAD = 200;
+
+	private TypeModel[] _models;
+
+	private int[] _x, _y, _width, _height;
+
+	private boolean[] _pinned;
+
+	private int[] _sources, _targets;
+
+	private RelationshipKind[] _kinds;
+
+	private float[] _weights;
+
+	private int[] _clusters;
+
+	private int _clusterCount;
+
+	/**
+	 * Takes a snapshot of all types in the given editor. No vertex is pinned.
+	 *
+	 * @param editor - The editor.
+	 */
+	public LayoutGraph(DiagramEditor editor) {
+		this(editor, null, false);
+	}
+
+	/**
+	 * Takes a snapshot of all types in the given editor in which only the
+	 * given types, and optionally their neighbours, are free to move. Each
+	 * added type starts at the center of its neighbours that are already
+	 * placed.
+	 *
+	 * @param editor - The editor.
+	 * @param added - The types to place, or <code>null</code> to leave every
+	 * vertex free.
+	 * @param moveNeighbours - Whether the types directly related to the added
+	 * types are free as well.
+	 */
+	public LayoutGraph(DiagramEditor editor, Collection<TypeModel> added,
+			boolean moveNeighbours) {
+		List<TypeModel> models = new ArrayList<TypeModel>();
+
+		for (AbstractModel model : editor.getRootModel().getChildren()) {
+			if (model instanceof TypeModel) {
+				models.add((TypeModel) model);
+			}
+		}
+
+		int size = models.size();
+		Map<TypeModel, Integer> ids = new IdentityHashMap<TypeModel, Integer>();
+		_models = models.toArray(new TypeModel[size]);
+		_x = new int[size];
+		_y = new int[size];
+		_width = new int[size];
+		_height = new int[size];
+		_pinned = new boolean[size];
+		_clusters = new int[size];
+		Map<IPackageFragment, Integer> packages =
+			new HashMap<IPackageFragment, Integer>();
+
+		for (int i = 0; i < size; i++) {
+			TypeModel model = _models[i];
+			Point location = model.getLocation();
+			Dimension dim = getSize(editor, model);
+			IPackageFragment pack = model.getType().getPackageFragment();
+			Integer cluster = packages.get(pack);
+
+			if (cluster == null) {
+				cluster = packages.size();
+				packages.put(pack, cluster);
+			}
+
+			ids.put(model, i);
+			_clusters[i] = cluster;
+			_x[i] = location.x;
+			_y[i] = location.y;
+			_width[i] = dim.width;
+			_height[i] = dim.height;
+		}
+
+		Map<Long, Integer> edges = new HashMap<Long, Integer>();
+		List<RelationshipKind> kinds = new ArrayList<RelationshipKind>();
+		List<Long> pairs = new ArrayList<Long>();
+
+		for (int i = 0; i < size; i++) {
+			for (RelationshipModel rModel : _models[i].getOutgoingEdges()) {
+				Integer target = ids.get(rModel.getTargetModel());
+				if (target == null || target == i) continue;
+
+				RelationshipKind kind = rModel.getRelationshipGroup() == null
+						? null : rModel.getRelationshipGroup().getFlags();
+				Long pair = ((long) i << 32) | target;
+				Integer edge = edges.get(pair);
+
+				if (edge == null) {
+					edges.put(pair, kinds.size());
+					kinds.add(kind);
+					pairs.add(pair);
+				} else if (kind == RelationshipKind.Single) {
+					kinds.set(edge, kind);
+				}
+			}
+		}
+
+		_clusterCount = packages.size();
+		_sources = new int[pairs.size()];
+		_targets = new int[pairs.size()];
+		_kinds = kinds.toArray(new RelationshipKind[kinds.size()]);
+		_weights = new float[pairs.size()];
+
+		for (int e = 0; e < _sources.length; e++) {
+			_sources[e] = (int) (pairs.get(e) >>> 32);
+			_targets[e] = pairs.get(e).intValue();
+			_weights[e] = 1;
+		}
+
+		if (added != null) {
+			pin(added, moveNeighbours);
+		}
+	}
+
+	/**
+	 * Creates a graph that does not represent the types of a diagram, such as
+	 * one whose vertices stand for groups of types. Its vertices have no
+	 * model, start at the origin, are free and form a single cluster; its
+	 * edges are of unknown kind.
+	 *
+	 * @param width - The widths of the vertices.
+	 * @param height - The heights of the vertices.
+	 * @param sources - The source vertices of the edges.
+	 * @param targets - The target vertices of the edges.
+	 * @param weights - The weights of the edges.
+	 */
+	public LayoutGraph(int[] width, int[] height, int[] sources,
+			int[] targets, float[] weights) {
+		this(width.length, sources.length);
+		System.arraycopy(width, 0, _width, 0, width.length);
+		System.arraycopy(height, 0, _height, 0, height.length);
+		System.arraycopy(sources, 0, _sources, 0, sources.length);
+		System.arraycopy(targets, 0, _targets, 0, targets.length);
+		System.arraycopy(weights, 0, _weights, 0, weights.length);
+	}
+
+	/**
+	 * Creates a graph that does not come from a diagram, such as a synthetic
+	 * one to measure a layout with. Its vertices have no model, start at the
+	 * origin, are free and form a single cluster; its edges have the given
+	 * kinds and a weight of one.
+	 *
+	 * @param width - The widths of the vertices.
+	 * @param height - The heights of the vertices.
+	 * @param sources - The source vertices of the edges.
+	 * @param targets - The target vertices of the edges.
+	 * @param kinds - The kinds of the edges.
+	 */
+	public LayoutGraph(int[] width, int[] height, int[] sources,
+			int[] targets, RelationshipKind[] kinds) {
+		this(width.length, sources.length);
+		System.arraycopy(width, 0, _width, 0, width.length);
+		System.arraycopy(height, 0, _height, 0, height.length);
+		System.arraycopy(sources, 0, _sources, 0, sources.length);
+		System.arraycopy(targets, 0, _targets, 0, targets.length);
+		System.arraycopy(kinds, 0, _kinds, 0, kinds.length);
+		Arrays.fill(_weights, 1);
+	}
+
+	/**
+	 * Creates a graph that does not come from a diagram, like the one above,
+	 * whose vertices start at the given positions.
+	 *
+	 * @param x - The x coordinates of the vertices.
+	 * @param y - The y coordinates of the vertices.
+	 * @param width - The widths of the vertices.
+	 * @param height - The heights of the vertices.
+	 * @param sources - The source vertices of the edges.
+	 * @param targets - The target vertices of the edges.
+	 * @param kinds - The kinds of the edges.
+	 */
+	public LayoutGraph(int[] x, int[] y, int[] width, int[] height,
+			int[] sources, int[] targets, RelationshipKind[] kinds) {
+		this(width, height, sources, targets, kinds);
+		System.arraycopy(x, 0, _x, 0, x.length);
+		System.arraycopy(y, 0, _y, 0, y.length);
+	}
+
+	private LayoutGraph(int size, int edges) {
+		_models = new TypeModel[size];
+		_x = new int[size];
+		_y = new int[size];
+		_width = new int[size];
+		_height = new int[size];
+		_pinned = new boolean[size];
+		_clusters = new int[size];
+		_clusterCount = size == 0 ? 0 : 1;
+		_sources = new int[edges];
+		_targets = new int[edges];
+		_kinds = new RelationshipKind[edges];
+		_weights = new float[edges];
+	}
+
+	/**
+	 * Splits the graph into its clusters. Each cluster keeps the edges
+	 * between its own vertices; the edges between clusters are dropped.
+	 *
+	 * @return The graph of each cluster, indexed by cluster. The vertices of
+	 * a cluster's graph are the vertices of the cluster, in the order they
+	 * have in this graph.
+	 */
+	public LayoutGraph[] split() {
+		int size = _models.length;
+		int[] local = new int[size];
+		int[] vertices = new int[_clusterCount];
+		int[] edges = new int[_clusterCount];
+
+		for (int v = 0; v < size; v++) {
+			local[v] = vertices[_clusters[v]]++;
+		}
+
+		for (int e = 0; e < _sources.length; e++) {
+			if (_clusters[_sources[e]] == _clusters[_targets[e]]) {
+				edges[_clusters[_sources[e]]]++;
+			}
+		}
+
+		LayoutGraph[] graphs = new LayoutGraph[_clusterCount];
+
+		for (int c = 0; c < _clusterCount; c++) {
+			graphs[c] = new LayoutGraph(vertices[c], edges[c]);
+			edges[c] = 0;
+		}
+
+		for (int v = 0; v < size; v++) {
+			LayoutGraph graph = graphs[_clusters[v]];
+			int i = local[v];
+
+			graph._models[i] = _models[v];
+			graph._x[i] = _x[v];
+			graph._y[i] = _y[v];
+			graph._width[i] = _width[v];
+			graph._height[i] = _height[v];
+			graph._pinned[i] = _pinned[v];
+		}
+
+		for (int e = 0; e < _sources.length; e++) {
+			int c = _clusters[_sources[e]];
+			if (c != _clusters[_targets[e]]) continue;
+
+			LayoutGraph graph = graphs[c];
+			int i = edges[c]++;
+
+			graph._sources[i] = local[_sources[e]];
+			graph._targets[i] = local[_targets[e]];
+			graph._kinds[i] = _kinds[e];
+			graph._weights[i] = _weights[e];
+		}
+
+		return graphs;
+	}
+
+	/**
+	 * Pins every vertex except those of the added types and, if requested,
+	 * their neighbours, and moves each added type to the center of its placed
+	 * neighbours.
+	 */
+	private void pin(Collection<TypeModel> added, boolean moveNeighbours) {
+		int size = _models.length;
+		boolean[] isAdded = new boolean[size];
+		long[][] center = new long[size][3];
+		Random random = new Random(size);
+
+		for (int v = 0; v < size; v++) {
+			isAdded[v] = added.contains(_models[v]);
+			_pinned[v] = !isAdded[v];
+		}
+
+		for (int e = 0; e < _sources.length; e++) {
+			int s = _sources[e], t = _targets[e];
+
+			if (isAdded[s] != isAdded[t]) {
+				int a = isAdded[s] ? s : t, p = isAdded[s] ? t : s;
+				center[a][0] += _x[p];
+				center[a][1] += _y[p];
+				center[a][2]++;
+			}
+
+			if (moveNeighbours) {
+				_pinned[s] &= !isAdded[t];
+				_pinned[t] &= !isAdded[s];
+			}
+		}
+
+		for (int v = 0; v < size; v++) {
+			if (center[v][2] > 0) {
+				// keep types related to the same neighbours apart
+				_x[v] = (int) (center[v][0] / center[v][2])
+						+ random.nextInt(SPREAD) - SPREAD / 2;
+				_y[v] = (int) (center[v][1] / center[v][2])
+						+ random.nextInt(SPREAD) - SPREAD / 2;
+			}
+		}
+	}
+
+	/**
+	 * Returns the size a type is drawn at. Types that size themselves to
+	 * their contents report their figure's preferred size.
+	 *
+	 * @param editor - The editor displaying the type.
+	 * @param model - The type.
+	 * @return The size.
+	 */
+	private Dimension getSize(DiagramEditor editor, TypeModel model) {
+		Dimension size = model.getSize();
+
+		if (size != null && size.width >= 0 && size.height >= 0) {
+			return size;
+		}
+
+		AbstractPart part = editor.getRootPart().getPartFromModel(model);
+
+		if (part == null) {
+			return new Dimension(0, 0);
+		}
+
+		return part.getFigure().getPreferredSize();
+	}
+
+	/**
+	 * @return The number of vertices.
+	 */
+	public int getVertexCount() {
+		return _models.length;
+	}
+
+	/**
+	 * Returns the type a vertex represents. Models may only be accessed from
+	 * the UI thread; layout algorithms should not need them.
+	 *
+	 * @param v - The vertex.
+	 * @return The type's model, or <code>null</code> if the vertex does not
+	 * represent a type.
+	 */
+	public TypeModel getModel(int v) {
+		return _models[v];
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return The x coordinate the layout of the vertex starts from.
+	 */
+	public int getX(int v) {
+		return _x[v];
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return The y coordinate the layout of the vertex starts from.
+	 */
+	public int getY(int v) {
+		return _y[v];
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return The width of the vertex.
+	 */
+	public int getWidth(int v) {
+		return _width[v];
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return The height of the vertex.
+	 */
+	public int getHeight(int v) {
+		return _height[v];
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return True if the vertex must stay where it is.
+	 */
+	public boolean isPinned(int v) {
+		return _pinned[v];
+	}
+
+	/**
+	 * @return True if any vertex is pinned.
+	 */
+	public boolean hasPinnedVertices() {
+		for (boolean pinned : _pinned) {
+			if (pinned) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return True if any vertex is free to move.
+	 */
+	public boolean hasFreeVertices() {
+		for (boolean pinned : _pinned) {
+			if (!pinned) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @param v - The vertex.
+	 * @return The cluster the vertex belongs to.
+	 */
+	public int getCluster(int v) {
+		return _clusters[v];
+	}
+
+	/**
+	 * @return The number of clusters; clusters are numbered from zero.
+	 */
+	public int getClusterCount() {
+		return _clusterCount;
+	}
+
+	/**
+	 * @return The number of edges.
+	 */
+	public int getEdgeCount() {
+		return _sources.length;
+	}
+
+	/**
+	 * @param e - The edge.
+	 * @return The vertex at the source type of the edge.
+	 */
+	public int getSource(int e) {
+		return _sources[e];
+	}
+
+	/**
+	 * @param e - The edge.
+	 * @return The vertex at the target type of the edge.
+	 */
+	public int getTarget(int e) {
+		return _targets[e];
+	}
+
+	/**
+	 * @param e - The edge.
+	 * @return The kind of relationship the edge represents, or
+	 * <code>null</code> if it is unknown.
+	 */
+	public RelationshipKind getKind(int e) {
+		return _kinds[e];
+	}
+
+	/**
+	 * @param e - The edge.
+	 * @return The weight of the edge.
+	 */
+	public float getWeight(int e) {
+		return _weights[e];
+	}
+}
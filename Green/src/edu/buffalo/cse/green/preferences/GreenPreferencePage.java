@@ -21,16 +21,18 @@ import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_GRID_SIZ
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_MANHATTAN_ROUTING;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_INCREMENTAL_EXPLORER_DIA;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_LOD_ZOOM_BOXES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_LOD_ZOOM_NAMES;
 
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.ScaleFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
 import edu.buffalo.cse.green.PlugIn;
-import edu.buffalo.cse.green.editor.DiagramEditor;
 
 /**
  * A preferences page tailored specifically to Green.
@@ -84,6 +86,18 @@ implements IWorkbenchPreferencePage {
 				"Relationship Line Width", getFieldEditorParent(),
 				0, 3, 1, 1));
 		
+		IntegerFieldEditor names = new IntegerFieldEditor(P_LOD_ZOOM_NAMES,
+				"Zoom (%) below which types only show their names",
+				getFieldEditorParent(), 3);
+		names.setValidRange(0, 100);
+		addField(names);
+		
+		IntegerFieldEditor boxes = new IntegerFieldEditor(P_LOD_ZOOM_BOXES,
+				"Zoom (%) below which types and relationships are drawn plainly",
+				getFieldEditorParent(), 3);
+		boxes.setValidRange(0, 100);
+		addField(boxes);
+		
 		adjustGridLayout();
 	}
 
@@ -91,17 +105,4 @@ implements IWorkbenchPreferencePage {
 	 * @see org.eclipse.ui.IWorkbenchPreferencePage#init(org.eclipse.ui.IWorkbench)
 	 */
 	public void init(IWorkbench workbench) {}
-
-	/**
-	 * @see org.eclipse.jface.preference.IPreferencePage#performOk()
-	 */
-	public boolean performOk() {
-		boolean ok = super.performOk();
-		
-		for (DiagramEditor editor : DiagramEditor.getEditors()) {
-			editor.refresh();
-		}
-		
-		return ok;
-	}
 }
\ No newline at end of file
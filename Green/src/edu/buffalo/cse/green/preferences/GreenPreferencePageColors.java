@@ -31,7 +31,6 @@ import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
 import edu.buffalo.cse.green.PlugIn;
-import edu.buffalo.cse.green.editor.DiagramEditor;
 
 /**
  * The preference page for Green's colors. 
@@ -82,17 +81,4 @@ implements IWorkbenchPreferencePage {
 	 * @see org.eclipse.ui.IWorkbenchPreferencePage#init(org.eclipse.ui.IWorkbench)
 	 */
 	public void init(IWorkbench workbench) {}
-
-	/**
-	 * @see org.eclipse.jface.preference.IPreferencePage#performOk()
-	 */
-	public boolean performOk() {
-		boolean ok = super.performOk();
-		
-		for (DiagramEditor editor : DiagramEditor.getEditors()) {
-			editor.refresh();
-		}
-		
-		return ok;
-	}
 }
\ No newline at end of file
@@ -50,6 +50,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	public static final String P_FORCE_DIA_IN_PROJECT = "dia.in.project";
 	public static final String P_DISPLAY_INCREMENTAL_EXPLORER_DIA = "display.inc.explr.dia";
 	public static final String P_AUTOARRANGE = "auto.arrange";
+	public static final String P_LOD_ZOOM_NAMES = "lod.zoom.names";
+	public static final String P_LOD_ZOOM_BOXES = "lod.zoom.boxes";
 	
 	/**
 	 * @see org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer#initializeDefaultPreferences()
@@ -85,6 +87,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		store.setDefault(P_MANHATTAN_ROUTING, false);
 		store.setDefault(P_DISPLAY_INCREMENTAL_EXPLORER_DIA, true);
 		store.setDefault(P_AUTOARRANGE, false);
+		store.setDefault(P_LOD_ZOOM_NAMES, 50);
+		store.setDefault(P_LOD_ZOOM_BOXES, 25);
 		
 		
 		//FIXME Font errors
@@ -0,0 +1,161 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.preferences;
+
+import java.util.StringTokenizer;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.resource.ColorRegistry;
+import org.eclipse.jface.resource.FontRegistry;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Holds the colors and fonts described by preferences, keyed by preference.
+ * Every caller asking for the same preference gets the same instance, so the
+ * figures of a diagram share a handful of colors and fonts. When one of the
+ * preferences changes, the registry switches to the new value; the old color
+ * or font stays valid until the display is disposed, since figures may still
+ * be drawn with it until they are refreshed.
+ *
+ * The colors and fonts belong to the registry and must not be disposed.
+ */
+public class PreferenceResources implements IPropertyChangeListener {
+	/**
+	 * Appended to a font preference to name the italic version of the font.
+	 */
+	private static final String ITALIC = ".italic";
+
+	private IPreferenceStore _store;
+
+	private ColorRegistry _colors;
+
+	private FontRegistry _fonts;
+
+	/**
+	 * @param store - The preferences.
+	 */
+	public PreferenceResources(IPreferenceStore store) {
+		_store = store;
+		_colors = new ColorRegistry(Display.getDefault());
+		_fonts = new FontRegistry(Display.getDefault());
+		_store.addPropertyChangeListener(this);
+	}
+
+	/**
+	 * @param key - The preference holding the color, as "red,green,blue".
+	 * @return The color.
+	 */
+	public Color getColor(String key) {
+		if (!_colors.hasValueFor(key)) {
+			_colors.put(key, parseColor(_store.getString(key)));
+		}
+
+		return _colors.get(key);
+	}
+
+	/**
+	 * @param key - The preference holding the font.
+	 * @param italic - Whether the font should be italic.
+	 * @return The font.
+	 */
+	public Font getFont(String key, boolean italic) {
+		String name = italic ? key + ITALIC : key;
+
+		if (!_fonts.hasValueFor(name)) {
+			_fonts.put(name, parseFont(_store.getString(key), italic));
+		}
+
+		return _fonts.get(name);
+	}
+
+	/**
+	 * @param key - The key of a font that isn't described by a preference.
+	 * @param data - The font.
+	 * @return The shared instance of the font.
+	 */
+	public Font getFont(String key, FontData data) {
+		if (!_fonts.hasValueFor(key)) {
+			_fonts.put(key, new FontData[] { data });
+		}
+
+		return _fonts.get(key);
+	}
+
+	/**
+	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+	 */
+	public void propertyChange(PropertyChangeEvent event) {
+		String key = event.getProperty();
+
+		if (_colors.hasValueFor(key)) {
+			_colors.put(key, parseColor(_store.getString(key)));
+		}
+
+		if (_fonts.hasValueFor(key)) {
+			_fonts.put(key, parseFont(_store.getString(key), false));
+		}
+
+		if (_fonts.hasValueFor(key + ITALIC)) {
+			_fonts.put(key + ITALIC, parseFont(_store.getString(key), true));
+		}
+	}
+
+	/**
+	 * Stops following the preferences.
+	 */
+	public void dispose() {
+		_store.removePropertyChangeListener(this);
+	}
+
+	/**
+	 * @param value - A color, as "red,green,blue".
+	 * @return The color.
+	 */
+	private static RGB parseColor(String value) {
+		int comma1 = value.indexOf(',');
+		int comma2 = value.lastIndexOf(',');
+
+		int r = Integer.parseInt(value.substring(0, comma1));
+		int g = Integer.parseInt(value.substring(comma1 + 1, comma2));
+		int b = Integer.parseInt(value.substring(comma2 + 1));
+
+		return new RGB(r, g, b);
+	}
+
+	/**
+	 * @param value - A font, as stored by a font preference.
+	 * @param italic - Whether the font should be italic.
+	 * @return The font, with the preference's weight.
+	 */
+	private static FontData[] parseFont(String value, boolean italic) {
+		StringTokenizer tokens = new StringTokenizer("0" + value, "|");
+		tokens.nextToken();
+		String fontName = tokens.nextToken();
+
+		//font = <unknown>|<name>|<size>|<style>|<OS>|<don't cares>
+		int fontSize = (int) (Double.parseDouble(tokens.nextToken()));
+		int style = italic ? SWT.ITALIC : SWT.NORMAL;
+
+		// only the bold setting is kept
+		if (tokens.hasMoreTokens()) {
+			style |= Integer.parseInt(tokens.nextToken()) % 2;
+		}
+
+		return new FontData[] { new FontData(fontName, fontSize, style) };
+	}
+}
@@ -0,0 +1,185 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.preferences;
+
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_AUTOARRANGE;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_ELEMENT_TOOLTIPS;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_FQN_TYPE_NAMES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_INCREMENTAL_EXPLORER_DIA;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_METHOD_PARAMETERS;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DISPLAY_RELATIONSHIP_SUBTYPES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_DRAW_LINE_WIDTH;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_FONT;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_GRID_SIZE;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_LOD_ZOOM_BOXES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_LOD_ZOOM_NAMES;
+import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_MANHATTAN_ROUTING;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import edu.buffalo.cse.green.GreenException;
+
+/**
+ * The values of the preferences read while editing a diagram, parsed once.
+ * A snapshot never changes; a new one is made whenever a preference changes.
+ */
+public final class PreferenceSnapshot {
+	private final boolean _autoArrange;
+
+	private final boolean _displayElementTooltips;
+
+	private final boolean _displayFqnTypeNames;
+
+	private final boolean _displayIncrementalExplorer;
+
+	private final boolean _displayMethodParameters;
+
+	private final boolean _displayRelationshipSubtypes;
+
+	private final int _gridSize;
+
+	private final int _lineWidth;
+
+	private final boolean _manhattanRouting;
+
+	private final double _namesZoom;
+
+	private final double _boxesZoom;
+
+	/**
+	 * @param store - The preferences.
+	 */
+	public PreferenceSnapshot(IPreferenceStore store) {
+		_autoArrange = store.getBoolean(P_AUTOARRANGE);
+		_displayElementTooltips = store.getBoolean(P_DISPLAY_ELEMENT_TOOLTIPS);
+		_displayFqnTypeNames = store.getBoolean(P_DISPLAY_FQN_TYPE_NAMES);
+		_displayIncrementalExplorer =
+			store.getBoolean(P_DISPLAY_INCREMENTAL_EXPLORER_DIA);
+		_displayMethodParameters = store.getBoolean(P_DISPLAY_METHOD_PARAMETERS);
+		_displayRelationshipSubtypes =
+			store.getBoolean(P_DISPLAY_RELATIONSHIP_SUBTYPES);
+		_gridSize = parseGridSize(store.getString(P_GRID_SIZE));
+		_lineWidth = store.getInt(P_DRAW_LINE_WIDTH);
+		_manhattanRouting = store.getBoolean(P_MANHATTAN_ROUTING);
+		_namesZoom = store.getInt(P_LOD_ZOOM_NAMES) / 100.0;
+		_boxesZoom = store.getInt(P_LOD_ZOOM_BOXES) / 100.0;
+	}
+
+	/**
+	 * @param value - The grid size preference.
+	 * @return The grid size, which is at least 1.
+	 */
+	private static int parseGridSize(String value) {
+		try {
+			return Math.max(1, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+			GreenException.warn("Cannot parse grid size: " + value);
+			return 1;
+		}
+	}
+
+	/**
+	 * @param key - The key of a preference.
+	 * @return true if the preference only changes how diagrams are drawn, so
+	 * that a change to it only has to redraw the open editors; false
+	 * otherwise.
+	 */
+	public static boolean isVisual(String key) {
+		return key.startsWith("color.")
+				|| key.equals(P_FONT)
+				|| key.equals(P_DISPLAY_FQN_TYPE_NAMES)
+				|| key.equals(P_DISPLAY_INCREMENTAL_EXPLORER_DIA)
+				|| key.equals(P_DISPLAY_METHOD_PARAMETERS)
+				|| key.equals(P_DISPLAY_RELATIONSHIP_SUBTYPES)
+				|| key.equals(P_DRAW_LINE_WIDTH)
+				|| key.equals(P_LOD_ZOOM_BOXES)
+				|| key.equals(P_LOD_ZOOM_NAMES)
+				|| key.equals(P_MANHATTAN_ROUTING);
+	}
+
+	/**
+	 * @return true if diagrams are arranged automatically as they change.
+	 */
+	public boolean isAutoArrange() {
+		return _autoArrange;
+	}
+
+	/**
+	 * @return true if members show their javadoc as a tooltip.
+	 */
+	public boolean isDisplayElementTooltips() {
+		return _displayElementTooltips;
+	}
+
+	/**
+	 * @return true if types are shown by their fully qualified names.
+	 */
+	public boolean isDisplayFqnTypeNames() {
+		return _displayFqnTypeNames;
+	}
+
+	/**
+	 * @return true if the incremental exploration bar is shown in types.
+	 */
+	public boolean isDisplayIncrementalExplorer() {
+		return _displayIncrementalExplorer;
+	}
+
+	/**
+	 * @return true if methods are shown with their parameters.
+	 */
+	public boolean isDisplayMethodParameters() {
+		return _displayMethodParameters;
+	}
+
+	/**
+	 * @return true if relationships are labeled with their subtypes.
+	 */
+	public boolean isDisplayRelationshipSubtypes() {
+		return _displayRelationshipSubtypes;
+	}
+
+	/**
+	 * @return The size of the grid models snap to; 1 if there is no grid.
+	 */
+	public int getGridSize() {
+		return _gridSize;
+	}
+
+	/**
+	 * @return The width of relationship lines.
+	 */
+	public int getLineWidth() {
+		return _lineWidth;
+	}
+
+	/**
+	 * @return true if relationships are routed with Manhattan routing.
+	 */
+	public boolean isManhattanRouting() {
+		return _manhattanRouting;
+	}
+
+	/**
+	 * @return The zoom below which types are drawn with their names only.
+	 */
+	public double getNamesZoom() {
+		return _namesZoom;
+	}
+
+	/**
+	 * @return The zoom below which types are drawn as plain boxes and
+	 * relationships as plain lines.
+	 */
+	public double getBoxesZoom() {
+		return _boxesZoom;
+	}
+}
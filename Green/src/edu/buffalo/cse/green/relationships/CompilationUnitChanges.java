@@ -0,0 +1,149 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.relationships;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+
+import edu.buffalo.cse.green.PlugIn;
+
+/**
+ * Records the contents of compilation units before and after they are
+ * rewritten, so that the rewrite can be undone and redone. A compilation unit
+ * is only ever switched between the two recorded contents, and only when it
+ * still holds the one it is switched from; edits made by anybody else are
+ * never overwritten.
+ */
+public class CompilationUnitChanges {
+	/**
+	 * The contents of each compilation unit before it was rewritten.
+	 */
+	private Map<ICompilationUnit, String> _before;
+
+	/**
+	 * The contents of each compilation unit after it was rewritten.
+	 */
+	private Map<ICompilationUnit, String> _after;
+
+	public CompilationUnitChanges() {
+		_before = new LinkedHashMap<ICompilationUnit, String>();
+		_after = new LinkedHashMap<ICompilationUnit, String>();
+	}
+
+	/**
+	 * Records the contents of a compilation unit that is about to be
+	 * rewritten.
+	 *
+	 * @param iCU - The compilation unit.
+	 * @throws JavaModelException
+	 */
+	public void recordBefore(ICompilationUnit iCU) throws JavaModelException {
+		if (!_before.containsKey(iCU)) {
+			_before.put(iCU, iCU.getBuffer().getContents());
+		}
+	}
+
+	/**
+	 * Records the contents of a compilation unit that has been rewritten.
+	 *
+	 * @param iCU - The compilation unit.
+	 * @throws JavaModelException
+	 */
+	public void recordAfter(ICompilationUnit iCU) throws JavaModelException {
+		if (_before.containsKey(iCU)) {
+			_after.put(iCU, iCU.getBuffer().getContents());
+		}
+	}
+
+	/**
+	 * @return True if every rewritten compilation unit still holds the
+	 * contents it was rewritten to, false otherwise.
+	 */
+	public boolean canUndo() {
+		return holds(_after);
+	}
+
+	/**
+	 * @return True if every rewritten compilation unit holds the contents it
+	 * had before it was rewritten, false otherwise.
+	 */
+	public boolean canRedo() {
+		return holds(_before);
+	}
+
+	/**
+	 * Restores the contents the compilation units had before they were
+	 * rewritten.
+	 *
+	 * @return True if the contents were restored, false if any of the
+	 * compilation units has been edited since.
+	 */
+	public boolean undo() {
+		if (!canUndo()) return false;
+
+		switchTo(_before);
+		return true;
+	}
+
+	/**
+	 * Restores the contents the compilation units were rewritten to.
+	 *
+	 * @return True if the contents were restored, false if any of the
+	 * compilation units has been edited since the rewrite was undone.
+	 */
+	public boolean redo() {
+		if (!canRedo()) return false;
+
+		switchTo(_after);
+		return true;
+	}
+
+	/**
+	 * @param contents - The contents to compare against.
+	 * @return True if at least one compilation unit was rewritten and every
+	 * rewritten compilation unit holds the given contents, false otherwise.
+	 */
+	private boolean holds(Map<ICompilationUnit, String> contents) {
+		if (_after.isEmpty()) return false;
+
+		for (ICompilationUnit iCU : _after.keySet()) {
+			try {
+				if (!iCU.exists() || !contents.get(iCU).equals(
+						iCU.getBuffer().getContents())) {
+					return false;
+				}
+			} catch (JavaModelException e) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Sets and saves the contents of every rewritten compilation unit.
+	 *
+	 * @param contents - The contents to set.
+	 */
+	private void switchTo(Map<ICompilationUnit, String> contents) {
+		for (ICompilationUnit iCU : _after.keySet()) {
+			try {
+				iCU.getBuffer().setContents(contents.get(iCU));
+				iCU.save(PlugIn.getEmptyProgressMonitor(), true);
+			} catch (JavaModelException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
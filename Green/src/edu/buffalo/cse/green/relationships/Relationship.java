@@ -26,6 +26,7 @@ import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.ExpressionStatement;
 import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.Initializer;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.ParameterizedType;
 import org.eclipse.jdt.core.dom.SimpleType;
@@ -46,6 +47,17 @@ public class Relationship {
 	
 	private boolean _retain;
 
+	/**
+	 * Memoized result of <code>isGeneric()</code>; the features of a
+	 * relationship never change, so the bindings only need resolving once.
+	 */
+	private Boolean _generic;
+
+	/**
+	 * Memoized result of <code>getEnclosingDeclaration()</code>.
+	 */
+	private ASTNode _declaration;
+
 	public Relationship(AbstractList<ASTNode> features) {
 		_features = features;
 	}
@@ -56,6 +68,20 @@ public class Relationship {
 	 * @author Gene Wang
 	 */
 	public boolean isGeneric() {
+		if (_generic == null) {
+			_generic = Boolean.valueOf(resolveGeneric());
+		}
+		
+		return _generic.booleanValue();
+	}
+	
+	/**
+	 * Resolves the type bindings of the features to determine whether the
+	 * relationship is generic.
+	 * 
+	 * @return True if the relationship is generic, false otherwise.
+	 */
+	private boolean resolveGeneric() {
 		for (ASTNode feature : _features) {
 			ITypeBinding[] interfaces = null;
 			if( feature == null ) {
@@ -79,6 +105,26 @@ public class Relationship {
 		return false;
 	}
 	
+	/**
+	 * @return The <code>MethodDeclaration</code> or <code>Initializer</code>
+	 * that encloses the first feature of the relationship, or null if there is
+	 * no such node.
+	 */
+	public ASTNode getEnclosingDeclaration() {
+		if (_declaration == null) {
+			ASTNode locator = _features.get(0);
+			
+			while (locator != null && !(locator instanceof MethodDeclaration)
+					&& !(locator instanceof Initializer)) {
+				locator = locator.getParent();
+			}
+			
+			_declaration = locator;
+		}
+		
+		return _declaration;
+	}
+	
 	/**
 	 * @return The features of the relationship.
 	 */
@@ -0,0 +1,210 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.relationships;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+
+import edu.buffalo.cse.green.GreenException;
+import edu.buffalo.cse.green.PlugIn;
+import edu.buffalo.cse.green.editor.model.RelationshipModel;
+
+/**
+ * Generates the code of several relationships at once. Generations are
+ * grouped by the compilation unit of their source type; each compilation unit
+ * is parsed once, every generation targeting it is recorded against that
+ * single AST, and the result is rewritten, saved and has its imports
+ * organized once. The generated code can be undone and redone for as long as
+ * nobody else edits the compilation units it was written to.
+ */
+public class RelationshipBatchGenerator {
+	/**
+	 * The queued generations, grouped by the compilation unit that contains
+	 * their source type.
+	 */
+	private Map<ICompilationUnit, List<Generation>> _generations;
+
+	/**
+	 * The contents of each compilation unit before and after generation.
+	 */
+	private CompilationUnitChanges _changes;
+
+	public RelationshipBatchGenerator() {
+		_generations =
+			new LinkedHashMap<ICompilationUnit, List<Generation>>();
+		_changes = new CompilationUnitChanges();
+	}
+
+	/**
+	 * Queues the generation of the given relationship. The settings currently
+	 * held by the relationship's generator (as set up by
+	 * <code>RelationshipGenerator.setRelationship()</code> and
+	 * <code>setCardinality()</code>) are captured, so the generator may be
+	 * reused for another relationship before the batch is run.
+	 *
+	 * @param rModel - The relationship.
+	 */
+	public void add(RelationshipModel rModel) {
+		if (rModel.getSourceType().isBinary()) {
+			GreenException.illegalOperation(
+					GreenException.GRERR_REL_SOURCE_BINARY);
+		}
+
+		ICompilationUnit iCU = (ICompilationUnit) rModel.getSourceType()
+				.getAncestor(IJavaElement.COMPILATION_UNIT);
+		RelationshipGenerator generator = PlugIn.getRelationshipGroup(
+				rModel.getPartClass()).getGenerator();
+		List<Generation> generations = _generations.get(iCU);
+
+		if (generations == null) {
+			generations = new ArrayList<Generation>();
+			_generations.put(iCU, generations);
+		}
+
+		generations.add(new Generation(rModel, generator,
+				generator.getSettings()));
+	}
+
+	/**
+	 * @return True if no generations are queued.
+	 */
+	public boolean isEmpty() {
+		return _generations.isEmpty();
+	}
+
+	/**
+	 * @return The queued relationships, in the order they were added.
+	 */
+	public List<RelationshipModel> getRelationships() {
+		List<RelationshipModel> models = new ArrayList<RelationshipModel>();
+
+		for (List<Generation> generations : _generations.values()) {
+			for (Generation generation : generations) {
+				models.add(generation._rModel);
+			}
+		}
+
+		return models;
+	}
+
+	/**
+	 * Generates the code of all queued relationships and empties the queue.
+	 */
+	public void run() {
+		for (ICompilationUnit iCU : _generations.keySet()) {
+			List<Generation> generations = _generations.get(iCU);
+			CompilationUnit cu = RelationshipVisitor.getCompilationUnit(
+					generations.get(0)._rModel.getSourceType());
+			RelationshipGenerator last = null;
+
+			cu.recordModifications();
+
+			for (Generation generation : order(generations)) {
+				last = generation._generator;
+				last.applySettings(generation._settings);
+				last.generate(cu);
+			}
+
+			try {
+				_changes.recordBefore(iCU);
+				last.applyChanges(cu);
+				_changes.recordAfter(iCU);
+			} catch (BadLocationException e) {
+				e.printStackTrace();
+			} catch (JavaModelException e) {
+				e.printStackTrace();
+			}
+		}
+
+		_generations.clear();
+	}
+
+	/**
+	 * @return True if code was generated and none of the compilation units it
+	 * was written to has been edited since, false otherwise.
+	 */
+	public boolean canUndo() {
+		return _changes.canUndo();
+	}
+
+	/**
+	 * Removes the generated code by restoring the contents the compilation
+	 * units had before <code>run()</code> was called.
+	 *
+	 * @return True if the contents were restored, false if any of the
+	 * compilation units has been edited since.
+	 */
+	public boolean undo() {
+		return _changes.undo();
+	}
+
+	/**
+	 * Writes the generated code back after <code>undo()</code>.
+	 *
+	 * @return True if the code was written back, false if any of the
+	 * compilation units has been edited since the undo.
+	 */
+	public boolean redo() {
+		return _changes.redo();
+	}
+
+	/**
+	 * Orders the generations of a single compilation unit so that the ones
+	 * that never create constructors come first. Code generated earlier in the
+	 * batch has no bindings, and generators that inspect existing methods must
+	 * not see those new declarations.
+	 *
+	 * @param generations - The generations.
+	 * @return The ordered generations.
+	 */
+	private Set<Generation> order(List<Generation> generations) {
+		Set<Generation> ordered = new LinkedHashSet<Generation>();
+
+		for (Generation generation : generations) {
+			if (!generation._generator.needConstructor()) {
+				ordered.add(generation);
+			}
+		}
+
+		ordered.addAll(generations);
+
+		return ordered;
+	}
+
+	/**
+	 * A single queued generation.
+	 */
+	private static class Generation {
+		private RelationshipModel _rModel;
+
+		private RelationshipGenerator _generator;
+
+		private RelationshipGenerator.Settings _settings;
+
+		public Generation(RelationshipModel rModel,
+				RelationshipGenerator generator,
+				RelationshipGenerator.Settings settings) {
+			_rModel = rModel;
+			_generator = generator;
+			_settings = settings;
+		}
+	}
+}
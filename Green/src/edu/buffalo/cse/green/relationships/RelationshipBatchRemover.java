@@ -0,0 +1,154 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ * 
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.relationships;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+
+import edu.buffalo.cse.green.editor.model.RelationshipModel;
+
+/**
+ * Removes the code of several relationships at once. Removals are grouped by
+ * the compilation unit of their source type; each compilation unit is parsed
+ * once, all of its removals are recorded against that single AST, and the
+ * result is rewritten, saved and has its imports organized once.
+ *
+ * The contents of every modified compilation unit before and after the
+ * removal are kept so that the removal can be undone, but only for as long as
+ * nobody else has edited those compilation units.
+ */
+public class RelationshipBatchRemover {
+	/**
+	 * The relationships to remove, grouped by the compilation unit that
+	 * contains their source type.
+	 */
+	private Map<ICompilationUnit, List<RelationshipModel>> _removals;
+
+	/**
+	 * The contents of each modified compilation unit before and after
+	 * removal.
+	 */
+	private CompilationUnitChanges _changes;
+
+	public RelationshipBatchRemover() {
+		_removals =
+			new LinkedHashMap<ICompilationUnit, List<RelationshipModel>>();
+		_changes = new CompilationUnitChanges();
+	}
+
+	/**
+	 * Queues the given relationship for removal.
+	 *
+	 * @param rModel - The relationship.
+	 */
+	public void add(RelationshipModel rModel) {
+		ICompilationUnit iCU = (ICompilationUnit) rModel.getSourceType()
+				.getAncestor(IJavaElement.COMPILATION_UNIT);
+
+		if (iCU == null) return;
+
+		List<RelationshipModel> models = _removals.get(iCU);
+
+		if (models == null) {
+			models = new ArrayList<RelationshipModel>();
+			_removals.put(iCU, models);
+		}
+
+		if (!models.contains(rModel)) {
+			models.add(rModel);
+		}
+	}
+
+	/**
+	 * @return True if no relationships are queued for removal.
+	 */
+	public boolean isEmpty() {
+		return _removals.isEmpty();
+	}
+
+	/**
+	 * Removes the code of all queued relationships from their compilation
+	 * units.
+	 */
+	public void run() {
+		for (ICompilationUnit iCU : _removals.keySet()) {
+			List<RelationshipModel> models = _removals.get(iCU);
+			CompilationUnit cu = RelationshipVisitor.getCompilationUnit(
+					models.get(0).getSourceType());
+			List<RelationshipRemover> removers =
+				new ArrayList<RelationshipRemover>();
+			RelationshipRemover remover = null;
+
+			try {
+				_changes.recordBefore(iCU);
+				cu.recordModifications();
+
+				for (RelationshipModel rModel : models) {
+					remover = rModel.getRelationshipGroup().getRemover();
+					removers.add(remover);
+					remover.setRelationship(rModel);
+					remover.removeRelationships(cu);
+				}
+
+				remover.applyChanges(cu);
+				_changes.recordAfter(iCU);
+			} catch (BadLocationException e) {
+				e.printStackTrace();
+			} catch (JavaModelException e) {
+				e.printStackTrace();
+			} finally {
+				for (RelationshipRemover used : removers) {
+					used.setRelationship(null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return True if the removal was run and none of the compilation units
+	 * it modified has been edited since, false otherwise.
+	 */
+	public boolean canUndo() {
+		return _changes.canUndo();
+	}
+
+	/**
+	 * Restores the contents the modified compilation units had before
+	 * <code>run()</code> was called. Nothing is restored if any of them has
+	 * been edited since, as those edits would otherwise be lost.
+	 *
+	 * @return True if the contents were restored, false otherwise.
+	 */
+	public boolean undo() {
+		return _changes.undo();
+	}
+
+	/**
+	 * @return The relationships that are queued for removal.
+	 */
+	public List<RelationshipModel> getRelationships() {
+		List<RelationshipModel> models = new ArrayList<RelationshipModel>();
+
+		for (List<RelationshipModel> cuModels : _removals.values()) {
+			models.addAll(cuModels);
+		}
+
+		return models;
+	}
+}
@@ -13,12 +13,15 @@ package edu.buffalo.cse.green.relationships;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
 
 import edu.buffalo.cse.green.editor.model.RelationshipModel;
 
@@ -29,12 +32,87 @@ import edu.buffalo.cse.green.editor.model.RelationshipModel;
  * @author bcmartin
  */
 public class RelationshipCache {
+	/**
+	 * The stamp of binary types that have no underlying resource.
+	 */
+	private static final long BINARY_STAMP = 0;
+
 	private Map<IType, Map<IType, Map<String, RelationshipModel>>> _models; 
 	private Set<RelationshipModel> _changes;
+	private Map<IType, Integer> _constructorCounts;
+	private Map<IType, Long> _constructorStamps;
 	
 	public RelationshipCache() {
 		_models = new HashMap<IType, Map<IType, Map<String, RelationshipModel>>>();
 		_changes = new HashSet<RelationshipModel>();
+		_constructorCounts = new HashMap<IType, Integer>();
+		_constructorStamps = new HashMap<IType, Long>();
+	}
+
+	/**
+	 * @param type - The type.
+	 * @return The modification stamp of the resource the given type is read
+	 * from, or <code>IResource.NULL_STAMP</code> if the type may have changed
+	 * without it changing (e.g. its compilation unit has unsaved changes).
+	 * Results computed against <code>IResource.NULL_STAMP</code> must not be
+	 * cached.
+	 */
+	public static long getModificationStamp(IType type) {
+		ICompilationUnit unit = type.getCompilationUnit();
+		
+		if (unit == null) {
+			// binary types only change along with the archive or folder that
+			// holds them; external archives have no resource
+			IResource resource = type.getResource();
+			
+			return resource == null ? BINARY_STAMP
+					: resource.getModificationStamp();
+		}
+		
+		try {
+			// unsaved changes don't touch the resource
+			if (unit.hasUnsavedChanges()) {
+				return IResource.NULL_STAMP;
+			}
+		} catch (JavaModelException e) {
+			return IResource.NULL_STAMP;
+		}
+		
+		IResource resource = unit.getResource();
+		
+		return resource == null ? IResource.NULL_STAMP
+				: resource.getModificationStamp();
+	}
+	
+	/**
+	 * Counts the constructors declared in the given type. The count is only
+	 * recomputed when the type's compilation unit has been modified, so every
+	 * relationship leaving the same type shares a single count per refresh.
+	 * 
+	 * @param type - The type.
+	 * @return The number of constructors declared in the type.
+	 * @throws JavaModelException
+	 */
+	public int getConstructorCount(IType type) throws JavaModelException {
+		Long stamp = getModificationStamp(type);
+		Integer count = _constructorCounts.get(type);
+		
+		if (count == null || stamp == IResource.NULL_STAMP
+				|| !stamp.equals(_constructorStamps.get(type))) {
+			int constructors = 0;
+			
+			for (IMethod method : type.getMethods()) {
+				if (method.isConstructor()) {
+					constructors++;
+				}
+			}
+			
+			count = constructors;
+			_constructorCounts.put(type, count);
+			_constructorStamps.put(type, stamp);
+		}
+		
+		return count;
 	}
 
 	/**
@@ -150,15 +228,8 @@ public class RelationshipCache {
 				: _models.values()) {
 			for (Map<String, RelationshipModel> map2: map1.values()) {
 				for (RelationshipModel rModel : map2.values()) {
-					for (Iterator iter = rModel.getRelationships().iterator(); iter.hasNext();) {
-						Relationship relationship = (Relationship) iter.next();
-						
-						if (!relationship.isRetained()) {
-							iter.remove();
-							_changes.add(rModel);
-						} else {
-							relationship.setRetained(false);
-						}
+					if (rModel.removeUnretainedRelationships()) {
+						_changes.add(rModel);
 					}
 				}
 			}
@@ -193,21 +193,9 @@ public abstract class RelationshipGenerator extends RelationshipVisitor {
 						GreenException.GRERR_REL_SOURCE_BINARY);
 			}
 
-			ICompilationUnit iCU = (ICompilationUnit) getSourceType()
-					.getAncestor(IJavaElement.COMPILATION_UNIT);
-
 			cu.recordModifications();
 			cu.accept(this);
-
-			IDocument sourceDoc = new IModifiableBuffer(iCU.getBuffer());
-			TextEdit textEdit = cu.rewrite(sourceDoc, null);
-			textEdit.apply(sourceDoc);
-
-			if (!iCU.isConsistent()) {
-				iCU.save(PlugIn.getEmptyProgressMonitor(), true);
-			}
-			
-			organizeImports(_sourceType);
+			applyChanges(cu);
 		} catch (BadLocationException e) {
 			e.printStackTrace();
 		} catch (JavaModelException e) {
@@ -215,6 +203,70 @@ public abstract class RelationshipGenerator extends RelationshipVisitor {
 		}
 	}
 
+	/**
+	 * Generates the relationship into the given compilation unit without
+	 * writing the changes back to the source. The compilation unit must
+	 * already be recording modifications.
+	 * 
+	 * @param cu - The compilation unit containing the source type.
+	 */
+	final void generate(CompilationUnit cu) {
+		if (_sourceType.isBinary()) {
+			GreenException.illegalOperation(
+					GreenException.GRERR_REL_SOURCE_BINARY);
+		}
+		
+		prepare(cu);
+		cu.accept(this);
+	}
+
+	/**
+	 * Writes the recorded modifications of the given compilation unit back to
+	 * the source type's buffer, saves it if necessary and organizes its
+	 * imports.
+	 * 
+	 * @param cu - The compilation unit containing the source type.
+	 * @throws BadLocationException
+	 * @throws JavaModelException
+	 */
+	final void applyChanges(CompilationUnit cu)
+	throws BadLocationException, JavaModelException {
+		ICompilationUnit iCU = (ICompilationUnit) getSourceType()
+				.getAncestor(IJavaElement.COMPILATION_UNIT);
+
+		IDocument sourceDoc = new IModifiableBuffer(iCU.getBuffer());
+		TextEdit textEdit = cu.rewrite(sourceDoc, null);
+		textEdit.apply(sourceDoc);
+
+		if (!iCU.isConsistent()) {
+			iCU.save(PlugIn.getEmptyProgressMonitor(), true);
+		}
+		
+		organizeImports(_sourceType);
+	}
+
+	/**
+	 * @return The settings (source, target and cardinality) the generator
+	 * currently holds.
+	 */
+	Settings getSettings() {
+		return new Settings(_sourceType, _declaredTargetType,
+				_actualTargetType, _cardinality);
+	}
+
+	/**
+	 * Restores settings previously obtained through
+	 * <code>getSettings()</code>.
+	 * 
+	 * @param settings - The settings.
+	 */
+	void applySettings(Settings settings) {
+		_sourceType = settings._sourceType;
+		_declaredTargetType = settings._declaredTargetType;
+		_actualTargetType = settings._actualTargetType;
+		_cardinality = settings._cardinality;
+	}
+
 	/**
 	 * @return The source type of the generated relationship.
 	 */
@@ -691,4 +743,26 @@ public abstract class RelationshipGenerator extends RelationshipVisitor {
 		
 		return getAST().newExpressionStatement(m);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The state a generator needs in order to generate one relationship. Used
+	 * to queue several generations that share the same generator instance.
+	 */
+	static class Settings {
+		private IType _sourceType;
+
+		private IType _declaredTargetType;
+
+		private IType _actualTargetType;
+
+		private int _cardinality;
+
+		Settings(IType sourceType, IType declaredTargetType,
+				IType actualTargetType, int cardinality) {
+			_sourceType = sourceType;
+			_declaredTargetType = declaredTargetType;
+			_actualTargetType = actualTargetType;
+			_cardinality = cardinality;
+		}
+	}
+}
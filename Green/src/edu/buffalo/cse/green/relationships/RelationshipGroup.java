@@ -11,7 +11,10 @@
 package edu.buffalo.cse.green.relationships;
 
 import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.swt.graphics.Image;
 
+import edu.buffalo.cse.green.PlugIn;
 import edu.buffalo.cse.green.editor.model.RelationshipKind;
 
 /**
@@ -104,6 +107,23 @@ public class RelationshipGroup {
 				+ ".gif");
 	}
 
+	/**
+	 * @return The image of the relationship, shared through the plugin's image
+	 * registry. The image must not be disposed.
+	 */
+	public Image getImage() {
+		ImageRegistry registry = PlugIn.getDefault().getImageRegistry();
+		String key = getPartClass().getName() + "." + getName();
+		Image image = registry.get(key);
+		
+		if (image == null) {
+			registry.put(key, getImageDescriptor());
+			image = registry.get(key);
+		}
+		
+		return image;
+	}
+
 	/**
 	 * @return Whether or not the given relationship type is visible in the
 	 * editor.
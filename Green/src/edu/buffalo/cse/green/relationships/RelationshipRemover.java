@@ -85,44 +85,9 @@ public abstract class RelationshipRemover extends RelationshipVisitor {
 				"The relationship to remove hasn't been set"); }
 
 		try {
-			ICompilationUnit iCU = (ICompilationUnit) getSourceType()
-					.getAncestor(IJavaElement.COMPILATION_UNIT);
-
 			cu.recordModifications();
-			
-			for (Relationship relationship : _rModel.getRelationships()) {
-				_relationship = relationship;
-				init();
-				cu.accept(this);
-				finish();
-			}
-
-			IDocument sourceDoc = new IModifiableBuffer(iCU.getBuffer());
-			TextEdit textEdit = cu.rewrite(sourceDoc, null);
-			textEdit.apply(sourceDoc);
-			
-//			// put this outside of if block
-//			iCU.save(PlugIn.getEmptyProgressMonitor(), false);
-//			
-//			if (!iCU.isConsistent()) {
-//				iCU.discardWorkingCopy();
-//				iCU.save(PlugIn.getEmptyProgressMonitor(), false);
-//			}
-//			
-			iCU.save(PlugIn.getEmptyProgressMonitor(), true);
-			//find active workbench and save it
-			IWorkbenchPage page = DiagramEditor.getActiveEditor().getSite().getPage(); 
-
-			//Iterates through the editor references and finds the source editor and saves it
-			String sourceCUName = getSourceType().getCompilationUnit().getResource().getName();
-			for (int i = 0; i < page.getEditorReferences().length; i++)
-			{
-				if( sourceCUName.equals(page.getEditorReferences()[i].getEditor(true).getEditorInput().getName()))
-				{
-					page.saveEditor(page.getEditorReferences()[i].getEditor(false), false);
-				}
-			}
-			organizeImports(getSourceType());
+			removeRelationships(cu);
+			applyChanges(cu);
 			DiagramEditor.getActiveEditor().refresh();
 			_rModel.getSourceModel().forceRefesh();
 		} catch (BadLocationException e) {
@@ -132,6 +97,66 @@ public abstract class RelationshipRemover extends RelationshipVisitor {
 		}
 	}
 
+	/**
+	 * Removes every instance of the current relationship model from the given
+	 * compilation unit. The compilation unit must already be recording
+	 * modifications; the changes are not written back to the source.
+	 * 
+	 * @param cu - The compilation unit containing the source type.
+	 */
+	final void removeRelationships(CompilationUnit cu) {
+		for (Relationship relationship : _rModel.getRelationships()) {
+			_relationship = relationship;
+			init();
+			cu.accept(this);
+			finish();
+		}
+		
+		_relationship = null;
+	}
+
+	/**
+	 * Writes the recorded modifications of the given compilation unit back to
+	 * the source type's buffer, saves it (along with any open editor on it)
+	 * and organizes its imports.
+	 * 
+	 * @param cu - The compilation unit containing the source type.
+	 * @throws BadLocationException
+	 * @throws JavaModelException
+	 */
+	final void applyChanges(CompilationUnit cu)
+	throws BadLocationException, JavaModelException {
+		ICompilationUnit iCU = (ICompilationUnit) getSourceType()
+				.getAncestor(IJavaElement.COMPILATION_UNIT);
+
+		IDocument sourceDoc = new IModifiableBuffer(iCU.getBuffer());
+		TextEdit textEdit = cu.rewrite(sourceDoc, null);
+		textEdit.apply(sourceDoc);
+		
+//		// put this outside of if block
+//		iCU.save(PlugIn.getEmptyProgressMonitor(), false);
+//		
+//		if (!iCU.isConsistent()) {
+//			iCU.discardWorkingCopy();
+//			iCU.save(PlugIn.getEmptyProgressMonitor(), false);
+//		}
+//		
+		iCU.save(PlugIn.getEmptyProgressMonitor(), true);
+		//find active workbench and save it
+		IWorkbenchPage page = DiagramEditor.getActiveEditor().getSite().getPage(); 
+
+		//Iterates through the editor references and finds the source editor and saves it
+		String sourceCUName = getSourceType().getCompilationUnit().getResource().getName();
+		for (int i = 0; i < page.getEditorReferences().length; i++)
+		{
+			if( sourceCUName.equals(page.getEditorReferences()[i].getEditor(true).getEditorInput().getName()))
+			{
+				page.saveEditor(page.getEditorReferences()[i].getEditor(false), false);
+			}
+		}
+		organizeImports(getSourceType());
+	}
+
 	/**
 	 * Called after the remover is run.
 	 */
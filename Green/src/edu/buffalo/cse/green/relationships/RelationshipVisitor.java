@@ -106,12 +106,21 @@ public abstract class RelationshipVisitor extends ASTVisitor {
 	 * @param cu - The compilation unit.
 	 */
 	public void accept(CompilationUnit cu) {
+		prepare(cu);
+		run(cu, null);
+	}
+
+	/**
+	 * Binds the visitor to the given <code>CompilationUnit</code> and calls
+	 * <code>preVisit()</code>, without visiting it.
+	 * 
+	 * @param cu - The compilation unit.
+	 */
+	void prepare(CompilationUnit cu) {
 		_ast = cu.getAST();
 		_cu = cu;
 
 		preVisit();
-		
-		run(cu, null);
 	}
 
 	/**
@@ -251,9 +260,13 @@ public abstract class RelationshipVisitor extends ASTVisitor {
 		for (SingleVariableDeclaration varDec : (AbstractList<SingleVariableDeclaration>) node
 				.parameters()) {
 			SimpleName parameter = varDec.getName();
+			IBinding binding = parameter.resolveBinding();
 			_parameters.add(parameter.getIdentifier());
-			_parameterVars.add((ILocalVariable) parameter.resolveBinding()
-					.getJavaElement());
+			
+			// parameters generated earlier in a batch have no binding yet
+			if (binding != null) {
+				_parameterVars.add((ILocalVariable) binding.getJavaElement());
+			}
 		}
 
 		return true;
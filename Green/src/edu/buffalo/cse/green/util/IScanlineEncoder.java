@@ -0,0 +1,36 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.util;
+
+import java.io.IOException;
+
+/**
+ * Encodes an image that is handed to it one row of pixels at a time, from the
+ * top down, so that the whole image never has to be held in memory.
+ */
+public interface IScanlineEncoder {
+	/**
+	 * Encodes the next row of the image.
+	 *
+	 * @param rgb - The red, green and blue bytes of each pixel in the row.
+	 * @param offset - The index of the row's first byte.
+	 * @throws IOException
+	 */
+	public void writeRow(byte[] rgb, int offset) throws IOException;
+
+	/**
+	 * Writes whatever is left of the image once all of its rows are written.
+	 * The stream is not closed.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException;
+}
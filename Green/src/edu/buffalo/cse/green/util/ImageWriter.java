@@ -10,11 +10,18 @@
 
 package edu.buffalo.cse.green.util;
 
+import static edu.buffalo.cse.green.GreenException.GRERR_FILE_NOT_FOUND;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.graphics.RGB;
 
+import edu.buffalo.cse.green.GreenException;
+
 /**
  * Base class for objects which saves a <code>IFigure</code>'s image.
  * 
@@ -47,6 +54,12 @@ public abstract class ImageWriter {
 	 * @param figure - The figure to save the image of.
 	 */
 	public void saveFigure(IFigure figure) {
+		// large figures never get painted into a single image
+		if (ImageWriterUtil.isTiled(figure, _format)) {
+			saveFigureTiled(figure);
+			return;
+		}
+		
 		if (_backgroundColor == null) {
 			ImageWriterUtil.writeFigureToLoader(figure, _imageIO, _format);
 		} else {
@@ -57,6 +70,30 @@ public abstract class ImageWriter {
 		saveImageToStream();
 	}
 
+	/**
+	 * Saves a figure straight to the destination, a band of tiles at a time.
+	 * 
+	 * @param figure - The figure to save the image of.
+	 */
+	private void saveFigureTiled(IFigure figure) {
+		try {
+			OutputStream out = openStream();
+			
+			try {
+				if (_backgroundColor == null) {
+					ImageWriterUtil.writeFigureTiled(figure, out, _format);
+				} else {
+					ImageWriterUtil.writeFigureTiled(figure, out, _format,
+							_backgroundColor);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			GreenException.fileException(GRERR_FILE_NOT_FOUND);
+		}
+	}
+
 	/**
 	 * Saves an image.
 	 * 
@@ -81,4 +118,10 @@ public abstract class ImageWriter {
 	 * format identified by <code>_format</code>.
 	 */
 	protected abstract void saveImageToStream();
+
+	/**
+	 * @return A stream to the destination, which the caller closes.
+	 * @throws IOException
+	 */
+	protected abstract OutputStream openStream() throws IOException;
 }
@@ -10,6 +10,11 @@
 
 package edu.buffalo.cse.green.util;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Creates graphics files containing <code>IFigure</code>s.
  * 
@@ -38,4 +43,11 @@ public class ImageWriterFile extends ImageWriter {
 	protected void saveImageToStream() {
 		_imageIO.save(_filename, _format);
 	}
+
+	/**
+	 * @see edu.buffalo.cse.green.util.ImageWriter#openStream()
+	 */
+	protected OutputStream openStream() throws IOException {
+		return new BufferedOutputStream(new FileOutputStream(_filename));
+	}
 }
\ No newline at end of file
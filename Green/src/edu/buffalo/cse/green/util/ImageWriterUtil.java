@@ -22,6 +22,8 @@ import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_TY
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_TYPE_TEXT;
 import static edu.buffalo.cse.green.preferences.PreferenceInitializer.P_COLOR_UML;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -52,6 +54,21 @@ public class ImageWriterUtil {
 	public static final int FORMAT_JPG = 4;
 	public static final int FORMAT_PNG = 5;
 	public static final int FORMAT_TIF = 6;
+	
+	/**
+	 * Figures with more pixels than this are saved as PNG or JPEG images a
+	 * band of tiles at a time, rather than painted into a single image.
+	 */
+	public static final int TILED_EXPORT_PIXELS = 2048 * 2048;
+	
+	/**
+	 * The size of the tiles large figures are painted in. The height is a
+	 * multiple of the eight rows a JPEG image is encoded in.
+	 */
+	public static final int TILE_WIDTH = 1024;
+	public static final int TILE_HEIGHT = 128;
+	
+	public static final int JPEG_QUALITY = 90;
 	private static RGB[] GRAYSCALE_COLORS;
 	private static RGB[] GREEN_COLORS;
 	private static final int GREEN_COLOR_BACKGROUND;
@@ -166,6 +183,171 @@ public class ImageWriterUtil {
 
 	}
 
+	/**
+	 * @param figure - The figure.
+	 * @param format - The format.
+	 * @return true if the figure should be saved with
+	 * <code>writeFigureTiled()</code>, false otherwise.
+	 */
+	public static boolean isTiled(IFigure figure, int format) {
+		if (format != FORMAT_PNG && format != FORMAT_JPG) return false;
+		
+		Rectangle bounds = figure.getBounds();
+		return (long) bounds.width * bounds.height > TILED_EXPORT_PIXELS;
+	}
+
+	/**
+	 * Writes a figure to a stream.
+	 * 
+	 * @param figure - The figure.
+	 * @param out - The stream.
+	 * @param format - Either <code>FORMAT_PNG</code> or
+	 * <code>FORMAT_JPG</code>.
+	 * @throws IOException
+	 */
+	public static void writeFigureTiled(
+			IFigure figure,
+			OutputStream out,
+			int format) throws IOException {
+		writeFigureTiled(figure, out, format,
+				GREEN_COLORS[GREEN_COLOR_BACKGROUND]);
+	}
+
+	/**
+	 * Writes a figure to a stream without painting it into a single image.
+	 * The figure is painted one tile at a time; each band of tiles is handed
+	 * to the encoder row by row, so the memory used depends on the width of
+	 * the figure and the size of a tile, but not on the figure's height.
+	 * 
+	 * @param figure - The figure.
+	 * @param out - The stream.
+	 * @param format - Either <code>FORMAT_PNG</code> or
+	 * <code>FORMAT_JPG</code>.
+	 * @param backgroundColor - The background color.
+	 * @throws IOException
+	 */
+	public static void writeFigureTiled(
+			IFigure figure,
+			OutputStream out,
+			int format,
+			RGB backgroundColor) throws IOException {
+		Rectangle bounds = figure.getBounds();
+		int width = Math.max(1, bounds.width);
+		int height = Math.max(1, bounds.height);
+		IScanlineEncoder encoder = (format == FORMAT_JPG)
+				? new JPEGScanlineEncoder(out, width, height, JPEG_QUALITY)
+				: new PNGScanlineEncoder(out, width, height);
+		
+		Image tile = new Image(null, Math.min(TILE_WIDTH, width),
+				Math.min(TILE_HEIGHT, height));
+		Color background = new Color(null, backgroundColor);
+		Color oldBackground = figure.getLocalBackgroundColor();
+		byte[] band = new byte[width * 3 * TILE_HEIGHT];
+		int[] pixels = new int[TILE_WIDTH];
+		
+		figure.setBackgroundColor(background);
+		
+		try {
+			for (int top = 0; top < height; top += TILE_HEIGHT) {
+				int bandHeight = Math.min(TILE_HEIGHT, height - top);
+				
+				for (int left = 0; left < width; left += TILE_WIDTH) {
+					paintTile(figure, tile, bounds.x + left, bounds.y + top,
+							background);
+					copyTile(tile.getImageData(), band, width, left,
+							Math.min(TILE_WIDTH, width - left), bandHeight,
+							pixels);
+				}
+				
+				for (int row = 0; row < bandHeight; row++) {
+					encoder.writeRow(band, row * width * 3);
+				}
+			}
+			
+			encoder.finish();
+		} finally {
+			figure.setBackgroundColor(oldBackground);
+			background.dispose();
+			tile.dispose();
+		}
+	}
+
+	/**
+	 * Paints the part of a figure that starts at the given point into a tile.
+	 * 
+	 * @param figure - The figure.
+	 * @param tile - The tile.
+	 * @param x - The x coordinate of the tile's top left corner.
+	 * @param y - The y coordinate of the tile's top left corner.
+	 * @param background - The background color.
+	 */
+	private static void paintTile(IFigure figure, Image tile, int x, int y,
+			Color background) {
+		org.eclipse.swt.graphics.Rectangle size = tile.getBounds();
+		GC gc = new GC(tile);
+		SWTGraphics graphics = new SWTGraphics(gc);
+		
+		try {
+			graphics.setBackgroundColor(background);
+			graphics.fillRectangle(0, 0, size.width, size.height);
+			graphics.translate(-x, -y);
+			figure.paint(graphics);
+		} finally {
+			graphics.dispose();
+			gc.dispose();
+		}
+	}
+
+	/**
+	 * Copies the pixels of a tile into a band of rows of RGB bytes.
+	 * 
+	 * @param data - The pixels of the tile.
+	 * @param band - The band.
+	 * @param bandWidth - The width of the band, in pixels.
+	 * @param left - The column of the band the tile starts at.
+	 * @param width - The number of columns to copy.
+	 * @param height - The number of rows to copy.
+	 * @param pixels - A buffer for one row of the tile.
+	 */
+	private static void copyTile(ImageData data, byte[] band, int bandWidth,
+			int left, int width, int height, int[] pixels) {
+		PaletteData palette = data.palette;
+		
+		for (int y = 0; y < height; y++) {
+			data.getPixels(0, y, width, pixels, 0);
+			int index = (y * bandWidth + left) * 3;
+			
+			for (int x = 0; x < width; x++) {
+				int pixel = pixels[x];
+				
+				if (palette.isDirect) {
+					band[index++] = (byte) shift(pixel & palette.redMask,
+							palette.redShift);
+					band[index++] = (byte) shift(pixel & palette.greenMask,
+							palette.greenShift);
+					band[index++] = (byte) shift(pixel & palette.blueMask,
+							palette.blueShift);
+				} else {
+					RGB rgb = palette.colors[pixel];
+					band[index++] = (byte) rgb.red;
+					band[index++] = (byte) rgb.green;
+					band[index++] = (byte) rgb.blue;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Shifts a masked color component the way <code>PaletteData</code> does.
+	 * 
+	 * @param value - The masked component.
+	 * @param shift - The palette's shift for the component.
+	 * @return The component, from 0 to 255.
+	 */
+	private static int shift(int value, int shift) {
+		return (shift < 0) ? value >>> -shift : value << shift;
+	}
+
 	/**
 	 * Loads an image.
 	 * 
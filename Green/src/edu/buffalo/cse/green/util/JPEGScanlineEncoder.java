@@ -0,0 +1,588 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a baseline JFIF (JPEG) image row by row, using the example
+ * quantization and Huffman tables of the JPEG standard and no chroma
+ * subsampling. Only the eight rows that make up the current row of blocks
+ * are held in memory.
+ */
+public class JPEGScanlineEncoder implements IScanlineEncoder {
+	/**
+	 * The natural index of each coefficient, in zigzag order.
+	 */
+	private static final int[] ZIGZAG = {
+		0, 1, 8, 16, 9, 2, 3, 10, 17, 24, 32, 25, 18, 11, 4, 5,
+		12, 19, 26, 33, 40, 48, 41, 34, 27, 20, 13, 6, 7, 14, 21, 28,
+		35, 42, 49, 56, 57, 50, 43, 36, 29, 22, 15, 23, 30, 37, 44, 51,
+		58, 59, 52, 45, 38, 31, 39, 46, 53, 60, 61, 54, 47, 55, 62, 63
+	};
+
+	private static final int[] LUMINANCE_QUANTIZATION = {
+		16, 11, 10, 16, 24, 40, 51, 61,
+		12, 12, 14, 19, 26, 58, 60, 55,
+		14, 13, 16, 24, 40, 57, 69, 56,
+		14, 17, 22, 29, 51, 87, 80, 62,
+		18, 22, 37, 56, 68, 109, 103, 77,
+		24, 35, 55, 64, 81, 104, 113, 92,
+		49, 64, 78, 87, 103, 121, 120, 101,
+		72, 92, 95, 98, 112, 100, 103, 99
+	};
+
+	private static final int[] CHROMINANCE_QUANTIZATION = {
+		17, 18, 24, 47, 99, 99, 99, 99,
+		18, 21, 26, 66, 99, 99, 99, 99,
+		24, 26, 56, 99, 99, 99, 99, 99,
+		47, 66, 99, 99, 99, 99, 99, 99,
+		99, 99, 99, 99, 99, 99, 99, 99,
+		99, 99, 99, 99, 99, 99, 99, 99,
+		99, 99, 99, 99, 99, 99, 99, 99,
+		99, 99, 99, 99, 99, 99, 99, 99
+	};
+
+	private static final int[] DC_LUMINANCE_BITS =
+		{ 0, 1, 5, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final int[] DC_LUMINANCE_VALUES =
+		{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+
+	private static final int[] DC_CHROMINANCE_BITS =
+		{ 0, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0 };
+
+	private static final int[] DC_CHROMINANCE_VALUES =
+		{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+
+	private static final int[] AC_LUMINANCE_BITS =
+		{ 0, 2, 1, 3, 3, 2, 4, 3, 5, 5, 4, 4, 0, 0, 1, 0x7d };
+
+	private static final int[] AC_LUMINANCE_VALUES = {
+		0x01, 0x02, 0x03, 0x00, 0x04, 0x11, 0x05, 0x12,
+		0x21, 0x31, 0x41, 0x06, 0x13, 0x51, 0x61, 0x07,
+		0x22, 0x71, 0x14, 0x32, 0x81, 0x91, 0xa1, 0x08,
+		0x23, 0x42, 0xb1, 0xc1, 0x15, 0x52, 0xd1, 0xf0,
+		0x24, 0x33, 0x62, 0x72, 0x82, 0x09, 0x0a, 0x16,
+		0x17, 0x18, 0x19, 0x1a, 0x25, 0x26, 0x27, 0x28,
+		0x29, 0x2a, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39,
+		0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49,
+		0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58, 0x59,
+		0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69,
+		0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79,
+		0x7a, 0x83, 0x84, 0x85, 0x86, 0x87, 0x88, 0x89,
+		0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98,
+		0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5, 0xa6, 0xa7,
+		0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6,
+		0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3, 0xc4, 0xc5,
+		0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4,
+		0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda, 0xe1, 0xe2,
+		0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea,
+		0xf1, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+		0xf9, 0xfa
+	};
+
+	private static final int[] AC_CHROMINANCE_BITS =
+		{ 0, 2, 1, 2, 4, 4, 3, 4, 7, 5, 4, 4, 0, 1, 2, 0x77 };
+
+	private static final int[] AC_CHROMINANCE_VALUES = {
+		0x00, 0x01, 0x02, 0x03, 0x11, 0x04, 0x05, 0x21,
+		0x31, 0x06, 0x12, 0x41, 0x51, 0x07, 0x61, 0x71,
+		0x13, 0x22, 0x32, 0x81, 0x08, 0x14, 0x42, 0x91,
+		0xa1, 0xb1, 0xc1, 0x09, 0x23, 0x33, 0x52, 0xf0,
+		0x15, 0x62, 0x72, 0xd1, 0x0a, 0x16, 0x24, 0x34,
+		0xe1, 0x25, 0xf1, 0x17, 0x18, 0x19, 0x1a, 0x26,
+		0x27, 0x28, 0x29, 0x2a, 0x35, 0x36, 0x37, 0x38,
+		0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48,
+		0x49, 0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58,
+		0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68,
+		0x69, 0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78,
+		0x79, 0x7a, 0x82, 0x83, 0x84, 0x85, 0x86, 0x87,
+		0x88, 0x89, 0x8a, 0x92, 0x93, 0x94, 0x95, 0x96,
+		0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5,
+		0xa6, 0xa7, 0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4,
+		0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3,
+		0xc4, 0xc5, 0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2,
+		0xd3, 0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda,
+		0xe2, 0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9,
+		0xea, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+		0xf9, 0xfa
+	};
+
+	/**
+	 * cos((2x + 1) * u * pi / 16) scaled by the DCT's normalization, indexed
+	 * by u * 8 + x.
+	 */
+	private static final double[] COSINES = new double[64];
+
+	static {
+		for (int u = 0; u < 8; u++) {
+			double scale = (u == 0) ? Math.sqrt(0.125) : 0.5;
+
+			for (int x = 0; x < 8; x++) {
+				COSINES[u * 8 + x] =
+					scale * Math.cos((2 * x + 1) * u * Math.PI / 16);
+			}
+		}
+	}
+
+	private OutputStream _out;
+
+	private int _width;
+
+	private int _height;
+
+	/**
+	 * The quantization tables of the luminance and chrominance, in natural
+	 * order.
+	 */
+	private int[][] _quantization = new int[2][];
+
+	private HuffmanTable[] _dcTables = {
+		new HuffmanTable(DC_LUMINANCE_BITS, DC_LUMINANCE_VALUES),
+		new HuffmanTable(DC_CHROMINANCE_BITS, DC_CHROMINANCE_VALUES)
+	};
+
+	private HuffmanTable[] _acTables = {
+		new HuffmanTable(AC_LUMINANCE_BITS, AC_LUMINANCE_VALUES),
+		new HuffmanTable(AC_CHROMINANCE_BITS, AC_CHROMINANCE_VALUES)
+	};
+
+	/**
+	 * The rows of the current row of blocks.
+	 */
+	private byte[] _rows;
+
+	private int _rowCount;
+
+	private int[] _lastDC = new int[3];
+
+	private int _bitBuffer;
+
+	private int _bitCount;
+
+	private double[] _block = new double[64];
+
+	private double[] _temp = new double[64];
+
+	/**
+	 * Writes the headers of the image.
+	 *
+	 * @param out - The stream to write the image to.
+	 * @param width - The width of the image.
+	 * @param height - The height of the image.
+	 * @param quality - The quality of the image, from 1 to 100.
+	 * @throws IOException
+	 */
+	public JPEGScanlineEncoder(OutputStream out, int width, int height,
+			int quality) throws IOException {
+		_out = out;
+		_width = width;
+		_height = height;
+		_rows = new byte[width * 3 * 8];
+		_quantization[0] = scaleQuantization(LUMINANCE_QUANTIZATION, quality);
+		_quantization[1] = scaleQuantization(CHROMINANCE_QUANTIZATION, quality);
+		writeHeaders();
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.util.IScanlineEncoder#writeRow(byte[], int)
+	 */
+	public void writeRow(byte[] rgb, int offset) throws IOException {
+		System.arraycopy(rgb, offset, _rows, _rowCount * _width * 3,
+				_width * 3);
+
+		if (++_rowCount == 8) {
+			writeBlockRow();
+		}
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.util.IScanlineEncoder#finish()
+	 */
+	public void finish() throws IOException {
+		if (_rowCount > 0) {
+			// repeat the last row to fill the last row of blocks
+			int length = _width * 3;
+
+			for (int row = _rowCount; row < 8; row++) {
+				System.arraycopy(_rows, (_rowCount - 1) * length, _rows,
+						row * length, length);
+			}
+
+			writeBlockRow();
+		}
+
+		// pad the last byte with ones
+		if (_bitCount > 0) {
+			writeBits(0x7f, 8 - _bitCount);
+		}
+
+		writeMarker(0xd9);
+		_out.flush();
+	}
+
+	/**
+	 * Scales a quantization table the way the IJG library does.
+	 *
+	 * @param table - The table for a quality of 50.
+	 * @param quality - The quality, from 1 to 100.
+	 * @return The scaled table.
+	 */
+	private static int[] scaleQuantization(int[] table, int quality) {
+		quality = Math.max(1, Math.min(100, quality));
+		int scale = (quality < 50) ? 5000 / quality : 200 - quality * 2;
+		int[] scaled = new int[64];
+
+		for (int i = 0; i < 64; i++) {
+			scaled[i] = Math.max(1, Math.min(255, (table[i] * scale + 50) / 100));
+		}
+
+		return scaled;
+	}
+
+	/**
+	 * Writes the markers that precede the image data.
+	 *
+	 * @throws IOException
+	 */
+	private void writeHeaders() throws IOException {
+		writeMarker(0xd8);
+
+		// JFIF 1.01, no units, square pixels, no thumbnail
+		writeMarker(0xe0);
+		writeShort(16);
+		_out.write(new byte[] { 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1,
+				0, 0 });
+
+		writeMarker(0xdb);
+		writeShort(2 + 2 * 65);
+
+		for (int table = 0; table < 2; table++) {
+			_out.write(table);
+
+			for (int i = 0; i < 64; i++) {
+				_out.write(_quantization[table][ZIGZAG[i]]);
+			}
+		}
+
+		writeMarker(0xc0);
+		writeShort(17);
+		_out.write(8);
+		writeShort(_height);
+		writeShort(_width);
+		_out.write(3);
+
+		for (int component = 0; component < 3; component++) {
+			_out.write(component + 1);
+			_out.write(0x11);
+			_out.write((component == 0) ? 0 : 1);
+		}
+
+		writeMarker(0xc4);
+		writeShort(2 + _dcTables[0].getLength() + _acTables[0].getLength()
+				+ _dcTables[1].getLength() + _acTables[1].getLength());
+		_dcTables[0].write(_out, 0x00);
+		_acTables[0].write(_out, 0x10);
+		_dcTables[1].write(_out, 0x01);
+		_acTables[1].write(_out, 0x11);
+
+		writeMarker(0xda);
+		writeShort(12);
+		_out.write(3);
+
+		for (int component = 0; component < 3; component++) {
+			_out.write(component + 1);
+			_out.write((component == 0) ? 0x00 : 0x11);
+		}
+
+		_out.write(0);
+		_out.write(63);
+		_out.write(0);
+	}
+
+	/**
+	 * Encodes the eight rows that are held as a row of blocks.
+	 *
+	 * @throws IOException
+	 */
+	private void writeBlockRow() throws IOException {
+		for (int x = 0; x < _width; x += 8) {
+			for (int component = 0; component < 3; component++) {
+				loadBlock(x, component);
+				transformBlock();
+				writeBlock(component);
+			}
+		}
+
+		_rowCount = 0;
+	}
+
+	/**
+	 * Converts an 8x8 block of pixels to one of the YCbCr components,
+	 * repeating the last column past the right edge of the image.
+	 *
+	 * @param left - The column of the block's left edge.
+	 * @param component - 0 for Y, 1 for Cb, 2 for Cr.
+	 */
+	private void loadBlock(int left, int component) {
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				int column = Math.min(left + x, _width - 1);
+				int index = (y * _width + column) * 3;
+				int r = _rows[index] & 0xff;
+				int g = _rows[index + 1] & 0xff;
+				int b = _rows[index + 2] & 0xff;
+				double value;
+
+				if (component == 0) {
+					value = 0.299 * r + 0.587 * g + 0.114 * b - 128;
+				} else if (component == 1) {
+					value = -0.168736 * r - 0.331264 * g + 0.5 * b;
+				} else {
+					value = 0.5 * r - 0.418688 * g - 0.081312 * b;
+				}
+
+				_block[y * 8 + x] = value;
+			}
+		}
+	}
+
+	/**
+	 * Applies the forward DCT to the block, one dimension at a time.
+	 */
+	private void transformBlock() {
+		for (int y = 0; y < 8; y++) {
+			for (int u = 0; u < 8; u++) {
+				double sum = 0;
+
+				for (int x = 0; x < 8; x++) {
+					sum += COSINES[u * 8 + x] * _block[y * 8 + x];
+				}
+
+				_temp[y * 8 + u] = sum;
+			}
+		}
+
+		for (int u = 0; u < 8; u++) {
+			for (int v = 0; v < 8; v++) {
+				double sum = 0;
+
+				for (int y = 0; y < 8; y++) {
+					sum += COSINES[v * 8 + y] * _temp[y * 8 + u];
+				}
+
+				_block[v * 8 + u] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Quantizes the transformed block and writes its Huffman codes.
+	 *
+	 * @param component - 0 for Y, 1 for Cb, 2 for Cr.
+	 * @throws IOException
+	 */
+	private void writeBlock(int component) throws IOException {
+		int table = (component == 0) ? 0 : 1;
+		int[] quantization = _quantization[table];
+		HuffmanTable dc = _dcTables[table];
+		HuffmanTable ac = _acTables[table];
+
+		int value = (int) Math.round(_block[0] / quantization[0]);
+		int difference = value - _lastDC[component];
+		_lastDC[component] = value;
+
+		int size = getSize(difference);
+		dc.writeCode(this, size);
+		writeAmplitude(difference, size);
+
+		int run = 0;
+
+		for (int i = 1; i < 64; i++) {
+			int index = ZIGZAG[i];
+			value = (int) Math.round(_block[index] / quantization[index]);
+
+			if (value == 0) {
+				run++;
+				continue;
+			}
+
+			while (run > 15) {
+				ac.writeCode(this, 0xf0);
+				run -= 16;
+			}
+
+			size = getSize(value);
+			ac.writeCode(this, (run << 4) | size);
+			writeAmplitude(value, size);
+			run = 0;
+		}
+
+		if (run > 0) {
+			ac.writeCode(this, 0x00);
+		}
+	}
+
+	/**
+	 * @param value - A coefficient or difference.
+	 * @return The number of bits needed for the magnitude of the value.
+	 */
+	private static int getSize(int value) {
+		value = Math.abs(value);
+		int size = 0;
+
+		while (value > 0) {
+			size++;
+			value >>= 1;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Writes the bits of a value, with negative values one less, as the
+	 * standard requires.
+	 *
+	 * @param value - The value.
+	 * @param size - The number of bits to write.
+	 * @throws IOException
+	 */
+	private void writeAmplitude(int value, int size) throws IOException {
+		if (size == 0) return;
+
+		if (value < 0) {
+			value--;
+		}
+
+		writeBits(value & ((1 << size) - 1), size);
+	}
+
+	/**
+	 * Writes the given number of low bits of the value to the entropy-coded
+	 * data, stuffing a zero byte after every 0xff byte.
+	 *
+	 * @param bits - The value.
+	 * @param count - The number of bits.
+	 * @throws IOException
+	 */
+	void writeBits(int bits, int count) throws IOException {
+		_bitBuffer = (_bitBuffer << count) | (bits & ((1 << count) - 1));
+		_bitCount += count;
+
+		while (_bitCount >= 8) {
+			int b = (_bitBuffer >> (_bitCount - 8)) & 0xff;
+			_out.write(b);
+
+			if (b == 0xff) {
+				_out.write(0);
+			}
+
+			_bitCount -= 8;
+		}
+
+		_bitBuffer &= (1 << _bitCount) - 1;
+	}
+
+	/**
+	 * @param marker - The second byte of the marker.
+	 * @throws IOException
+	 */
+	private void writeMarker(int marker) throws IOException {
+		_out.write(0xff);
+		_out.write(marker);
+	}
+
+	/**
+	 * @param value - The value to write in big-endian order.
+	 * @throws IOException
+	 */
+	private void writeShort(int value) throws IOException {
+		_out.write((value >> 8) & 0xff);
+		_out.write(value & 0xff);
+	}
+
+	/**
+	 * A Huffman table given by the number of codes of each length and the
+	 * symbols in order of their codes.
+	 */
+	private static class HuffmanTable {
+		private int[] _bits;
+
+		private int[] _values;
+
+		private int[] _codes = new int[256];
+
+		private int[] _sizes = new int[256];
+
+		/**
+		 * @param bits - The number of codes of each length from 1 to 16.
+		 * @param values - The symbols, in order of their codes.
+		 */
+		public HuffmanTable(int[] bits, int[] values) {
+			_bits = bits;
+			_values = values;
+
+			int code = 0;
+			int index = 0;
+
+			for (int length = 1; length <= 16; length++) {
+				for (int i = 0; i < bits[length - 1]; i++) {
+					_codes[values[index]] = code;
+					_sizes[values[index]] = length;
+					index++;
+					code++;
+				}
+
+				code <<= 1;
+			}
+		}
+
+		/**
+		 * @return The number of bytes the table takes in a DHT segment.
+		 */
+		public int getLength() {
+			return 1 + 16 + _values.length;
+		}
+
+		/**
+		 * Writes the table to a DHT segment.
+		 *
+		 * @param out - The stream.
+		 * @param id - The class and identifier of the table.
+		 * @throws IOException
+		 */
+		public void write(OutputStream out, int id) throws IOException {
+			out.write(id);
+
+			for (int count : _bits) {
+				out.write(count);
+			}
+
+			for (int value : _values) {
+				out.write(value);
+			}
+		}
+
+		/**
+		 * Writes the code of a symbol.
+		 *
+		 * @param encoder - The encoder to write the code to.
+		 * @param symbol - The symbol.
+		 * @throws IOException
+		 */
+		public void writeCode(JPEGScanlineEncoder encoder, int symbol)
+		throws IOException {
+			encoder.writeBits(_codes[symbol], _sizes[symbol]);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/* This file is part of Green.
+ *
+ * Copyright (C) 2005 The Research Foundation of State University of New York
+ * All Rights Under Copyright Reserved, The Research Foundation of S.U.N.Y.
+ *
+ * Green is free software, licensed under the terms of the Eclipse
+ * Public License, version 1.0.  The license is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package edu.buffalo.cse.green.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a 24-bit RGB PNG image row by row. The compressed rows are written
+ * out in IDAT chunks of a fixed size as they are produced.
+ */
+public class PNGScanlineEncoder implements IScanlineEncoder {
+	private static final byte[] SIGNATURE =
+		{ (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+
+	/**
+	 * The most compressed data held before it is written as an IDAT chunk.
+	 */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * The PNG filter that stores each byte as its difference from the same
+	 * byte of the pixel to its left.
+	 */
+	private static final int FILTER_SUB = 1;
+
+	private OutputStream _out;
+
+	private int _width;
+
+	private Deflater _deflater;
+
+	private DeflaterOutputStream _compressed;
+
+	private byte[] _filtered;
+
+	private CRC32 _crc = new CRC32();
+
+	/**
+	 * Writes the header of the image.
+	 *
+	 * @param out - The stream to write the image to.
+	 * @param width - The width of the image.
+	 * @param height - The height of the image.
+	 * @throws IOException
+	 */
+	public PNGScanlineEncoder(OutputStream out, int width, int height)
+	throws IOException {
+		_out = out;
+		_width = width;
+		_filtered = new byte[1 + width * 3];
+		_filtered[0] = FILTER_SUB;
+
+		_out.write(SIGNATURE);
+
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8; // bits per sample
+		header[9] = 2; // truecolor
+		writeChunk("IHDR", header, header.length);
+
+		_deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		_compressed = new DeflaterOutputStream(new ChunkStream(), _deflater,
+				CHUNK_SIZE);
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.util.IScanlineEncoder#writeRow(byte[], int)
+	 */
+	public void writeRow(byte[] rgb, int offset) throws IOException {
+		int length = _width * 3;
+
+		for (int i = 0; i < length; i++) {
+			int left = (i < 3) ? 0 : rgb[offset + i - 3];
+			_filtered[1 + i] = (byte) (rgb[offset + i] - left);
+		}
+
+		_compressed.write(_filtered);
+	}
+
+	/**
+	 * @see edu.buffalo.cse.green.util.IScanlineEncoder#finish()
+	 */
+	public void finish() throws IOException {
+		// flushes the last IDAT chunk
+		_compressed.close();
+		_deflater.end();
+		writeChunk("IEND", new byte[0], 0);
+		_out.flush();
+	}
+
+	/**
+	 * Writes a chunk of the PNG file.
+	 *
+	 * @param type - The four letter type of the chunk.
+	 * @param data - The data of the chunk.
+	 * @param length - The number of bytes of data.
+	 * @throws IOException
+	 */
+	private void writeChunk(String type, byte[] data, int length)
+	throws IOException {
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		byte[] number = new byte[4];
+
+		putInt(number, 0, length);
+		_out.write(number);
+		_out.write(typeBytes);
+		_out.write(data, 0, length);
+
+		_crc.reset();
+		_crc.update(typeBytes);
+		_crc.update(data, 0, length);
+		putInt(number, 0, (int) _crc.getValue());
+		_out.write(number);
+	}
+
+	/**
+	 * Stores an integer in big-endian order.
+	 *
+	 * @param buffer - The buffer.
+	 * @param offset - The index to store the integer at.
+	 * @param value - The integer.
+	 */
+	private static void putInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte) (value >>> 24);
+		buffer[offset + 1] = (byte) (value >>> 16);
+		buffer[offset + 2] = (byte) (value >>> 8);
+		buffer[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Collects the compressed data and writes it out as IDAT chunks.
+	 */
+	private class ChunkStream extends OutputStream {
+		private byte[] _buffer = new byte[CHUNK_SIZE];
+
+		private int _count;
+
+		/**
+		 * @see java.io.OutputStream#write(int)
+		 */
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		/**
+		 * @see java.io.OutputStream#write(byte[], int, int)
+		 */
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int count = Math.min(len, _buffer.length - _count);
+				System.arraycopy(b, off, _buffer, _count, count);
+				_count += count;
+				off += count;
+				len -= count;
+
+				if (_count == _buffer.length) {
+					flush();
+				}
+			}
+		}
+
+		/**
+		 * @see java.io.OutputStream#flush()
+		 */
+		public void flush() throws IOException {
+			if (_count > 0) {
+				writeChunk("IDAT", _buffer, _count);
+				_count = 0;
+			}
+		}
+
+		/**
+		 * Writes the last chunk, but leaves the image's stream open.
+		 *
+		 * @see java.io.OutputStream#close()
+		 */
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
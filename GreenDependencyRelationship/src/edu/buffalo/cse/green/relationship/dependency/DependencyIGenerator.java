@@ -19,6 +19,8 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.ExpressionStatement;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Statement;
 
 import edu.buffalo.cse.green.GreenException;
@@ -65,8 +67,12 @@ public class DependencyIGenerator extends CardinalRelationshipGenerator {
 	protected boolean process(Block block) {
 		if (_selectedMethods == null) return true;
 		if (!correctTypeToGenerate()) return true;
-		IMethod method =
-			(IMethod) getMethodDeclaration().resolveBinding().getJavaElement();
+		MethodDeclaration declaration = getMethodDeclaration();
+		if (declaration == null) return true;
+		IMethodBinding binding = declaration.resolveBinding();
+		// methods generated earlier in a batch have no bindings
+		if (binding == null) return true;
+		IMethod method = (IMethod) binding.getJavaElement();
 		if (!_selectedMethods.contains(method)) return true;
 
 		List<Statement> statements =
@@ -19,6 +19,8 @@ import java.util.List;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
@@ -67,8 +69,12 @@ public class DependencyLGenerator extends CardinalRelationshipGenerator {
 	protected boolean process(Block block) {
 		if (_selectedMethods == null) return true;
 		if (!correctTypeToGenerate()) return true;
-		IMethod method =
-			(IMethod) getMethodDeclaration().resolveBinding().getJavaElement();
+		MethodDeclaration declaration = getMethodDeclaration();
+		if (declaration == null) return true;
+		IMethodBinding binding = declaration.resolveBinding();
+		// methods generated earlier in a batch have no bindings
+		if (binding == null) return true;
+		IMethod method = (IMethod) binding.getJavaElement();
 		if (!_selectedMethods.contains(method)) return true;
 
 		List<Statement> statements =